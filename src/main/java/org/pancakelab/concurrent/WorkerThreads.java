@@ -0,0 +1,83 @@
+package org.pancakelab.concurrent;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Thread factories for background workers. Virtual threads are created through reflection so that the code also
+ * runs on JDKs without them, where {@link Kind#VIRTUAL} falls back to platform threads.
+ */
+public final class WorkerThreads {
+    public enum Kind {
+        VIRTUAL,
+        PLATFORM
+    }
+
+    private static final boolean VIRTUAL_AVAILABLE = virtualFactory("probe-") != null;
+
+    private WorkerThreads() {
+    }
+
+    /**
+     * @return whether this JDK can start virtual threads
+     */
+    public static boolean virtualThreadsAvailable() {
+        return VIRTUAL_AVAILABLE;
+    }
+
+    /**
+     * @return a factory of threads named {@code namePrefix} followed by a counter; platform threads are daemons
+     */
+    public static ThreadFactory factory(Kind kind, String namePrefix) {
+        if (kind == Kind.VIRTUAL && VIRTUAL_AVAILABLE) {
+            return virtualFactory(namePrefix);
+        }
+        AtomicLong counter = new AtomicLong();
+        return runnable -> {
+            Thread thread = new Thread(runnable, namePrefix + counter.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    /**
+     * @return an executor that starts a virtual thread per task, or, on JDKs without virtual threads, a fixed pool of
+     * {@code fallbackThreads} platform threads; threads are named {@code namePrefix} followed by a counter
+     */
+    public static ExecutorService virtualExecutor(String namePrefix, int fallbackThreads) {
+        ThreadFactory factory = factory(Kind.VIRTUAL, namePrefix);
+        if (VIRTUAL_AVAILABLE) {
+            try {
+                return (ExecutorService) Executors.class
+                    .getMethod("newThreadPerTaskExecutor", ThreadFactory.class)
+                    .invoke(null, factory);
+            }
+            catch (ReflectiveOperationException e) {
+                // fall through to the platform pool
+            }
+        }
+        return Executors.newFixedThreadPool(fallbackThreads, factory(Kind.PLATFORM, namePrefix));
+    }
+
+    /**
+     * @return a virtual thread factory, or {@code null} when this JDK has none
+     */
+    private static ThreadFactory virtualFactory(String namePrefix) {
+        try {
+            Object builder = Thread.class
+                .getMethod("ofVirtual")
+                .invoke(null);
+            Class<?> builderType = Class.forName("java.lang.Thread$Builder");
+            Method name = builderType.getMethod("name", String.class, long.class);
+            Method factory = builderType.getMethod("factory");
+            return (ThreadFactory) factory.invoke(name.invoke(builder, namePrefix, 0L));
+        }
+        catch (ReflectiveOperationException | UnsupportedOperationException e) {
+            // before JDK 21, or with virtual threads still in preview
+            return null;
+        }
+    }
+}
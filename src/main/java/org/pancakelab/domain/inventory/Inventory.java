@@ -0,0 +1,202 @@
+package org.pancakelab.domain.inventory;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import org.pancakelab.domain.shared.IngredientName;
+
+/**
+ * Stock of every ingredient, counted in portions, one portion per pancake. Pancakes are reserved when added to an
+ * order, released when removed or cancelled, and consumed when prepared.
+ * <p>
+ * The available stock of an ingredient is split over several stripes, each a counter on its own cache line in one
+ * array indexed by ingredient ordinal. A reservation draws from the stripe of the calling thread first and only moves
+ * on to the other stripes when that one runs dry, so concurrent orders for the same ingredient mostly update different
+ * cache lines and nobody takes a lock. A recipe is reserved ingredient by ingredient and rolled back when one falls
+ * short; while that rollback is under way a competing reservation may see the stock a little lower than it ends up.
+ */
+public final class Inventory {
+    private static final IngredientName[] INGREDIENTS = IngredientName.values();
+    /**
+     * Longs between two stripes: 128 bytes keeps them off each other's cache line and its prefetched neighbour.
+     */
+    private static final int              PADDING     = 16;
+
+    private static final Inventory UNLIMITED = new Inventory(1, false);
+
+    private final boolean         limited;
+    private final int             stripes;
+    private final AtomicLongArray available;
+    private final LongAdder[]     restocked = new LongAdder[INGREDIENTS.length];
+    private final LongAdder[]     consumed  = new LongAdder[INGREDIENTS.length];
+
+    /**
+     * Creates an empty inventory with one stripe per available processor, rounded up to a power of two.
+     */
+    public Inventory() {
+        this(Integer.highestOneBit(Math.max(1, Runtime
+            .getRuntime()
+            .availableProcessors() * 2 - 1)), true);
+    }
+
+    /**
+     * @param stripes the number of counters each ingredient's stock is split over, a positive power of two
+     */
+    public Inventory(int stripes) {
+        this(stripes, true);
+    }
+
+    private Inventory(int stripes, boolean limited) {
+        if (stripes <= 0 || Integer.bitCount(stripes) != 1) {
+            throw new IllegalArgumentException("Stripe count must be a positive power of two.");
+        }
+        this.limited = limited;
+        this.stripes = stripes;
+        this.available = new AtomicLongArray(INGREDIENTS.length * stripes * PADDING);
+        for (int i = 0; i < INGREDIENTS.length; i++) {
+            restocked[i] = new LongAdder();
+            consumed[i] = new LongAdder();
+        }
+    }
+
+    /**
+     * @return an inventory that never runs out and keeps no counts
+     */
+    public static Inventory unlimited() {
+        return UNLIMITED;
+    }
+
+    /**
+     * @return whether this inventory keeps stock at all, unlike {@link #unlimited()}
+     */
+    public boolean isLimited() {
+        return limited;
+    }
+
+    /**
+     * Adds {@code portions} to the available stock of {@code ingredient}, spread evenly over its stripes.
+     */
+    public void restock(IngredientName ingredient, long portions) {
+        if (portions < 0) {
+            throw new IllegalArgumentException("Restocked portions cannot be negative.");
+        }
+        restocked[ingredient.ordinal()].add(portions);
+        long share = portions / stripes;
+        long remainder = portions % stripes;
+        for (int stripe = 0; stripe < stripes; stripe++) {
+            available.addAndGet(cell(ingredient.ordinal(), stripe), share + (stripe < remainder ? 1 : 0));
+        }
+    }
+
+    /**
+     * Reserves one portion of every ingredient of the recipe for each of {@code count} pancakes, or nothing.
+     *
+     * @param recipeId the ingredient bitmask of the recipe, as in {@code RecipeRegistry}
+     * @throws OutOfStockException when an ingredient is short; nothing is reserved then
+     */
+    public void reserve(long recipeId, int count) {
+        if (!limited || count <= 0) {
+            return;
+        }
+        int home = homeStripe();
+        for (long remaining = recipeId; remaining != 0; remaining &= remaining - 1) {
+            int ingredient = Long.numberOfTrailingZeros(remaining);
+            long missing = take(ingredient, home, count);
+            if (missing > 0) {
+                giveBack(ingredient, home, count - missing);
+                for (long taken = recipeId & ~remaining; taken != 0; taken &= taken - 1) {
+                    giveBack(Long.numberOfTrailingZeros(taken), home, count);
+                }
+                throw new OutOfStockException(INGREDIENTS[ingredient], count);
+            }
+        }
+    }
+
+    /**
+     * Returns the reservation of {@code count} pancakes of the recipe to the available stock.
+     */
+    public void release(long recipeId, int count) {
+        if (!limited || count <= 0) {
+            return;
+        }
+        int home = homeStripe();
+        for (long remaining = recipeId; remaining != 0; remaining &= remaining - 1) {
+            giveBack(Long.numberOfTrailingZeros(remaining), home, count);
+        }
+    }
+
+    /**
+     * Turns the reservation of {@code count} pancakes of the recipe into used stock.
+     */
+    public void consume(long recipeId, int count) {
+        if (!limited || count <= 0) {
+            return;
+        }
+        for (long remaining = recipeId; remaining != 0; remaining &= remaining - 1) {
+            consumed[Long.numberOfTrailingZeros(remaining)].add(count);
+        }
+    }
+
+    /**
+     * @return the portions neither reserved nor consumed; exact only while no reservation is in progress
+     */
+    public long available(IngredientName ingredient) {
+        long total = 0;
+        for (int stripe = 0; stripe < stripes; stripe++) {
+            total += available.get(cell(ingredient.ordinal(), stripe));
+        }
+        return total;
+    }
+
+    /**
+     * @return the portions reserved and not yet released or consumed, derived from the other counts so that
+     * reservations only touch the stock stripes
+     */
+    public long reserved(IngredientName ingredient) {
+        return restocked[ingredient.ordinal()].sum() - consumed(ingredient) - available(ingredient);
+    }
+
+    public long consumed(IngredientName ingredient) {
+        return consumed[ingredient.ordinal()].sum();
+    }
+
+    /**
+     * Takes up to {@code portions} from the stripes of one ingredient, starting at the home stripe.
+     *
+     * @return the portions that could not be taken
+     */
+    private long take(int ingredient, int home, long portions) {
+        long missing = portions;
+        for (int i = 0; i < stripes && missing > 0; i++) {
+            int index = cell(ingredient, (home + i) & (stripes - 1));
+            long current;
+            long taken;
+            do {
+                current = available.get(index);
+                taken = Math.min(current, missing);
+            } while (taken > 0 && !available.compareAndSet(index, current, current - taken));
+            missing -= taken;
+        }
+        return missing;
+    }
+
+    private void giveBack(int ingredient, int home, long portions) {
+        if (portions > 0) {
+            available.addAndGet(cell(ingredient, home), portions);
+        }
+    }
+
+    private int homeStripe() {
+        return (int) mix(Thread
+            .currentThread()
+            .getId()) & (stripes - 1);
+    }
+
+    private int cell(int ingredient, int stripe) {
+        return (ingredient * stripes + stripe) * PADDING;
+    }
+
+    private static long mix(long value) {
+        value = (value ^ (value >>> 33)) * 0xff51afd7ed558ccdL;
+        return value ^ (value >>> 33);
+    }
+}
@@ -0,0 +1,21 @@
+package org.pancakelab.domain.inventory;
+
+import org.pancakelab.domain.shared.IngredientName;
+
+/**
+ * Thrown when the inventory cannot cover the ingredients of the pancakes being added.
+ */
+public class OutOfStockException extends IllegalStateException {
+    private static final long serialVersionUID = 1L;
+
+    private final IngredientName ingredient;
+
+    public OutOfStockException(IngredientName ingredient, long requested) {
+        super("Not enough " + ingredient.getDisplayName() + " in stock for " + requested + " pancake(s).");
+        this.ingredient = ingredient;
+    }
+
+    public IngredientName getIngredient() {
+        return ingredient;
+    }
+}
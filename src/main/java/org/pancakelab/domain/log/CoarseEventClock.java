@@ -0,0 +1,49 @@
+package org.pancakelab.domain.log;
+
+import java.time.Duration;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * {@link EventClock#system()} sampled by a background thread every {@code resolution}, so reading it is a single
+ * volatile read. Timestamps lag by up to one resolution and events within one tick share a timestamp; use the log
+ * sequence to order them.
+ */
+public final class CoarseEventClock implements EventClock, AutoCloseable {
+    private final long     resolutionNanos;
+    private final Thread   ticker;
+    private volatile long  now;
+    private volatile boolean closed;
+
+    CoarseEventClock(Duration resolution) {
+        if (resolution.isNegative() || resolution.isZero()) {
+            throw new IllegalArgumentException("Clock resolution must be positive.");
+        }
+        this.resolutionNanos = resolution.toNanos();
+        this.now = EventClock
+            .system()
+            .epochNanos();
+        this.ticker = new Thread(this::tick, "coarse-event-clock");
+        ticker.setDaemon(true);
+        ticker.start();
+    }
+
+    @Override public long epochNanos() {
+        return now;
+    }
+
+    /**
+     * Stops the ticker; the clock keeps returning its last reading.
+     */
+    @Override public void close() {
+        closed = true;
+        LockSupport.unpark(ticker);
+    }
+
+    private void tick() {
+        EventClock source = EventClock.system();
+        while (!closed) {
+            LockSupport.parkNanos(this, resolutionNanos);
+            now = source.epochNanos();
+        }
+    }
+}
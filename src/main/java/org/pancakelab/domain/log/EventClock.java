@@ -0,0 +1,28 @@
+package org.pancakelab.domain.log;
+
+import java.time.Duration;
+
+/**
+ * Source of {@link OrderEvent} timestamps, in nanoseconds since the Unix epoch.
+ */
+@FunctionalInterface
+public interface EventClock {
+    long epochNanos();
+
+    /**
+     * @return a clock that advances with {@link System#nanoTime()} from a wall clock reading, so it never goes
+     * backwards and reading it neither consults a time zone nor, mostly, allocates. About once a second it re-reads the
+     * wall clock and jumps forward to it if it fell behind; it never steps back to a wall clock that is behind it, so
+     * drift in that direction persists
+     */
+    static EventClock system() {
+        return SystemEventClock.INSTANCE;
+    }
+
+    /**
+     * @return a {@link CoarseEventClock} ticking every {@code resolution}
+     */
+    static CoarseEventClock coarse(Duration resolution) {
+        return new CoarseEventClock(resolution);
+    }
+}
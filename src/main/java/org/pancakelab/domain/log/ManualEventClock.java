@@ -0,0 +1,32 @@
+package org.pancakelab.domain.log;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * {@link EventClock} that only moves when told to, for deterministic tests.
+ */
+public final class ManualEventClock implements EventClock {
+    private final AtomicLong now;
+
+    public ManualEventClock(Instant start) {
+        this.now = new AtomicLong(epochNanosOf(start));
+    }
+
+    @Override public long epochNanos() {
+        return now.get();
+    }
+
+    public void set(Instant instant) {
+        now.set(epochNanosOf(instant));
+    }
+
+    public void advance(Duration duration) {
+        now.addAndGet(duration.toNanos());
+    }
+
+    private static long epochNanosOf(Instant instant) {
+        return instant.getEpochSecond() * 1_000_000_000L + instant.getNano();
+    }
+}
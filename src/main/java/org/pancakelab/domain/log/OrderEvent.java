@@ -1,20 +1,248 @@
 package org.pancakelab.domain.log;
 
+import java.time.Instant;
 import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Objects;
 import java.util.UUID;
+import org.pancakelab.domain.pancake.Pancake;
+import org.pancakelab.domain.pancake.RecipeRegistry;
+import org.pancakelab.domain.shared.Address;
 
 /**
+ * An entry of the order audit log. Events created by the factory methods keep the facts they describe in typed
+ * fields and a {@link Template}; the human-readable {@link #details()} are only rendered, and then cached, when
+ * somebody reads them. The timestamp is kept as nanoseconds since the epoch, usually taken from the log's
+ * {@link EventClock}, and only turned into a {@link LocalDateTime} in the system time zone when read. The log that
+ * indexes an event gives it a {@linkplain #sequence() sequence number}, which orders events that share a timestamp.
+ * Two events are equal when they have the same order, timestamp, type and template, and either the same typed fields
+ * or, for {@link Template#TEXT} events, the same details; comparing them never renders details.
+ *
  * @author Shantanu Singh.
  */
-public record OrderEvent(UUID orderId,
-                         LocalDateTime timestamp,
-                         EventType type,
-                         String details
-) {
+public final class OrderEvent {
     public enum EventType {
         ADD_PANCAKE,
         REMOVE_PANCAKE,
         CANCEL_ORDER,
         DELIVER_ORDER
     }
-}
\ No newline at end of file
+
+    /**
+     * How the details of an event are rendered from its fields.
+     */
+    public enum Template {
+        TEXT,
+        PANCAKES_ADDED,
+        PANCAKES_REMOVED,
+        ORDER_CANCELLED,
+        ORDER_DELIVERED
+    }
+
+    private final UUID          orderId;
+    private final long          epochNanos;
+    private final EventType     type;
+    private final Template      template;
+    private final int           count;
+    private final long          recipeId;
+    private final Address       address;
+    private final int           remainingItems;
+    /**
+     * Rendered on first read. Racing readers may each render it, but every field it is rendered from is final, so
+     * they all cache an equal string.
+     */
+    private       String        details;
+    private       long          sequence;
+
+    public OrderEvent(UUID orderId, LocalDateTime timestamp, EventType type, String details) {
+        this(orderId, epochNanosOf(timestamp), type, details);
+    }
+
+    public OrderEvent(UUID orderId, long epochNanos, EventType type, String details) {
+        this(orderId, epochNanos, type, Template.TEXT, 0, 0, null, 0, details);
+    }
+
+    private OrderEvent(UUID orderId, long epochNanos, EventType type, Template template, int count, long recipeId,
+                       Address address, int remainingItems, String details) {
+        this.orderId = orderId;
+        this.epochNanos = epochNanos;
+        this.type = type;
+        this.template = template;
+        this.count = count;
+        this.recipeId = recipeId;
+        this.address = address;
+        this.remainingItems = remainingItems;
+        this.details = details;
+    }
+
+    public static OrderEvent pancakesAdded(UUID orderId, long epochNanos, long recipeId, int count) {
+        return new OrderEvent(orderId, epochNanos, EventType.ADD_PANCAKE, Template.PANCAKES_ADDED, count, recipeId, null, 0, null);
+    }
+
+    /**
+     * @param description the description the pancakes were removed by, which need not match any recipe
+     */
+    public static OrderEvent pancakesRemoved(UUID orderId, long epochNanos, String description, int count, int remainingItems) {
+        return pancakesRemoved(orderId, epochNanos, description, RecipeRegistry.recipeDescribedAs(description), count, remainingItems);
+    }
+
+    /**
+     * @param recipe the recipe {@code description} was resolved to, or {@code null} when it matches none
+     */
+    public static OrderEvent pancakesRemoved(UUID orderId, long epochNanos, String description, Pancake recipe, int count,
+        int remainingItems) {
+        if (recipe == null) {
+            return new OrderEvent(orderId, epochNanos, EventType.REMOVE_PANCAKE, removedDetails(count, description, remainingItems));
+        }
+        return new OrderEvent(orderId, epochNanos, EventType.REMOVE_PANCAKE, Template.PANCAKES_REMOVED, count, recipe.getRecipeId(), null,
+            remainingItems, null);
+    }
+
+    public static OrderEvent orderCancelled(UUID orderId, long epochNanos, int count) {
+        return new OrderEvent(orderId, epochNanos, EventType.CANCEL_ORDER, Template.ORDER_CANCELLED, count, 0, null, 0, null);
+    }
+
+    public static OrderEvent orderDelivered(UUID orderId, long epochNanos, int count, Address address) {
+        return new OrderEvent(orderId, epochNanos, EventType.DELIVER_ORDER, Template.ORDER_DELIVERED, count, 0, address, 0, null);
+    }
+
+    /**
+     * Recreates a templated event from its typed fields, e.g. when a persisted log is replayed. Text events are
+     * recreated through the constructors, with their details.
+     */
+    public static OrderEvent restore(UUID orderId, long epochNanos, EventType type, Template template, int count, long recipeId,
+                                     Address address, int remainingItems) {
+        if (template == Template.TEXT) {
+            throw new IllegalArgumentException("Text events are restored with their details.");
+        }
+        return new OrderEvent(orderId, epochNanos, type, template, count, recipeId, address, remainingItems, null);
+    }
+
+    public UUID orderId() {
+        return orderId;
+    }
+
+    /**
+     * @return the timestamp in the system time zone, created on every call
+     */
+    public LocalDateTime timestamp() {
+        return LocalDateTime.ofInstant(Instant.ofEpochSecond(0, epochNanos), ZoneId.systemDefault());
+    }
+
+    public long epochNanos() {
+        return epochNanos;
+    }
+
+    /**
+     * @return the position of this event in the log that indexed it, starting at 1, or zero before it was logged
+     */
+    public long sequence() {
+        return sequence;
+    }
+
+    /**
+     * Called by the log that indexes this event, before it publishes it to readers.
+     */
+    public void assignSequence(long sequence) {
+        this.sequence = sequence;
+    }
+
+    public EventType type() {
+        return type;
+    }
+
+    public Template template() {
+        return template;
+    }
+
+    /**
+     * @return the number of pancakes added, removed, cancelled or delivered
+     */
+    public int count() {
+        return count;
+    }
+
+    /**
+     * @return the recipe of the pancakes added or removed, or zero
+     */
+    public long recipeId() {
+        return recipeId;
+    }
+
+    /**
+     * @return the delivery address, or {@code null}
+     */
+    public Address address() {
+        return address;
+    }
+
+    /**
+     * @return the number of pancakes left in the order after a removal
+     */
+    public int remainingItems() {
+        return remainingItems;
+    }
+
+    public String details() {
+        String rendered = details;
+        if (rendered == null) {
+            rendered = render();
+            details = rendered;
+        }
+        return rendered;
+    }
+
+    private String render() {
+        return switch (template) {
+            case PANCAKES_ADDED -> count == 1
+                ? "Added pancake with description " + descriptionOf(recipeId)
+                : "Added %d pancakes with description %s".formatted(count, descriptionOf(recipeId));
+            case PANCAKES_REMOVED -> removedDetails(count, descriptionOf(recipeId), remainingItems);
+            case ORDER_CANCELLED -> "Order canceled with %d pancakes with orderId %s.".formatted(count, orderId);
+            case ORDER_DELIVERED -> String.format("Order %s with %d pancake(s) delivered to building %d, room %d.", orderId, count,
+                address.building(), address.room());
+            case TEXT -> throw new IllegalStateException("Text event without details.");
+        };
+    }
+
+    private static String removedDetails(int count, String description, int remainingItems) {
+        return String.format("Removed %d pancake(s) with description '%s'. Order now contains %d pancake(s).", count, description,
+            remainingItems);
+    }
+
+    private static long epochNanosOf(LocalDateTime timestamp) {
+        Instant instant = timestamp
+            .atZone(ZoneId.systemDefault())
+            .toInstant();
+        return instant.getEpochSecond() * 1_000_000_000L + instant.getNano();
+    }
+
+    private static String descriptionOf(long recipeId) {
+        return RecipeRegistry
+            .recipe(recipeId)
+            .getDescription();
+    }
+
+    @Override public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof OrderEvent event)) return false;
+        if (!Objects.equals(orderId, event.orderId) || epochNanos != event.epochNanos || type != event.type || template != event.template) {
+            return false;
+        }
+        if (template == Template.TEXT) {
+            return Objects.equals(details, event.details);
+        }
+        return count == event.count && recipeId == event.recipeId && remainingItems == event.remainingItems && Objects.equals(address,
+            event.address);
+    }
+
+    @Override public int hashCode() {
+        return template == Template.TEXT
+            ? Objects.hash(orderId, epochNanos, type, template, details)
+            : Objects.hash(orderId, epochNanos, type, template, count, recipeId, address, remainingItems);
+    }
+
+    @Override public String toString() {
+        return "OrderEvent[orderId=" + orderId + ", timestamp=" + timestamp() + ", sequence=" + sequence + ", type=" + type + ", details=" + details() + "]";
+    }
+}
@@ -0,0 +1,57 @@
+package org.pancakelab.domain.log;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.LongSupplier;
+
+/**
+ * See {@link EventClock#system()}.
+ */
+final class SystemEventClock implements EventClock {
+    static final Duration         RESYNC_INTERVAL = Duration.ofSeconds(1);
+    static final SystemEventClock INSTANCE        = new SystemEventClock(SystemEventClock::wallClockNanos, System::nanoTime,
+        RESYNC_INTERVAL);
+
+    private final LongSupplier            wallClock;
+    private final LongSupplier            nanoTime;
+    private final long                    resyncNanos;
+    private final AtomicReference<Origin> origin;
+
+    /**
+     * A wall clock reading and the {@link System#nanoTime()} it was taken at.
+     */
+    private record Origin(long epochNanos, long nanoTime) {
+    }
+
+    SystemEventClock(LongSupplier wallClock, LongSupplier nanoTime, Duration resyncInterval) {
+        this.wallClock = wallClock;
+        this.nanoTime = nanoTime;
+        this.resyncNanos = resyncInterval.toNanos();
+        this.origin = new AtomicReference<>(new Origin(wallClock.getAsLong(), nanoTime.getAsLong()));
+    }
+
+    @Override public long epochNanos() {
+        Origin current = origin.get();
+        long now = nanoTime.getAsLong();
+        if (now - current.nanoTime() >= resyncNanos) {
+            current = resync(current, now);
+        }
+        return current.epochNanos() + (now - current.nanoTime());
+    }
+
+    /**
+     * Moves the origin to the wall clock, but never behind where {@code current} has got to by {@code now}, so that
+     * readings stay monotonic. Racing readers let the first resync win.
+     */
+    private Origin resync(Origin current, long now) {
+        long extrapolated = current.epochNanos() + (now - current.nanoTime());
+        Origin resynced = new Origin(Math.max(extrapolated, wallClock.getAsLong()), now);
+        return origin.compareAndSet(current, resynced) ? resynced : origin.get();
+    }
+
+    private static long wallClockNanos() {
+        Instant now = Instant.now();
+        return now.getEpochSecond() * 1_000_000_000L + now.getNano();
+    }
+}
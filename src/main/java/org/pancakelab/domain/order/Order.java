@@ -1,29 +1,82 @@
 package org.pancakelab.domain.order;
 
-import java.util.ArrayList;
-import java.util.Collections;
-import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.UUID;
-import java.util.concurrent.locks.Lock;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.locks.ReentrantLock;
 import org.pancakelab.domain.pancake.Item;
+import org.pancakelab.domain.pancake.RecipeRegistry;
 import org.pancakelab.domain.shared.Address;
+import org.pancakelab.metrics.OrderItemsChangedEvent;
+import org.pancakelab.metrics.OrderLockWaitEvent;
+import org.pancakelab.metrics.OrderStateContentionEvent;
+import org.pancakelab.metrics.OrderTransitionEvent;
 
+/**
+ * A customer order. Its status and pancake count share one atomically updated state word, so reading the status is
+ * a single volatile read and status transitions are compare-and-set operations that never block. Item changes also
+ * go through the state word, so they cannot interleave with the transition that closes the order. The per-recipe
+ * quantities are guarded by a lock that only item changes and item reads take.
+ * <p>
+ * Transitions, item changes, waits for the item lock and retried state updates are emitted as Flight Recorder
+ * events; while no recording is enabled they are only a disabled-event check.
+ */
 public class Order {
+    private static final OrderStatus[] STATUSES    = OrderStatus.values();
+    private static final int           STATUS_BITS = 8;
+    private static final long          STATUS_MASK = (1L << STATUS_BITS) - 1;
+
     private final UUID        id;
-    private final List<Item>  items;
-    private       OrderStatus status;
+    private final OrderItems  items = new OrderItems();
     private final Address       address;
-    private final Lock itemLock = new ReentrantLock();
-    private final Lock statusLock   = new ReentrantLock();
+    private final ReentrantLock itemLock = new ReentrantLock();
+    /**
+     * Whether items changed since the item lock was last fully released. Guarded by the item lock.
+     */
+    private boolean itemsChangedWhileLocked;
+    /**
+     * The status ordinal in the low {@value #STATUS_BITS} bits, the number of pancakes above them.
+     */
+    private final AtomicLong state;
+    private volatile OrderListener listener;
 
+    /**
+     * Creates a new order with a {@linkplain OrderIdGenerator#timeOrdered() time-ordered} identity.
+     */
     public Order(final Address address) {
-        this.id = UUID.randomUUID();
+        this(OrderIdGenerator
+            .timeOrdered()
+            .nextId(), address, OrderStatus.NEW, 0);
+    }
+
+    /**
+     * Creates a new order with an identity chosen by the caller.
+     */
+    public Order(UUID id, Address address) {
+        this(id, address, OrderStatus.NEW, 0);
+    }
+
+    private Order(UUID id, Address address, OrderStatus status, int itemCount) {
+        this.id = id;
         this.address = address;
-        this.status = OrderStatus.NEW;
-        this.items = new ArrayList<>();
+        this.state = new AtomicLong(stateOf(status, itemCount));
+    }
+
+    /**
+     * Recreates an order with a known identity and state, e.g. when recovering it from durable storage.
+     *
+     * @param quantities the number of pancakes of each recipe, in the order recipes were first added
+     */
+    public static Order restore(UUID id, Address address, OrderStatus status, Map<Item, Integer> quantities) {
+        int itemCount = 0;
+        for (int quantity : quantities.values()) {
+            itemCount += quantity;
+        }
+        Order order = new Order(id, address, status, itemCount);
+        quantities.forEach(order.items::add);
+        return order;
     }
 
     public UUID getId() {
@@ -42,126 +95,298 @@ public class Order {
     }
 
     public OrderStatus getStatus() {
-        statusLock.lock();
+        return statusOf(state.get());
+    }
+
+    public void addItem(Item pancake) {
+        addItems(pancake, 1);
+    }
+
+    /**
+     * Adds {@code count} pancakes of the same recipe at once.
+     */
+    public void addItems(Item pancake, int count) {
+        if (count <= 0) {
+            throw new IllegalArgumentException("Pancake count must be positive.");
+        }
+        OrderItemsChangedEvent event = new OrderItemsChangedEvent();
+        event.begin();
+        lockItems();
         try {
-            return status;
+            long current;
+            int failedAttempts = -1;
+            do {
+                failedAttempts++;
+                current = state.get();
+                if (statusOf(current) != OrderStatus.NEW) {
+                    throw new IllegalStateException("Cannot add pancakes to an order that is not in NEW status.");
+                }
+            } while (!state.compareAndSet(current, stateOf(OrderStatus.NEW, Math.addExact(itemCountOf(current), count))));
+            contended("addItems", failedAttempts);
+            items.add(pancake, count);
+            notifyItemsChanged(pancake);
+            commit(event, pancake, count);
         }
         finally {
-            statusLock.unlock();
+            unlockItems();
         }
     }
 
-    public void addItem(Item pancake) {
-        itemLock.lock();
+    /**
+     * @return one entry per pancake, grouped by recipe in the order recipes were first added
+     */
+    public List<Item> getItems() {
+        lockItems();
         try {
-            if (status != OrderStatus.NEW) {
-                throw new IllegalStateException("Cannot add pancakes to an order that is not in NEW status.");
-            }
-            items.add(pancake);
+            return items.toList();
         }
         finally {
             itemLock.unlock();
         }
     }
 
-    public List<Item> getItems() {
-        itemLock.lock();
+    /**
+     * @return the number of pancakes of each recipe, in the order recipes were first added
+     */
+    public Map<Item, Integer> getItemQuantities() {
+        lockItems();
         try {
-            return Collections.unmodifiableList(items);
+            return items.toMap();
         }
         finally {
             itemLock.unlock();
         }
     }
 
-    public void removeItem(String description, int count) {
-        itemLock.lock();
+    /**
+     * @return how many pancakes equal to {@code item} this order contains
+     */
+    public int countOf(Item item) {
+        lockItems();
         try {
-            if (status != OrderStatus.NEW) {
-                throw new IllegalStateException("Cannot remove pancakes from a completed order.");
-            }
+            return items.countOf(item);
+        }
+        finally {
+            itemLock.unlock();
+        }
+    }
+
+    /**
+     * Removes up to {@code count} pancakes with the given description.
+     *
+     * @return the number of pancakes removed
+     */
+    public int removeItem(String description, int count) {
+        return removeItem(RecipeRegistry.recipeDescribedAs(description), count);
+    }
 
-            int removed = 0;
-            Iterator<Item> iterator = items.iterator();
-            while (iterator.hasNext() && removed < count) {
-                Item item = iterator.next();
-                if (item
-                    .getDescription()
-                    .equals(description)) {
-                    iterator.remove();
-                    removed++;
+    /**
+     * Removes up to {@code count} pancakes made from the same recipe as {@code recipe}; a {@code null} recipe
+     * removes nothing, but still fails when the order no longer allows removals.
+     *
+     * @return the number of pancakes removed
+     */
+    public int removeItem(Item recipe, int count) {
+        if (recipe == null) {
+            checkItemsRemovable(state.get());
+            return 0;
+        }
+        OrderItemsChangedEvent event = new OrderItemsChangedEvent();
+        event.begin();
+        lockItems();
+        try {
+            int removed = Math.max(0, Math.min(count, items.countOf(recipe)));
+            long current;
+            int failedAttempts = -1;
+            do {
+                failedAttempts++;
+                current = state.get();
+                checkItemsRemovable(current);
+                if (removed == 0) {
+                    return 0;
                 }
-            }
+            } while (!state.compareAndSet(current, stateOf(OrderStatus.NEW, itemCountOf(current) - removed)));
+            contended("removeItem", failedAttempts);
+            items.remove(recipe, removed);
+            notifyItemsChanged(recipe);
+            commit(event, recipe, -removed);
+            return removed;
         }
         finally {
-            itemLock.unlock();
+            unlockItems();
+        }
+    }
+
+    /**
+     * @return the number of pancakes in this order
+     */
+    public int getItemCount() {
+        return itemCountOf(state.get());
+    }
+
+    private static void checkItemsRemovable(long state) {
+        if (statusOf(state) != OrderStatus.NEW) {
+            throw new IllegalStateException("Cannot remove pancakes from a completed order.");
         }
     }
 
     public void complete() {
-        statusLock.lock();
-        try {
-            if (status != OrderStatus.NEW) {
-                throw new IllegalStateException("Order must be in NEW state to complete.");
+        transition(OrderStatus.NEW, OrderStatus.COMPLETED, "Order must be in NEW state to complete.");
+    }
+
+    public void prepare() {
+        transition(OrderStatus.COMPLETED, OrderStatus.PREPARED, "Order must be in COMPLETED state to prepare.");
+    }
+
+    public void deliver() {
+        transition(OrderStatus.PREPARED, OrderStatus.DELIVERED, "Order must be in PREPARED state to deliver.");
+    }
+
+    public void cancel() {
+        transition(OrderStatus.NEW, OrderStatus.CANCELLED, "Cannot cancel the order.");
+    }
+
+    /**
+     * Registers the listener notified of every status transition, then calls it with a {@code null} previous status
+     * and the current status. A transition racing with this call may be reported before that initial call, so
+     * listeners must not assume that calls for one order arrive in transition order.
+     */
+    public void attach(OrderListener listener) {
+        this.listener = listener;
+        listener.onStatusChanged(this, null, getStatus());
+    }
+
+    /**
+     * Removes the listener. A transition that is already notifying it is not waited for.
+     */
+    public void detach() {
+        this.listener = null;
+    }
+
+    private void transition(OrderStatus expected, OrderStatus next, String illegalTransitionMessage) {
+        OrderTransitionEvent event = new OrderTransitionEvent();
+        event.begin();
+        long current;
+        int failedAttempts = -1;
+        do {
+            failedAttempts++;
+            current = state.get();
+            if (statusOf(current) != expected) {
+                throw new IllegalStateException(illegalTransitionMessage);
             }
-            if (items.isEmpty()) {
+            if (next == OrderStatus.COMPLETED && itemCountOf(current) == 0) {
                 throw new IllegalStateException("Cannot complete an order with no pancakes.");
             }
+        } while (!state.compareAndSet(current, stateOf(next, itemCountOf(current))));
+        contended(next.name(), failedAttempts);
 
-            status = OrderStatus.COMPLETED;
+        OrderListener notified = listener;
+        if (notified != null) {
+            notified.onStatusChanged(this, expected, next);
         }
-        finally {
-            statusLock.unlock();
+        if (event.shouldCommit()) {
+            event.orderId = id.toString();
+            event.from = expected.name();
+            event.to = next.name();
+            event.itemCount = itemCountOf(current);
+            event.commit();
         }
     }
 
-    public void prepare() {
-        statusLock.lock();
-        try {
-            if (status != OrderStatus.COMPLETED) {
-                throw new IllegalStateException("Order must be in COMPLETED state to prepare.");
-            }
-            status = OrderStatus.PREPARED;
+    /**
+     * Takes the item lock, timing the wait in an {@link OrderLockWaitEvent} when another thread holds it.
+     */
+    private void lockItems() {
+        if (itemLock.tryLock()) {
+            return;
         }
-        finally {
-            statusLock.unlock();
+        OrderLockWaitEvent event = new OrderLockWaitEvent();
+        event.begin();
+        itemLock.lock();
+        if (event.shouldCommit()) {
+            event.orderId = id.toString();
+            event.commit();
         }
     }
 
-    public void deliver() {
-        statusLock.lock();
-        try {
-            if (status != OrderStatus.PREPARED) {
-                throw new IllegalStateException("Order must be in PREPARED state to deliver.");
-            }
+    private void contended(String operation, int failedAttempts) {
+        if (failedAttempts == 0) {
+            return;
+        }
+        OrderStateContentionEvent event = new OrderStateContentionEvent();
+        if (event.shouldCommit()) {
+            event.orderId = id.toString();
+            event.operation = operation;
+            event.failedAttempts = failedAttempts;
+            event.commit();
+        }
+    }
 
-            status = OrderStatus.DELIVERED;
+    private void commit(OrderItemsChangedEvent event, Item recipe, int change) {
+        if (event.shouldCommit()) {
+            event.orderId = id.toString();
+            event.recipe = recipe.getDescription();
+            event.change = change;
+            event.itemCount = getItemCount();
+            event.commit();
         }
-        finally {
-            statusLock.unlock();
+    }
+
+    private static long stateOf(OrderStatus status, int itemCount) {
+        return (long) itemCount << STATUS_BITS | status.ordinal();
+    }
+
+    private static OrderStatus statusOf(long state) {
+        return STATUSES[(int) (state & STATUS_MASK)];
+    }
+
+    private static int itemCountOf(long state) {
+        return (int) (state >>> STATUS_BITS);
+    }
+
+    private void notifyItemsChanged(Item item) {
+        itemsChangedWhileLocked = true;
+        OrderListener current = listener;
+        if (current != null) {
+            current.onItemsChanged(this, item);
         }
     }
 
-    public void cancel() {
-        statusLock.lock();
+    /**
+     * Releases the item lock and, once it is fully released after items changed, tells the listener so.
+     */
+    private void unlockItems() {
+        boolean released = itemLock.getHoldCount() == 1;
+        boolean changed = released && itemsChangedWhileLocked;
+        if (released) {
+            itemsChangedWhileLocked = false;
+        }
+        itemLock.unlock();
+        OrderListener current = listener;
+        if (changed && current != null) {
+            current.onItemsReleased(this);
+        }
+    }
+
+    /**
+     * Runs {@code changes} while holding the item lock, so that no other thread changes or reads the items of this
+     * order in between. The item methods of this order may be called from {@code changes}; status transitions stay
+     * lock-free and are not held off.
+     */
+    public void withItemsLocked(Runnable changes) {
+        lockItems();
         try {
-            if (status != OrderStatus.NEW) {
-                throw new IllegalStateException("Cannot cancel the order.");
-            }
-            status = OrderStatus.CANCELLED;
+            changes.run();
         }
         finally {
-            statusLock.unlock();
+            unlockItems();
         }
     }
 
     public List<String> getPancakeDescriptions() {
-        itemLock.lock();
+        lockItems();
         try {
-            return items
-                .stream()
-                .map(Item::getDescription)
-                .toList();
+            return items.descriptions();
         }
         finally {
             itemLock.unlock();
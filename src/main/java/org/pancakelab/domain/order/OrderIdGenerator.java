@@ -0,0 +1,38 @@
+package org.pancakelab.domain.order;
+
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Source of identities for new orders.
+ */
+@FunctionalInterface
+public interface OrderIdGenerator {
+    UUID nextId();
+
+    /**
+     * @return random version 4 UUIDs from the shared {@code SecureRandom} behind {@link UUID#randomUUID()}
+     */
+    static OrderIdGenerator random() {
+        return UUID::randomUUID;
+    }
+
+    /**
+     * @return version 7 UUIDs: 48 bits of Unix milliseconds followed by 74 random bits from the caller's
+     * {@link ThreadLocalRandom}. IDs sort by creation time to the millisecond, which keeps indexes and logs that are
+     * ordered by ID append-mostly, and threads never contend while generating them.
+     */
+    static OrderIdGenerator timeOrdered() {
+        return TimeOrderedIdGenerator.INSTANCE;
+    }
+
+    /**
+     * @return version 8 UUIDs made of a start time, a lane taken by each thread on first use and a counter within
+     * that lane. No two threads share a lane, so IDs never collide within one JVM; the start time and a random salt
+     * separate generators of different runs. Once every lane of a start time is taken, lanes continue under a later
+     * one.
+     */
+    static OrderIdGenerator perThreadCounter() {
+        return new PerThreadCounterIdGenerator();
+    }
+}
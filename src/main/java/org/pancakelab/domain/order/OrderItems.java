@@ -0,0 +1,95 @@
+package org.pancakelab.domain.order;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import org.pancakelab.domain.pancake.Item;
+
+/**
+ * Pancakes of an order, kept as a quantity per recipe in the order recipes were first added. Adding or removing any
+ * number of pancakes of one recipe costs the same as a single one. Not thread-safe; {@link Order} guards it with its
+ * item lock.
+ */
+final class OrderItems {
+    private final Map<Item, Quantity> quantities = new LinkedHashMap<>();
+    private       int                 size;
+
+    private static final class Quantity {
+        private int value;
+    }
+
+    void add(Item item, int count) {
+        quantities.computeIfAbsent(item, key -> new Quantity()).value += count;
+        size += count;
+    }
+
+    /**
+     * @return how many pancakes were actually removed, at most {@code count}
+     */
+    int remove(Item item, int count) {
+        Quantity quantity = quantities.get(item);
+        if (quantity == null || count <= 0) {
+            return 0;
+        }
+        int removed = Math.min(count, quantity.value);
+        quantity.value -= removed;
+        if (quantity.value == 0) {
+            quantities.remove(item);
+        }
+        size -= removed;
+        return removed;
+    }
+
+    int countOf(Item item) {
+        Quantity quantity = quantities.get(item);
+        return quantity == null ? 0 : quantity.value;
+    }
+
+    int size() {
+        return size;
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * @return one entry per pancake, grouped by recipe
+     */
+    List<Item> toList() {
+        List<Item> items = new ArrayList<>(size);
+        quantities.forEach((item, quantity) -> {
+            for (int i = 0; i < quantity.value; i++) {
+                items.add(item);
+            }
+        });
+        return List.copyOf(items);
+    }
+
+    /**
+     * @return one description per pancake, grouped by recipe
+     */
+    List<String> descriptions() {
+        String[] descriptions = new String[size];
+        int next = 0;
+        for (Map.Entry<Item, Quantity> entry : quantities.entrySet()) {
+            String description = entry
+                .getKey()
+                .getDescription();
+            for (int i = 0; i < entry.getValue().value; i++) {
+                descriptions[next++] = description;
+            }
+        }
+        return List.of(descriptions);
+    }
+
+    /**
+     * @return a copy of the quantity of each recipe, in the order recipes were first added
+     */
+    Map<Item, Integer> toMap() {
+        Map<Item, Integer> copy = new LinkedHashMap<>();
+        quantities.forEach((item, quantity) -> copy.put(item, quantity.value));
+        return copy;
+    }
+}
@@ -0,0 +1,32 @@
+package org.pancakelab.domain.order;
+
+import org.pancakelab.domain.pancake.Item;
+
+/**
+ * Callback invoked by an {@link Order} when it changes state. Status changes are reported after the transition took
+ * effect, possibly concurrently with a later transition of the same order; item changes are reported before another
+ * thread can change the pancakes of the same order.
+ */
+public interface OrderListener {
+
+    /**
+     * @param previous the status before the transition, or {@code null} when the listener is being attached
+     * @param current  the status after the transition
+     */
+    void onStatusChanged(Order order, OrderStatus previous, OrderStatus current);
+
+    /**
+     * Called after pancakes equal to {@code item} were added or removed; {@link Order#countOf(Item)} gives the new
+     * quantity.
+     */
+    default void onItemsChanged(Order order, Item item) {
+    }
+
+    /**
+     * Called on the thread that changed the pancakes of {@code order}, once it released the item lock and before the
+     * changing call returns. Work that must finish before the call returns but should not hold off other threads,
+     * such as waiting for a journal, belongs here.
+     */
+    default void onItemsReleased(Order order) {
+    }
+}
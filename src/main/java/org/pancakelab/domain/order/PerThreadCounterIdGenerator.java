@@ -0,0 +1,81 @@
+package org.pancakelab.domain.order;
+
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Version 8 UUIDs built from per-thread lanes, see {@link OrderIdGenerator#perThreadCounter()}. The most significant
+ * half holds a start time and a random salt; the least significant half holds the variant, a 30-bit lane and a
+ * 32-bit counter. A thread that used up its lane takes a new one. Lanes are never handed back, so when short-lived
+ * threads have taken every lane of the current start time, lanes continue under a later start time and a new salt.
+ */
+final class PerThreadCounterIdGenerator implements OrderIdGenerator {
+    private static final int  COUNTER_BITS = 32;
+    private static final long LANE_COUNT   = 1L << 30;
+    private static final long VERSION      = 0x8000L;
+    private static final long VARIANT      = 0x8000_0000_0000_0000L;
+    /**
+     * Shared by all generators, so two generators started in the same millisecond still hand out distinct lanes.
+     */
+    private static final AtomicReference<Prefix> PREFIX = new AtomicReference<>(new Prefix(System.currentTimeMillis()));
+
+    private final ThreadLocal<Lane> lanes = new ThreadLocal<>();
+
+    private static final class Prefix {
+        final long       millis;
+        final long       mostSignificant;
+        final AtomicLong lanes = new AtomicLong();
+
+        Prefix(long millis) {
+            int salt = ThreadLocalRandom
+                .current()
+                .nextInt(1 << 12);
+            this.millis = millis;
+            this.mostSignificant = millis << 16 | VERSION | salt;
+        }
+    }
+
+    private static final class Lane {
+        final long mostSignificant;
+        long       next;
+        final long end;
+
+        Lane(long mostSignificant, long lane) {
+            this.mostSignificant = mostSignificant;
+            this.next = lane << COUNTER_BITS;
+            this.end = next + (1L << COUNTER_BITS);
+        }
+    }
+
+    @Override public UUID nextId() {
+        Lane lane = lanes.get();
+        if (lane == null || lane.next == lane.end) {
+            lane = takeLane();
+            lanes.set(lane);
+        }
+        return new UUID(lane.mostSignificant, VARIANT | lane.next++);
+    }
+
+    private static Lane takeLane() {
+        while (true) {
+            Prefix prefix = PREFIX.get();
+            long lane = prefix.lanes.getAndIncrement();
+            if (lane < LANE_COUNT) {
+                return new Lane(prefix.mostSignificant, lane);
+            }
+            // a strictly later start time keeps every prefix of this JVM distinct, even if the clock stepped back
+            PREFIX.compareAndSet(prefix, new Prefix(Math.max(System.currentTimeMillis(), prefix.millis + 1)));
+        }
+    }
+
+    /**
+     * Marks every lane of the current start time as taken, so that the next thread to take a lane moves on to a new
+     * start time. For tests.
+     */
+    static void exhaustLanes() {
+        Prefix prefix = PREFIX.get();
+        prefix.lanes.set(LANE_COUNT);
+    }
+}
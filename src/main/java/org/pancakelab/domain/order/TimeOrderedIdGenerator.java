@@ -0,0 +1,24 @@
+package org.pancakelab.domain.order;
+
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Version 7 UUIDs, see {@link OrderIdGenerator#timeOrdered()}.
+ */
+final class TimeOrderedIdGenerator implements OrderIdGenerator {
+    static final TimeOrderedIdGenerator INSTANCE = new TimeOrderedIdGenerator();
+
+    private static final long VERSION = 0x7000L;
+    private static final long VARIANT = 0x8000_0000_0000_0000L;
+
+    private TimeOrderedIdGenerator() {
+    }
+
+    @Override public UUID nextId() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        long mostSignificant = System.currentTimeMillis() << 16 | VERSION | random.nextInt(1 << 12);
+        long leastSignificant = random.nextLong() >>> 2 | VARIANT;
+        return new UUID(mostSignificant, leastSignificant);
+    }
+}
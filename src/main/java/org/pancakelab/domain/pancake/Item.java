@@ -10,4 +10,9 @@ public interface Item {
     List<Ingredient> getIngredients();
 
     String getDescription();
+
+    /**
+     * @return the identity of the recipe this item is made from, see {@link RecipeRegistry}
+     */
+    long getRecipeId();
 }
@@ -1,35 +1,73 @@
 package org.pancakelab.domain.pancake;
 
-import java.util.Collections;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.StringJoiner;
 import org.pancakelab.domain.shared.Ingredient;
 
 /**
+ * Immutable pancake recipe. Two pancakes are equal when they are made of the same set of ingredients, which is
+ * decided by comparing their ingredient bitmasks; shared instances are obtained from {@link RecipeRegistry}.
+ *
  * @author Shantanu Singh.
  */
-public record Pancake(List<Ingredient> ingredients) implements Item {
-    public Pancake {
+public final class Pancake implements Item {
+    private final long             recipeId;
+    private final List<Ingredient> ingredients;
+    private final String           description;
+
+    public Pancake(List<Ingredient> ingredients) {
+        this(recipeIdOf(ingredients));
+    }
+
+    Pancake(long recipeId) {
+        this.recipeId = recipeId;
+        this.ingredients = RecipeRegistry.ingredientsOf(recipeId);
+        this.description = describe(ingredients);
+        RecipeRegistry.register(this);
+    }
+
+    private static long recipeIdOf(List<Ingredient> ingredients) {
         if (ingredients == null || ingredients.isEmpty()) {
             throw new IllegalArgumentException("Pancake must have at least one ingredient.");
         }
-        ingredients = List.copyOf(ingredients);
+        return RecipeRegistry.recipeIdOf(ingredients);
     }
 
-    @Override
-    public List<Ingredient> ingredients() {
-        return Collections.unmodifiableList(ingredients);
+    /**
+     * @return the bitmask of the ingredient ordinals of this recipe
+     */
+    @Override public long getRecipeId() {
+        return recipeId;
     }
 
     @Override public List<Ingredient> getIngredients() {
-        return ingredients();
+        return ingredients;
+    }
+
+    /**
+     * @return the description, built once when the recipe is created
+     */
+    @Override public String getDescription() {
+        return description;
+    }
+
+    private static String describe(List<Ingredient> ingredients) {
+        StringJoiner description = new StringJoiner(", ", "Delicious pancake with ", "!");
+        for (Ingredient ingredient : ingredients) {
+            description.add(ingredient.getDisplayName());
+        }
+        return description.toString();
+    }
+
+    @Override public boolean equals(Object o) {
+        return this == o || o instanceof Pancake pancake && pancake.recipeId == recipeId;
+    }
+
+    @Override public int hashCode() {
+        return Long.hashCode(recipeId);
     }
 
-    public String getDescription() {
-        return "Delicious pancake with " +
-            ingredients
-                .stream()
-                .map(Ingredient::getDisplayName)
-                .collect(Collectors.joining(", ")) + "!";
+    @Override public String toString() {
+        return "Pancake[ingredients=" + ingredients + "]";
     }
 }
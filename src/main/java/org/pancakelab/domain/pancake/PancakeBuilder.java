@@ -1,31 +1,30 @@
 package org.pancakelab.domain.pancake;
 
-import java.util.LinkedHashSet;
-import java.util.Set;
 import org.pancakelab.domain.shared.Ingredient;
 
 /**
  * @author Shantanu Singh
  */
 public class PancakeBuilder {
-    private final Set<Ingredient> ingredients = new LinkedHashSet<>();
+    private long recipeId;
 
     public PancakeBuilder addIngredient(final Ingredient ingredient) {
         if (ingredient == null) {
             throw new IllegalArgumentException("Ingredient cannot be null.");
-        } else if (!ingredients.add(ingredient)) {
+        }
+        long bit = RecipeRegistry.bitOf(ingredient.name());
+        if ((recipeId & bit) != 0) {
             throw new IllegalArgumentException("Duplicate ingredient: " + ingredient.getDisplayName());
         }
+        recipeId |= bit;
         return this;
     }
 
     public Item build() {
-        if (ingredients.isEmpty()) {
+        if (recipeId == 0) {
             throw new IllegalStateException("Ingredients cannot be empty.");
         }
 
-        return new Pancake(ingredients
-            .stream()
-            .toList());
+        return RecipeRegistry.recipe(recipeId);
     }
 }
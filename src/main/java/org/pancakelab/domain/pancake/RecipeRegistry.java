@@ -0,0 +1,125 @@
+package org.pancakelab.domain.pancake;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import org.pancakelab.domain.shared.Ingredient;
+import org.pancakelab.domain.shared.IngredientName;
+
+/**
+ * Flyweight factory for {@link Pancake}s. A recipe is identified by the bitmask of its ingredient ordinals, and
+ * every recipe is created once and then shared by all orders.
+ * <p>
+ * While the menu is small all recipes fit in a directly indexed table; beyond {@value #DENSE_LIMIT} ingredients
+ * they are kept in a concurrent map instead. Up to 64 ingredients are supported.
+ */
+public final class RecipeRegistry {
+    static final int DENSE_LIMIT = 12;
+
+    private static final IngredientName[] NAMES       = IngredientName.values();
+    private static final Ingredient[]     INGREDIENTS = new Ingredient[NAMES.length];
+    private static final long             ALL_INGREDIENTS;
+
+    private static final AtomicReferenceArray<Pancake> denseRecipes;
+    private static final ConcurrentMap<Long, Pancake>  sparseRecipes;
+    private static final ConcurrentMap<String, Pancake> byDescription = new ConcurrentHashMap<>();
+
+    static {
+        if (NAMES.length > Long.SIZE) {
+            throw new IllegalStateException("Recipes support at most " + Long.SIZE + " ingredients.");
+        }
+        for (IngredientName name : NAMES) {
+            INGREDIENTS[name.ordinal()] = new Ingredient(name);
+        }
+        ALL_INGREDIENTS = NAMES.length == Long.SIZE ? -1L : (1L << NAMES.length) - 1;
+        if (NAMES.length <= DENSE_LIMIT) {
+            denseRecipes = new AtomicReferenceArray<>(1 << NAMES.length);
+            sparseRecipes = null;
+        } else {
+            denseRecipes = null;
+            sparseRecipes = new ConcurrentHashMap<>();
+        }
+    }
+
+    private RecipeRegistry() {
+    }
+
+    /**
+     * @return the shared pancake made of exactly the given ingredients, in any order
+     */
+    public static Pancake recipeOf(Iterable<Ingredient> ingredients) {
+        return recipe(recipeIdOf(ingredients));
+    }
+
+    /**
+     * @return the shared pancake identified by the given ingredient bitmask
+     */
+    public static Pancake recipe(long recipeId) {
+        validate(recipeId);
+        if (denseRecipes != null) {
+            int slot = (int) recipeId;
+            Pancake pancake = denseRecipes.get(slot);
+            if (pancake == null) {
+                denseRecipes.compareAndSet(slot, null, new Pancake(recipeId));
+                pancake = denseRecipes.get(slot);
+            }
+            return pancake;
+        }
+        return sparseRecipes.computeIfAbsent(recipeId, Pancake::new);
+    }
+
+    /**
+     * @return the recipe with the given description, or {@code null} when no pancake was ever made that way
+     */
+    public static Pancake recipeDescribedAs(String description) {
+        return description == null ? null : byDescription.get(description);
+    }
+
+    /**
+     * @throws IllegalArgumentException when an ingredient is {@code null} or listed twice
+     */
+    public static long recipeIdOf(Iterable<Ingredient> ingredients) {
+        long recipeId = 0;
+        for (Ingredient ingredient : ingredients) {
+            if (ingredient == null) {
+                throw new IllegalArgumentException("Ingredient cannot be null.");
+            }
+            long bit = bitOf(ingredient.name());
+            if ((recipeId & bit) != 0) {
+                throw new IllegalArgumentException("Duplicate ingredient: " + ingredient.getDisplayName());
+            }
+            recipeId |= bit;
+        }
+        return recipeId;
+    }
+
+    public static long bitOf(IngredientName name) {
+        return 1L << name.ordinal();
+    }
+
+    /**
+     * @return the ingredients of a recipe, in ordinal order
+     */
+    static List<Ingredient> ingredientsOf(long recipeId) {
+        List<Ingredient> ingredients = new ArrayList<>(Long.bitCount(recipeId));
+        for (long remaining = recipeId; remaining != 0; remaining &= remaining - 1) {
+            ingredients.add(INGREDIENTS[Long.numberOfTrailingZeros(remaining)]);
+        }
+        return List.copyOf(ingredients);
+    }
+
+    static void register(Pancake pancake) {
+        byDescription.putIfAbsent(pancake.getDescription(), pancake);
+    }
+
+    private static void validate(long recipeId) {
+        if (recipeId == 0) {
+            throw new IllegalArgumentException("Pancake must have at least one ingredient.");
+        }
+        if ((recipeId & ~ALL_INGREDIENTS) != 0) {
+            throw new IllegalArgumentException("Unknown ingredients in recipe: " + Long.toBinaryString(recipeId));
+        }
+    }
+}
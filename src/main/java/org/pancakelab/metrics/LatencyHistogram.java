@@ -0,0 +1,92 @@
+package org.pancakelab.metrics;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lock-free histogram of durations in nanoseconds. Values are counted in log-linear buckets, 16 per power of two,
+ * so a reported percentile is at most about 6% above the true value while memory stays fixed.
+ */
+public final class LatencyHistogram {
+    private static final int SUB_BUCKET_BITS  = 4;
+    private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+    private static final int BUCKET_COUNT     = (Long.SIZE - SUB_BUCKET_BITS + 1) * SUB_BUCKET_COUNT;
+
+    private final AtomicLongArray buckets = new AtomicLongArray(BUCKET_COUNT);
+    private final LongAdder       count   = new LongAdder();
+    private final LongAdder       sum     = new LongAdder();
+    private final AtomicLong      max     = new AtomicLong();
+
+    public void record(long nanos) {
+        long value = Math.max(0, nanos);
+        buckets.incrementAndGet(bucketOf(value));
+        count.increment();
+        sum.add(value);
+        long currentMax;
+        // only values that raise the maximum pay for a compare-and-set
+        while (value > (currentMax = max.get()) && !max.compareAndSet(currentMax, value)) {
+            Thread.onSpinWait();
+        }
+    }
+
+    public void record(Duration duration) {
+        record(duration.toNanos());
+    }
+
+    public long count() {
+        return count.sum();
+    }
+
+    public Duration max() {
+        return Duration.ofNanos(max.get());
+    }
+
+    public Duration mean() {
+        long recorded = count.sum();
+        return recorded == 0 ? Duration.ZERO : Duration.ofNanos(sum.sum() / recorded);
+    }
+
+    /**
+     * @param percentile between 0 and 100
+     * @return the smallest bucket bound that at least {@code percentile} percent of the recorded values fall under
+     */
+    public Duration percentile(double percentile) {
+        if (percentile < 0 || percentile > 100) {
+            throw new IllegalArgumentException("Percentile must be between 0 and 100.");
+        }
+        long recorded = count.sum();
+        if (recorded == 0) {
+            return Duration.ZERO;
+        }
+        long rank = Math.max(1, (long) Math.ceil(percentile / 100 * recorded));
+        long seen = 0;
+        for (int bucket = 0; bucket < BUCKET_COUNT; bucket++) {
+            seen += buckets.get(bucket);
+            if (seen >= rank) {
+                return Duration.ofNanos(Math.min(highestValueOf(bucket), max.get()));
+            }
+        }
+        return max();
+    }
+
+    private static int bucketOf(long value) {
+        if (value < SUB_BUCKET_COUNT) {
+            return (int) value;
+        }
+        int exponent = Long.SIZE - 1 - Long.numberOfLeadingZeros(value);
+        int subBucket = (int) (value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKET_COUNT - 1);
+        return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKET_COUNT + subBucket;
+    }
+
+    private static long highestValueOf(int bucket) {
+        if (bucket < SUB_BUCKET_COUNT) {
+            return bucket;
+        }
+        int exponent = bucket / SUB_BUCKET_COUNT + SUB_BUCKET_BITS - 1;
+        int shift = exponent - SUB_BUCKET_BITS;
+        long lowest = (long) (SUB_BUCKET_COUNT + bucket % SUB_BUCKET_COUNT) << shift;
+        return lowest + (1L << shift) - 1;
+    }
+}
@@ -0,0 +1,31 @@
+package org.pancakelab.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Pancakes added to or removed from an order, timed from the call until its listener was notified.
+ */
+@Name("org.pancakelab.OrderItemsChanged")
+@Label("Order Items Changed")
+@Category({ "PancakeLab", "Orders" })
+@StackTrace(false)
+public final class OrderItemsChangedEvent extends Event {
+    @Label("Order Id")
+    public String orderId;
+
+    @Label("Recipe")
+    public String recipe;
+
+    @Label("Change")
+    @Description("Pancakes added, or removed when negative")
+    public int change;
+
+    @Label("Pancakes")
+    @Description("Number of pancakes in the order afterwards")
+    public int itemCount;
+}
@@ -0,0 +1,17 @@
+package org.pancakelab.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Time a thread waited for the item lock of an order held by another thread. Uncontended acquisitions emit nothing.
+ */
+@Name("org.pancakelab.OrderLockWait")
+@Label("Order Lock Wait")
+@Category({ "PancakeLab", "Contention" })
+public final class OrderLockWaitEvent extends Event {
+    @Label("Order Id")
+    public String orderId;
+}
@@ -0,0 +1,26 @@
+package org.pancakelab.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * An event indexed by an order log. The asynchronous log indexes on its consumer thread, the memory-mapped one
+ * after appending the event to its file.
+ */
+@Name("org.pancakelab.OrderLogAppend")
+@Label("Order Log Append")
+@Category({ "PancakeLab", "Order Log" })
+@StackTrace(false)
+public final class OrderLogAppendEvent extends Event {
+    @Label("Log")
+    public String log;
+
+    @Label("Event Type")
+    public String eventType;
+
+    @Label("Retained Events")
+    public long retainedEvents;
+}
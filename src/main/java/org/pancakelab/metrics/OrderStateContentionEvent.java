@@ -0,0 +1,26 @@
+package org.pancakelab.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * An update of the state word of an order that had to retry because other threads changed it first. Updates that
+ * succeed on the first attempt emit nothing.
+ */
+@Name("org.pancakelab.OrderStateContention")
+@Label("Order State Contention")
+@Category({ "PancakeLab", "Contention" })
+public final class OrderStateContentionEvent extends Event {
+    @Label("Order Id")
+    public String orderId;
+
+    @Label("Operation")
+    public String operation;
+
+    @Label("Failed Attempts")
+    @Description("Compare-and-set attempts lost to other threads")
+    public int failedAttempts;
+}
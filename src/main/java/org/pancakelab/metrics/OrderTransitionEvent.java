@@ -0,0 +1,30 @@
+package org.pancakelab.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * A status transition of an order, timed until its listener was notified.
+ */
+@Name("org.pancakelab.OrderTransition")
+@Label("Order Transition")
+@Category({ "PancakeLab", "Orders" })
+@StackTrace(false)
+public final class OrderTransitionEvent extends Event {
+    @Label("Order Id")
+    public String orderId;
+
+    @Label("From")
+    public String from;
+
+    @Label("To")
+    public String to;
+
+    @Label("Pancakes")
+    @Description("Number of pancakes in the order")
+    public int itemCount;
+}
@@ -0,0 +1,23 @@
+package org.pancakelab.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * A query of an order repository that walks many orders.
+ */
+@Name("org.pancakelab.RepositoryScan")
+@Label("Repository Scan")
+@Category({ "PancakeLab", "Repository" })
+public final class RepositoryScanEvent extends Event {
+    @Label("Query")
+    public String query;
+
+    @Label("Orders Scanned")
+    public int scanned;
+
+    @Label("Orders Returned")
+    public int returned;
+}
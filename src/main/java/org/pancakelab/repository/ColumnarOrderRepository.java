@@ -0,0 +1,591 @@
+package org.pancakelab.repository;
+
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.locks.ReentrantLock;
+import org.pancakelab.domain.order.Order;
+import org.pancakelab.domain.order.OrderListener;
+import org.pancakelab.domain.order.OrderStatus;
+import org.pancakelab.domain.pancake.Item;
+import org.pancakelab.domain.pancake.RecipeRegistry;
+import org.pancakelab.domain.shared.Address;
+import org.pancakelab.metrics.RepositoryScanEvent;
+
+/**
+ * {@link OrderRepository} that keeps orders in primitive columns instead of as objects: the id halves as longs, the
+ * building and room as ints, the status as a byte and the quantities of the first {@value #INLINE_RECIPES} recipes of
+ * each order as recipe id and count pairs. Orders with more recipes keep the rest in a per-order side map.
+ * <p>
+ * Orders are spread over segments by id hash. Each segment is an open-addressing table with linear probing whose slot
+ * numbers index its columns, guarded by its own lock and grown on its own, so writers to different segments never
+ * meet. {@link Order} objects are only views: one is created when an order is looked up and not already in use, and
+ * kept through a weak reference so that concurrent callers share it for as long as anyone holds it. Every change made
+ * through a view is written back to the columns by the repository's {@link OrderListener}.
+ */
+public class ColumnarOrderRepository implements OrderRepository {
+    public static final int DEFAULT_SEGMENTS = 64;
+
+    static final int INLINE_RECIPES = 3;
+
+    private static final OrderStatus[] STATUSES         = OrderStatus.values();
+    private static final byte          FREE             = -1;
+    private static final byte          DELETED          = -2;
+    private static final int           MIN_CAPACITY     = 16;
+    private static final float         MAX_LOAD         = 0.75f;
+
+    private final Segment[]     segments;
+    private final int           segmentShift;
+    private final OrderListener listener = new OrderListener() {
+        @Override public void onStatusChanged(Order order, OrderStatus previous, OrderStatus current) {
+            segmentOf(order.getId()).writeStatus(order);
+        }
+
+        @Override public void onItemsChanged(Order order, Item item) {
+            segmentOf(order.getId()).writeQuantity(order, item);
+        }
+    };
+
+    public ColumnarOrderRepository() {
+        this(DEFAULT_SEGMENTS, 0);
+    }
+
+    /**
+     * @param segments       the number of independently locked segments, a positive power of two
+     * @param expectedOrders the number of orders to size the segments for up front
+     */
+    public ColumnarOrderRepository(int segments, int expectedOrders) {
+        if (segments <= 0 || Integer.bitCount(segments) != 1) {
+            throw new IllegalArgumentException("Segment count must be a positive power of two.");
+        }
+        if (expectedOrders < 0) {
+            throw new IllegalArgumentException("Expected order count cannot be negative.");
+        }
+        this.segments = new Segment[segments];
+        this.segmentShift = Long.SIZE - Integer.numberOfTrailingZeros(segments);
+        int capacity = capacityFor(expectedOrders / segments + 1);
+        for (int i = 0; i < segments; i++) {
+            this.segments[i] = new Segment(capacity);
+        }
+    }
+
+    @Override public Order findById(UUID orderId) {
+        return segmentOf(orderId).find(orderId);
+    }
+
+    /**
+     * Copies the order into the columns and attaches the listener under the order's item lock, so that no item change
+     * falls between the quantities copied and the listener that writes back later ones.
+     */
+    @Override public void save(Order order) {
+        order.withItemsLocked(() -> {
+            Order replaced = segmentOf(order.getId()).store(order, order.getItemQuantities());
+            if (replaced != null && replaced != order) {
+                replaced.detach();
+            }
+            order.attach(listener);
+        });
+    }
+
+    @Override public boolean saveIfAbsent(Order order) {
+        boolean[] stored = new boolean[1];
+        order.withItemsLocked(() -> {
+            stored[0] = segmentOf(order.getId()).storeIfAbsent(order, order.getItemQuantities());
+            if (stored[0]) {
+                order.attach(listener);
+            }
+        });
+        return stored[0];
+    }
+
+    @Override public void delete(UUID orderId) {
+        Order view = segmentOf(orderId).remove(orderId);
+        if (view != null) {
+            view.detach();
+        }
+    }
+
+    @Override public List<Order> findAll() {
+        return scan(null);
+    }
+
+    @Override public List<Order> findByStatus(OrderStatus status) {
+        return scan(status);
+    }
+
+    /**
+     * @return the number of stored orders
+     */
+    public int size() {
+        int size = 0;
+        for (Segment segment : segments) {
+            size += segment.size();
+        }
+        return size;
+    }
+
+    /**
+     * @return a new, detached order built from the columns alone, bypassing any view in use
+     */
+    Order restoredViewOf(UUID orderId) {
+        return segmentOf(orderId).restore(orderId);
+    }
+
+    /**
+     * @param status the status to match, or {@code null} for every order
+     */
+    private List<Order> scan(OrderStatus status) {
+        RepositoryScanEvent event = new RepositoryScanEvent();
+        event.begin();
+        List<Order> orders = new ArrayList<>();
+        int scanned = 0;
+        for (Segment segment : segments) {
+            scanned += segment.collect(status, orders);
+        }
+        if (event.shouldCommit()) {
+            event.query = status == null ? "findAll" : "findByStatus(" + status + ")";
+            event.scanned = scanned;
+            event.returned = orders.size();
+            event.commit();
+        }
+        return orders;
+    }
+
+    private Segment segmentOf(UUID orderId) {
+        return segments[segments.length == 1 ? 0 : (int) (hash(orderId) >>> segmentShift)];
+    }
+
+    private static long hash(UUID orderId) {
+        long h = orderId.getMostSignificantBits() ^ Long.rotateLeft(orderId.getLeastSignificantBits(), 32);
+        h = (h ^ (h >>> 33)) * 0xff51afd7ed558ccdL;
+        h = (h ^ (h >>> 33)) * 0xc4ceb9fe1a85ec53L;
+        return h ^ (h >>> 33);
+    }
+
+    private static int capacityFor(int orders) {
+        int capacity = MIN_CAPACITY;
+        while (capacity * MAX_LOAD < orders) {
+            capacity <<= 1;
+        }
+        return capacity;
+    }
+
+    private static final class View extends WeakReference<Order> {
+        /**
+         * The slot this view is kept in, moved along when the table is rebuilt.
+         */
+        int slot;
+
+        View(Order order, int slot, ReferenceQueue<Order> queue) {
+            super(order, queue);
+            this.slot = slot;
+        }
+    }
+
+    /**
+     * One open-addressing table and its columns. Every method runs under the segment lock.
+     */
+    private final class Segment {
+        private final ReentrantLock         lock     = new ReentrantLock();
+        private final ReferenceQueue<Order> released = new ReferenceQueue<>();
+        /**
+         * Recipes beyond the inline ones, by order, in the order they were first added.
+         */
+        private final Map<UUID, Map<Long, Integer>> overflow = new HashMap<>();
+
+        private long[] idHigh;
+        private long[] idLow;
+        private int[]  building;
+        private int[]  room;
+        private byte[] status;
+        private long[] recipes;
+        private int[]  quantities;
+        private View[] views;
+        private int    size;
+        private int    occupied;
+
+        Segment(int capacity) {
+            allocate(capacity);
+        }
+
+        Order find(UUID orderId) {
+            lock.lock();
+            try {
+                expungeReleasedViews();
+                int slot = slotOf(orderId);
+                return slot < 0 ? null : viewOf(orderId, slot);
+            }
+            finally {
+                lock.unlock();
+            }
+        }
+
+        Order restore(UUID orderId) {
+            lock.lock();
+            try {
+                int slot = slotOf(orderId);
+                return slot < 0 ? null : restore(orderId, slot);
+            }
+            finally {
+                lock.unlock();
+            }
+        }
+
+        /**
+         * @return the view the order replaces, if any
+         */
+        Order store(Order order, Map<Item, Integer> items) {
+            UUID orderId = order.getId();
+            lock.lock();
+            try {
+                expungeReleasedViews();
+                int slot = slotOf(orderId);
+                return put(slot < 0 ? claimSlot(orderId) : slot, order, items);
+            }
+            finally {
+                lock.unlock();
+            }
+        }
+
+        /**
+         * @return whether the order was stored, which it is not when its id is taken
+         */
+        boolean storeIfAbsent(Order order, Map<Item, Integer> items) {
+            UUID orderId = order.getId();
+            lock.lock();
+            try {
+                expungeReleasedViews();
+                if (slotOf(orderId) >= 0) {
+                    return false;
+                }
+                put(claimSlot(orderId), order, items);
+                return true;
+            }
+            finally {
+                lock.unlock();
+            }
+        }
+
+        /**
+         * @return the live view of the removed order, if any
+         */
+        Order remove(UUID orderId) {
+            lock.lock();
+            try {
+                int slot = slotOf(orderId);
+                if (slot < 0) {
+                    return null;
+                }
+                status[slot] = DELETED;
+                size--;
+                overflow.remove(orderId);
+                View view = views[slot];
+                views[slot] = null;
+                return view == null ? null : view.get();
+            }
+            finally {
+                lock.unlock();
+            }
+        }
+
+        void writeStatus(Order order) {
+            lock.lock();
+            try {
+                int slot = liveSlotOf(order);
+                if (slot >= 0) {
+                    // re-read rather than trust the notification, which may arrive after a later transition
+                    status[slot] = (byte) order
+                        .getStatus()
+                        .ordinal();
+                }
+            }
+            finally {
+                lock.unlock();
+            }
+        }
+
+        void writeQuantity(Order order, Item item) {
+            int quantity = order.countOf(item);
+            lock.lock();
+            try {
+                int slot = liveSlotOf(order);
+                if (slot >= 0) {
+                    setQuantity(order.getId(), slot, item.getRecipeId(), quantity);
+                }
+            }
+            finally {
+                lock.unlock();
+            }
+        }
+
+        /**
+         * @return the number of orders looked at
+         */
+        int collect(OrderStatus wanted, List<Order> orders) {
+            lock.lock();
+            try {
+                expungeReleasedViews();
+                int scanned = 0;
+                for (int slot = 0; slot < status.length; slot++) {
+                    if (status[slot] < 0) {
+                        continue;
+                    }
+                    scanned++;
+                    if (wanted == null || status[slot] == wanted.ordinal()) {
+                        Order view = viewOf(new UUID(idHigh[slot], idLow[slot]), slot);
+                        if (wanted == null || view.getStatus() == wanted) {
+                            orders.add(view);
+                        }
+                    }
+                }
+                return scanned;
+            }
+            finally {
+                lock.unlock();
+            }
+        }
+
+        int size() {
+            lock.lock();
+            try {
+                return size;
+            }
+            finally {
+                lock.unlock();
+            }
+        }
+
+        private Order viewOf(UUID orderId, int slot) {
+            View existing = views[slot];
+            Order view = existing == null ? null : existing.get();
+            if (view != null) {
+                return view;
+            }
+            view = restore(orderId, slot);
+            views[slot] = new View(view, slot, released);
+            view.attach(listener);
+            return view;
+        }
+
+        private Order restore(UUID orderId, int slot) {
+            return Order.restore(orderId, new Address(building[slot], room[slot]), STATUSES[status[slot]], itemsOf(orderId, slot));
+        }
+
+        private Map<Item, Integer> itemsOf(UUID orderId, int slot) {
+            Map<Item, Integer> items = new LinkedHashMap<>();
+            for (int i = slot * INLINE_RECIPES; i < (slot + 1) * INLINE_RECIPES && quantities[i] > 0; i++) {
+                items.put(RecipeRegistry.recipe(recipes[i]), quantities[i]);
+            }
+            Map<Long, Integer> more = overflow.get(orderId);
+            if (more != null) {
+                more.forEach((recipeId, quantity) -> items.put(RecipeRegistry.recipe(recipeId), quantity));
+            }
+            return items;
+        }
+
+        /**
+         * Sets the quantity of one recipe, keeping the inline recipes packed in the order they were first added.
+         */
+        private void setQuantity(UUID orderId, int slot, long recipeId, int quantity) {
+            int first = slot * INLINE_RECIPES;
+            int end = first + INLINE_RECIPES;
+            for (int i = first; i < end && quantities[i] > 0; i++) {
+                if (recipes[i] != recipeId) {
+                    continue;
+                }
+                if (quantity > 0) {
+                    quantities[i] = quantity;
+                    return;
+                }
+                System.arraycopy(recipes, i + 1, recipes, i, end - i - 1);
+                System.arraycopy(quantities, i + 1, quantities, i, end - i - 1);
+                quantities[end - 1] = 0;
+                pullFromOverflow(orderId, end - 1);
+                return;
+            }
+            Map<Long, Integer> more = overflow.get(orderId);
+            if (more != null && more.containsKey(recipeId)) {
+                if (quantity > 0) {
+                    more.put(recipeId, quantity);
+                } else {
+                    more.remove(recipeId);
+                    if (more.isEmpty()) {
+                        overflow.remove(orderId);
+                    }
+                }
+                return;
+            }
+            if (quantity <= 0) {
+                return;
+            }
+            for (int i = first; i < end; i++) {
+                if (quantities[i] == 0) {
+                    recipes[i] = recipeId;
+                    quantities[i] = quantity;
+                    return;
+                }
+            }
+            overflow
+                .computeIfAbsent(orderId, id -> new LinkedHashMap<>())
+                .put(recipeId, quantity);
+        }
+
+        private void pullFromOverflow(UUID orderId, int index) {
+            Map<Long, Integer> more = overflow.get(orderId);
+            if (more == null) {
+                return;
+            }
+            Map.Entry<Long, Integer> next = more
+                .entrySet()
+                .iterator()
+                .next();
+            recipes[index] = next.getKey();
+            quantities[index] = next.getValue();
+            more.remove(next.getKey());
+            if (more.isEmpty()) {
+                overflow.remove(orderId);
+            }
+        }
+
+        private int claimSlot(UUID orderId) {
+            if (occupied + 1 > status.length * MAX_LOAD) {
+                resize(size + 1 > status.length * MAX_LOAD / 2 ? status.length << 1 : status.length);
+            }
+            int slot = freeSlotOf(orderId);
+            if (status[slot] == FREE) {
+                occupied++;
+            }
+            size++;
+            idHigh[slot] = orderId.getMostSignificantBits();
+            idLow[slot] = orderId.getLeastSignificantBits();
+            return slot;
+        }
+
+        /**
+         * Writes every column of {@code slot} from {@code order} and makes it the view in use.
+         *
+         * @return the view it replaces, if any
+         */
+        private Order put(int slot, Order order, Map<Item, Integer> items) {
+            UUID orderId = order.getId();
+            building[slot] = order
+                .getAddress()
+                .building();
+            room[slot] = order
+                .getAddress()
+                .room();
+            status[slot] = (byte) order
+                .getStatus()
+                .ordinal();
+            Arrays.fill(quantities, slot * INLINE_RECIPES, (slot + 1) * INLINE_RECIPES, 0);
+            overflow.remove(orderId);
+            for (Map.Entry<Item, Integer> item : items.entrySet()) {
+                setQuantity(orderId, slot, item
+                    .getKey()
+                    .getRecipeId(), item.getValue());
+            }
+
+            View replaced = views[slot];
+            views[slot] = new View(order, slot, released);
+            return replaced == null ? null : replaced.get();
+        }
+
+        /**
+         * @return the slot of {@code order} when it is the view the columns belong to, otherwise -1
+         */
+        private int liveSlotOf(Order order) {
+            int slot = slotOf(order.getId());
+            if (slot < 0 || views[slot] == null || views[slot].get() != order) {
+                // deleted, or replaced by a later save
+                return -1;
+            }
+            return slot;
+        }
+
+        private int slotOf(UUID orderId) {
+            long high = orderId.getMostSignificantBits();
+            long low = orderId.getLeastSignificantBits();
+            int mask = status.length - 1;
+            for (int slot = (int) hash(orderId) & mask; ; slot = (slot + 1) & mask) {
+                byte state = status[slot];
+                if (state == FREE) {
+                    return -1;
+                }
+                if (state != DELETED && idHigh[slot] == high && idLow[slot] == low) {
+                    return slot;
+                }
+            }
+        }
+
+        private int freeSlotOf(UUID orderId) {
+            int mask = status.length - 1;
+            int slot = (int) hash(orderId) & mask;
+            while (status[slot] >= 0) {
+                slot = (slot + 1) & mask;
+            }
+            return slot;
+        }
+
+        /**
+         * Rebuilds the table at {@code capacity}, which also drops the tombstones of deleted orders.
+         */
+        private void resize(int capacity) {
+            long[] oldIdHigh = idHigh;
+            long[] oldIdLow = idLow;
+            int[] oldBuilding = building;
+            int[] oldRoom = room;
+            byte[] oldStatus = status;
+            long[] oldRecipes = recipes;
+            int[] oldQuantities = quantities;
+            View[] oldViews = views;
+            allocate(capacity);
+            for (int old = 0; old < oldStatus.length; old++) {
+                if (oldStatus[old] < 0) {
+                    continue;
+                }
+                int slot = freeSlotOf(new UUID(oldIdHigh[old], oldIdLow[old]));
+                idHigh[slot] = oldIdHigh[old];
+                idLow[slot] = oldIdLow[old];
+                building[slot] = oldBuilding[old];
+                room[slot] = oldRoom[old];
+                status[slot] = oldStatus[old];
+                System.arraycopy(oldRecipes, old * INLINE_RECIPES, recipes, slot * INLINE_RECIPES, INLINE_RECIPES);
+                System.arraycopy(oldQuantities, old * INLINE_RECIPES, quantities, slot * INLINE_RECIPES, INLINE_RECIPES);
+                views[slot] = oldViews[old];
+                if (views[slot] != null) {
+                    views[slot].slot = slot;
+                }
+            }
+            occupied = size;
+        }
+
+        private void allocate(int capacity) {
+            idHigh = new long[capacity];
+            idLow = new long[capacity];
+            building = new int[capacity];
+            room = new int[capacity];
+            status = new byte[capacity];
+            Arrays.fill(status, FREE);
+            recipes = new long[capacity * INLINE_RECIPES];
+            quantities = new int[capacity * INLINE_RECIPES];
+            views = new View[capacity];
+        }
+
+        private void expungeReleasedViews() {
+            Reference<? extends Order> released;
+            while ((released = this.released.poll()) != null) {
+                View view = (View) released;
+                if (views[view.slot] == view) {
+                    views[view.slot] = null;
+                }
+            }
+        }
+    }
+}
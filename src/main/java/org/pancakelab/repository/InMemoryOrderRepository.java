@@ -1,17 +1,42 @@
 package org.pancakelab.repository;
 
 import java.util.ArrayList;
+import java.util.EnumMap;
 import java.util.List;
 import java.util.Map;
 import java.util.UUID;
 import java.util.concurrent.ConcurrentHashMap;
 import org.pancakelab.domain.order.Order;
+import org.pancakelab.domain.order.OrderListener;
+import org.pancakelab.domain.order.OrderStatus;
+import org.pancakelab.domain.pancake.Item;
+import org.pancakelab.metrics.RepositoryScanEvent;
 
 /**
  * @author Shantanu Singh.
  */
 public class InMemoryOrderRepository implements OrderRepository {
-    private final Map<UUID, Order> orderMap = new ConcurrentHashMap<>();
+    private final Map<UUID, Order>                     orderMap    = new ConcurrentHashMap<>();
+    private final Map<OrderStatus, Map<UUID, Order>> statusIndex = new EnumMap<>(OrderStatus.class);
+    private final OrderListener                        listener    = new OrderListener() {
+        @Override public void onStatusChanged(Order order, OrderStatus previous, OrderStatus current) {
+            statusChanged(order, previous, current);
+        }
+
+        @Override public void onItemsChanged(Order order, Item item) {
+            itemsChanged(order, item);
+        }
+
+        @Override public void onItemsReleased(Order order) {
+            itemsReleased(order);
+        }
+    };
+
+    public InMemoryOrderRepository() {
+        for (OrderStatus status : OrderStatus.values()) {
+            statusIndex.put(status, new ConcurrentHashMap<>());
+        }
+    }
 
     @Override public Order findById(UUID orderId) {
         return orderMap.get(orderId);
@@ -19,13 +44,104 @@ public class InMemoryOrderRepository implements OrderRepository {
 
     @Override public void save(Order order) {
         orderMap.put(order.getId(), order);
+        order.attach(listener);
+    }
+
+    @Override public boolean saveIfAbsent(Order order) {
+        if (orderMap.putIfAbsent(order.getId(), order) != null) {
+            return false;
+        }
+        order.attach(listener);
+        return true;
     }
 
     @Override public void delete(UUID orderId) {
-        orderMap.remove(orderId);
+        Order order = orderMap.remove(orderId);
+        if (order == null) {
+            return;
+        }
+        order.detach();
+        for (Map<UUID, Order> orders : statusIndex.values()) {
+            orders.remove(orderId);
+        }
+    }
+
+    /**
+     * @return the number of stored orders
+     */
+    public int size() {
+        return orderMap.size();
     }
 
     @Override public List<Order> findAll() {
-        return new ArrayList<>(orderMap.values());
+        RepositoryScanEvent event = new RepositoryScanEvent();
+        event.begin();
+        List<Order> orders = new ArrayList<>(orderMap.values());
+        if (event.shouldCommit()) {
+            event.query = "findAll";
+            event.scanned = orders.size();
+            event.returned = orders.size();
+            event.commit();
+        }
+        return orders;
+    }
+
+    /**
+     * Notifications of consecutive transitions of one order may be applied out of order, so an index bucket can hold
+     * an order that already moved on. Such entries are skipped and dropped here; an order never returns to a status
+     * it left.
+     */
+    @Override public List<Order> findByStatus(OrderStatus status) {
+        RepositoryScanEvent event = new RepositoryScanEvent();
+        event.begin();
+        Map<UUID, Order> indexed = statusIndex.get(status);
+        List<Order> orders = new ArrayList<>(indexed.size());
+        int scanned = 0;
+        for (Order order : indexed.values()) {
+            scanned++;
+            if (order.getStatus() == status) {
+                orders.add(order);
+            } else {
+                indexed.remove(order.getId(), order);
+            }
+        }
+        if (event.shouldCommit()) {
+            event.query = "findByStatus(" + status + ")";
+            event.scanned = scanned;
+            event.returned = orders.size();
+            event.commit();
+        }
+        return orders;
+    }
+
+    /**
+     * Called after {@code order} changed status, and with a {@code null} previous status when it is saved.
+     */
+    protected void statusChanged(Order order, OrderStatus previous, OrderStatus current) {
+        UUID orderId = order.getId();
+        if (previous != null) {
+            statusIndex
+                .get(previous)
+                .remove(orderId, order);
+        }
+        Map<UUID, Order> indexed = statusIndex.get(current);
+        indexed.put(orderId, order);
+        if (orderMap.get(orderId) != order) {
+            // deleted while this notification was in flight
+            indexed.remove(orderId, order);
+        }
+    }
+
+    /**
+     * Called while the quantity of {@code item} in {@code order} changes.
+     */
+    protected void itemsChanged(Order order, Item item) {
+    }
+
+    /**
+     * Called once the item lock of {@code order} was released after its items changed, before the changing call
+     * returns.
+     */
+    protected void itemsReleased(Order order) {
     }
 }
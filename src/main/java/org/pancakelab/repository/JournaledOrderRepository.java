@@ -0,0 +1,294 @@
+package org.pancakelab.repository;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import org.pancakelab.domain.order.Order;
+import org.pancakelab.domain.order.OrderStatus;
+import org.pancakelab.domain.pancake.Item;
+
+/**
+ * Durable {@link OrderRepository}. Saves, deletes and every status and item change of a saved order are journaled
+ * to a write-ahead log before the mutating call returns; concurrent writers share fsyncs through group commit.
+ * Item changes are appended while the order's item lock is held, so their records keep the order of the changes,
+ * but are only waited for once the lock is released.
+ * <p>
+ * After {@code snapshotInterval} journal records a background checkpoint starts a new journal generation and
+ * writes a snapshot of all orders, then drops older files, so recovery only replays the latest snapshot and the
+ * journal written since. The snapshot is taken while writers keep going, which is safe because journal records
+ * carry absolute values. A failed background checkpoint is counted and kept for {@link #lastCheckpointFailure()}; the
+ * next one is attempted after another {@code snapshotInterval} records.
+ */
+public class JournaledOrderRepository extends InMemoryOrderRepository implements AutoCloseable {
+    public static final long DEFAULT_SNAPSHOT_INTERVAL = 100_000;
+
+    private static final String JOURNAL_PREFIX  = "journal-";
+    private static final String JOURNAL_SUFFIX  = ".wal";
+    private static final String SNAPSHOT_PREFIX = "snapshot-";
+    private static final String SNAPSHOT_SUFFIX = ".snap";
+    private static final int    SNAPSHOT_SYNC_INTERVAL = 64 * 1024;
+
+    private final Path            directory;
+    private final long            snapshotInterval;
+    private final Lock            checkpointLock       = new ReentrantLock();
+    private final AtomicLong      recordsSinceSnapshot = new AtomicLong();
+    private final AtomicBoolean   checkpointScheduled  = new AtomicBoolean();
+    private final LongAdder       checkpointFailures   = new LongAdder();
+    private volatile IOException  lastCheckpointFailure;
+    private final ExecutorService checkpointer;
+    private final WriteAheadLog   journal;
+    private       long            generation;
+    private       boolean         recovering;
+
+    public JournaledOrderRepository(Path directory) throws IOException {
+        this(directory, DEFAULT_SNAPSHOT_INTERVAL);
+    }
+
+    public JournaledOrderRepository(Path directory, long snapshotInterval) throws IOException {
+        if (snapshotInterval <= 0) {
+            throw new IllegalArgumentException("Snapshot interval must be positive.");
+        }
+        this.directory = Files.createDirectories(directory);
+        this.snapshotInterval = snapshotInterval;
+        recover();
+        this.journal = new WriteAheadLog(journalPath(generation));
+        this.checkpointer = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "order-journal-checkpointer");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @Override public void delete(UUID orderId) {
+        if (findById(orderId) == null) {
+            return;
+        }
+        // removed first: a checkpoint in between must not snapshot the order and then drop the journal deleting it
+        super.delete(orderId);
+        commit(OrderRecords.deleteSize(), buffer -> OrderRecords.putDelete(buffer, orderId));
+    }
+
+    /**
+     * Starts a new journal generation and writes a snapshot of every order, then removes the files it supersedes.
+     */
+    public void checkpoint() throws IOException {
+        checkpointLock.lock();
+        try {
+            long next = generation + 1;
+            journal.rotate(journalPath(next));
+            generation = next;
+            recordsSinceSnapshot.set(0);
+
+            Path pending = directory.resolve(SNAPSHOT_PREFIX + next + ".tmp");
+            Files.deleteIfExists(pending);
+            try (WriteAheadLog snapshot = new WriteAheadLog(pending)) {
+                for (Order order : findAll()) {
+                    OrderStatus status = order.getStatus();
+                    Map<Item, Integer> items = order.getItemQuantities();
+                    long lsn = snapshot.append(OrderRecords.saveSize(items), buffer -> OrderRecords.putSave(buffer, order, status, items));
+                    if (lsn % SNAPSHOT_SYNC_INTERVAL == 0) {
+                        snapshot.awaitDurable(lsn);
+                    }
+                }
+            }
+            Files.move(pending, snapshotPath(next), StandardCopyOption.ATOMIC_MOVE);
+
+            for (Path file : listFiles()) {
+                if (generationOf(file) < next) {
+                    Files.delete(file);
+                }
+            }
+        }
+        finally {
+            checkpointLock.unlock();
+        }
+    }
+
+    /**
+     * @return the number of fsyncs issued by the journal, which is lower than the number of journaled mutations
+     * whenever concurrent writers were group-committed
+     */
+    public long journalSyncCount() {
+        return journal.syncCount();
+    }
+
+    /**
+     * @return the number of background checkpoints that failed
+     */
+    public long checkpointFailureCount() {
+        return checkpointFailures.sum();
+    }
+
+    /**
+     * @return the failure of the most recent background checkpoint that failed, or {@code null}
+     */
+    public IOException lastCheckpointFailure() {
+        return lastCheckpointFailure;
+    }
+
+    @Override public void close() throws IOException {
+        checkpointer.shutdown();
+        try {
+            checkpointer.awaitTermination(1, TimeUnit.MINUTES);
+        }
+        catch (InterruptedException e) {
+            Thread
+                .currentThread()
+                .interrupt();
+        }
+        journal.close();
+    }
+
+    @Override protected void statusChanged(Order order, OrderStatus previous, OrderStatus current) {
+        super.statusChanged(order, previous, current);
+        if (recovering) {
+            return;
+        }
+        if (previous == null) {
+            Map<Item, Integer> items = order.getItemQuantities();
+            commit(OrderRecords.saveSize(items), buffer -> OrderRecords.putSave(buffer, order, current, items));
+        } else {
+            commit(OrderRecords.statusSize(), buffer -> OrderRecords.putStatus(buffer, order.getId(), current));
+        }
+    }
+
+    @Override protected void itemsChanged(Order order, Item item) {
+        int quantity = order.countOf(item);
+        append(OrderRecords.itemRecordSize(), buffer -> OrderRecords.putItem(buffer, order.getId(), item, quantity));
+    }
+
+    /**
+     * Waits for the item records appended under the lock just released; later records share the same fsync.
+     */
+    @Override protected void itemsReleased(Order order) {
+        if (!recovering) {
+            journal.awaitDurable(journal.lastLsn());
+        }
+    }
+
+    private void commit(int size, Consumer<ByteBuffer> record) {
+        journal.awaitDurable(append(size, record));
+    }
+
+    private long append(int size, Consumer<ByteBuffer> record) {
+        long lsn = journal.append(size, record);
+        if (recordsSinceSnapshot.incrementAndGet() >= snapshotInterval && checkpointScheduled.compareAndSet(false, true)) {
+            checkpointer.execute(() -> {
+                try {
+                    checkpoint();
+                }
+                catch (IOException e) {
+                    checkpointFailed(e);
+                }
+                catch (UncheckedIOException e) {
+                    checkpointFailed(e.getCause());
+                }
+                finally {
+                    checkpointScheduled.set(false);
+                }
+            });
+        }
+        return lsn;
+    }
+
+    private void checkpointFailed(IOException failure) {
+        // nobody waits for the checkpoint, so keep its failure for the owner; the journal itself is unaffected
+        lastCheckpointFailure = failure;
+        checkpointFailures.increment();
+    }
+
+    private void recover() throws IOException {
+        List<Path> files = listFiles();
+        long snapshotGeneration = files
+            .stream()
+            .filter(JournaledOrderRepository::isSnapshot)
+            .mapToLong(JournaledOrderRepository::generationOf)
+            .max()
+            .orElse(0);
+
+        Map<UUID, OrderRecords.RecoveredOrder> orders = new HashMap<>();
+        Consumer<ByteBuffer> replay = record -> OrderRecords.apply(record, orders);
+        Path snapshot = snapshotPath(snapshotGeneration);
+        if (Files.exists(snapshot)) {
+            WriteAheadLog.read(snapshot, replay);
+        }
+        long lastGeneration = snapshotGeneration;
+        for (Path file : files) {
+            long fileGeneration = generationOf(file);
+            if (!isSnapshot(file) && fileGeneration >= snapshotGeneration) {
+                WriteAheadLog.read(file, replay);
+                lastGeneration = fileGeneration;
+            }
+        }
+
+        recovering = true;
+        try {
+            for (OrderRecords.RecoveredOrder order : orders.values()) {
+                super.save(order.toOrder());
+            }
+        }
+        finally {
+            recovering = false;
+        }
+        generation = lastGeneration + 1;
+    }
+
+    /**
+     * @return the journal and snapshot files, ordered by generation
+     */
+    private List<Path> listFiles() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files
+                .filter(file -> isJournal(file) || isSnapshot(file))
+                .sorted((left, right) -> Long.compare(generationOf(left), generationOf(right)))
+                .toList();
+        }
+    }
+
+    private Path journalPath(long generation) {
+        return directory.resolve(JOURNAL_PREFIX + generation + JOURNAL_SUFFIX);
+    }
+
+    private Path snapshotPath(long generation) {
+        return directory.resolve(SNAPSHOT_PREFIX + generation + SNAPSHOT_SUFFIX);
+    }
+
+    private static boolean isJournal(Path file) {
+        String name = file
+            .getFileName()
+            .toString();
+        return name.startsWith(JOURNAL_PREFIX) && name.endsWith(JOURNAL_SUFFIX);
+    }
+
+    private static boolean isSnapshot(Path file) {
+        String name = file
+            .getFileName()
+            .toString();
+        return name.startsWith(SNAPSHOT_PREFIX) && name.endsWith(SNAPSHOT_SUFFIX);
+    }
+
+    private static long generationOf(Path file) {
+        String name = file
+            .getFileName()
+            .toString();
+        String prefix = isJournal(file) ? JOURNAL_PREFIX : SNAPSHOT_PREFIX;
+        return Long.parseLong(name.substring(prefix.length(), name.lastIndexOf('.')));
+    }
+}
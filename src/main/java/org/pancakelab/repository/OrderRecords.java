@@ -0,0 +1,172 @@
+package org.pancakelab.repository;
+
+import java.nio.ByteBuffer;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+import org.pancakelab.domain.order.Order;
+import org.pancakelab.domain.order.OrderStatus;
+import org.pancakelab.domain.pancake.Item;
+import org.pancakelab.domain.pancake.RecipeRegistry;
+import org.pancakelab.domain.shared.Address;
+
+/**
+ * Binary encoding of the journal records written by {@link JournaledOrderRepository}.
+ * <p>
+ * Records carry absolute values (the whole order, its new status, the new quantity of one pancake), never deltas,
+ * so replaying a record whose effect is already contained in a snapshot is harmless.
+ */
+final class OrderRecords {
+    static final byte SAVE   = 1;
+    static final byte DELETE = 2;
+    static final byte STATUS = 3;
+    static final byte ITEM   = 4;
+
+    private static final int ID_SIZE     = 2 * Long.BYTES;
+    private static final int RECIPE_SIZE = Long.BYTES;
+
+    private static final OrderStatus[] STATUSES = OrderStatus.values();
+
+    private OrderRecords() {
+    }
+
+    /**
+     * Mutable state of an order being rebuilt from snapshot and journal records.
+     */
+    static final class RecoveredOrder {
+        private final UUID               id;
+        private final Address            address;
+        private       OrderStatus        status;
+        private final Map<Item, Integer> items = new LinkedHashMap<>();
+
+        private RecoveredOrder(UUID id, Address address) {
+            this.id = id;
+            this.address = address;
+        }
+
+        Order toOrder() {
+            return Order.restore(id, address, status, items);
+        }
+    }
+
+    static int saveSize(Map<Item, Integer> items) {
+        return Byte.BYTES + ID_SIZE + 2 * Integer.BYTES + Byte.BYTES + Integer.BYTES + items.size() * (RECIPE_SIZE + Integer.BYTES);
+    }
+
+    static void putSave(ByteBuffer buffer, Order order, OrderStatus status, Map<Item, Integer> items) {
+        buffer.put(SAVE);
+        putId(buffer, order.getId());
+        buffer.putInt(order
+            .getAddress()
+            .building());
+        buffer.putInt(order
+            .getAddress()
+            .room());
+        buffer.put((byte) status.ordinal());
+        buffer.putInt(items.size());
+        items.forEach((item, quantity) -> {
+            putItem(buffer, item);
+            buffer.putInt(quantity);
+        });
+    }
+
+    static int deleteSize() {
+        return Byte.BYTES + ID_SIZE;
+    }
+
+    static void putDelete(ByteBuffer buffer, UUID orderId) {
+        buffer.put(DELETE);
+        putId(buffer, orderId);
+    }
+
+    static int statusSize() {
+        return Byte.BYTES + ID_SIZE + Byte.BYTES;
+    }
+
+    static void putStatus(ByteBuffer buffer, UUID orderId, OrderStatus status) {
+        buffer.put(STATUS);
+        putId(buffer, orderId);
+        buffer.put((byte) status.ordinal());
+    }
+
+    static int itemRecordSize() {
+        return Byte.BYTES + ID_SIZE + RECIPE_SIZE + Integer.BYTES;
+    }
+
+    static void putItem(ByteBuffer buffer, UUID orderId, Item item, int quantity) {
+        buffer.put(ITEM);
+        putId(buffer, orderId);
+        putItem(buffer, item);
+        buffer.putInt(quantity);
+    }
+
+    /**
+     * Applies one record to the orders being recovered.
+     */
+    static void apply(ByteBuffer record, Map<UUID, RecoveredOrder> orders) {
+        byte type = record.get();
+        UUID orderId = new UUID(record.getLong(), record.getLong());
+        switch (type) {
+            case SAVE -> {
+                RecoveredOrder order = new RecoveredOrder(orderId, new Address(record.getInt(), record.getInt()));
+                order.status = STATUSES[record.get()];
+                int recipes = record.getInt();
+                for (int i = 0; i < recipes; i++) {
+                    order.items.put(getItem(record), record.getInt());
+                }
+                RecoveredOrder replaced = orders.put(orderId, order);
+                if (replaced != null && stageOf(replaced.status) > stageOf(order.status)) {
+                    order.status = replaced.status;
+                }
+            }
+            case DELETE -> orders.remove(orderId);
+            case STATUS -> {
+                OrderStatus status = STATUSES[record.get()];
+                RecoveredOrder order = orders.get(orderId);
+                if (order != null && stageOf(status) > stageOf(order.status)) {
+                    order.status = status;
+                }
+            }
+            case ITEM -> {
+                Item item = getItem(record);
+                int quantity = record.getInt();
+                RecoveredOrder order = orders.get(orderId);
+                if (order == null) {
+                    return;
+                }
+                if (quantity == 0) {
+                    order.items.remove(item);
+                } else {
+                    order.items.put(item, quantity);
+                }
+            }
+            default -> throw new IllegalStateException("Unknown journal record type: " + type);
+        }
+    }
+
+    /**
+     * Orders only move forward, so replay keeps the furthest status seen. Concurrent transitions of one order can
+     * reach the journal in either order.
+     */
+    private static int stageOf(OrderStatus status) {
+        return switch (status) {
+            case NEW -> 0;
+            case COMPLETED, CANCELLED -> 1;
+            case PREPARED -> 2;
+            case DELIVERED -> 3;
+        };
+    }
+
+    private static void putId(ByteBuffer buffer, UUID id) {
+        buffer.putLong(id.getMostSignificantBits());
+        buffer.putLong(id.getLeastSignificantBits());
+    }
+
+    private static void putItem(ByteBuffer buffer, Item item) {
+        buffer.putLong(item.getRecipeId());
+    }
+
+    private static Item getItem(ByteBuffer buffer) {
+        return RecipeRegistry.recipe(buffer.getLong());
+    }
+}
@@ -3,6 +3,7 @@ package org.pancakelab.repository;
 import java.util.List;
 import java.util.UUID;
 import org.pancakelab.domain.order.Order;
+import org.pancakelab.domain.order.OrderStatus;
 
 /**
  * @author Shantanu Singh.
@@ -13,7 +14,16 @@ public interface OrderRepository {
 
     void save(Order order);
 
+    /**
+     * Saves {@code order} unless an order with its id is already stored, atomically with that check.
+     *
+     * @return whether the order was saved
+     */
+    boolean saveIfAbsent(Order order);
+
     void delete(UUID orderId);
 
     List<Order> findAll();
+
+    List<Order> findByStatus(OrderStatus status);
 }
@@ -0,0 +1,11 @@
+package org.pancakelab.repository;
+
+/**
+ * Load of one shard of a {@link ShardedOrderRepository}.
+ *
+ * @param orders the number of orders stored in the shard
+ * @param reads  lookups and queries served by the shard
+ * @param writes saves and deletes applied to the shard
+ */
+public record ShardStats(int shard, int orders, long reads, long writes) {
+}
@@ -0,0 +1,196 @@
+package org.pancakelab.repository;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import org.pancakelab.domain.order.Order;
+import org.pancakelab.domain.order.OrderStatus;
+
+/**
+ * {@link OrderRepository} split into independent {@link InMemoryOrderRepository} shards, each with its own order
+ * map and status index. Orders are placed by building, so that building-scoped queries only touch one shard, or by
+ * a hash of the order id, which spreads a single busy building over all shards. Whole-repository scans query the
+ * shards in parallel.
+ * <p>
+ * Every shard counts its reads and writes in {@link LongAdder}s, which points at hot buildings. Shards are
+ * lock-free, so no thread ever waits for one; threads waiting for the items of a busy order are reported by
+ * {@link org.pancakelab.metrics.OrderLockWaitEvent}s.
+ */
+public class ShardedOrderRepository implements OrderRepository {
+    public enum Partitioning {
+        BY_BUILDING,
+        BY_ORDER_ID
+    }
+
+    private final Partitioning     partitioning;
+    private final Shard[]          shards;
+    /**
+     * Where each order lives when shards are picked by building, which cannot be derived from the order id.
+     */
+    private final Map<UUID, Shard> directory;
+
+    private static final class Shard {
+        private final int                     index;
+        private final InMemoryOrderRepository orders = new InMemoryOrderRepository();
+        private final LongAdder               reads  = new LongAdder();
+        private final LongAdder               writes = new LongAdder();
+
+        private Shard(int index) {
+            this.index = index;
+        }
+
+        /**
+         * @return the orders of this shard, counting one read
+         */
+        private InMemoryOrderRepository reading() {
+            reads.increment();
+            return orders;
+        }
+
+        /**
+         * @return the orders of this shard, counting one write
+         */
+        private InMemoryOrderRepository writing() {
+            writes.increment();
+            return orders;
+        }
+
+        private ShardStats stats() {
+            return new ShardStats(index, orders.size(), reads.sum(), writes.sum());
+        }
+    }
+
+    public ShardedOrderRepository(int shardCount, Partitioning partitioning) {
+        if (shardCount <= 0) {
+            throw new IllegalArgumentException("Shard count must be positive.");
+        }
+        this.partitioning = partitioning;
+        this.shards = new Shard[shardCount];
+        for (int i = 0; i < shardCount; i++) {
+            shards[i] = new Shard(i);
+        }
+        this.directory = partitioning == Partitioning.BY_BUILDING ? new ConcurrentHashMap<>() : null;
+    }
+
+    @Override public Order findById(UUID orderId) {
+        Shard shard = shardOf(orderId);
+        return shard == null ? null : shard
+            .reading()
+            .findById(orderId);
+    }
+
+    @Override public void save(Order order) {
+        Shard shard = partitioning == Partitioning.BY_BUILDING
+            ? shardOfBuilding(order
+                .getAddress()
+                .building())
+            : shardOf(order.getId());
+        if (directory != null) {
+            directory.put(order.getId(), shard);
+        }
+        shard
+            .writing()
+            .save(order);
+    }
+
+    @Override public boolean saveIfAbsent(Order order) {
+        if (directory == null) {
+            return shardOf(order.getId())
+                .writing()
+                .saveIfAbsent(order);
+        }
+        Shard shard = shardOfBuilding(order
+            .getAddress()
+            .building());
+        // the directory entry claims the id across shards, since an order with the same id may live in another one
+        if (directory.putIfAbsent(order.getId(), shard) != null) {
+            return false;
+        }
+        shard
+            .writing()
+            .save(order);
+        return true;
+    }
+
+    @Override public void delete(UUID orderId) {
+        Shard shard = directory != null ? directory.remove(orderId) : shardOf(orderId);
+        if (shard != null) {
+            shard
+                .writing()
+                .delete(orderId);
+        }
+    }
+
+    @Override public List<Order> findAll() {
+        return fanOut(InMemoryOrderRepository::findAll);
+    }
+
+    @Override public List<Order> findByStatus(OrderStatus status) {
+        return fanOut(orders -> orders.findByStatus(status));
+    }
+
+    /**
+     * @return the orders to be delivered to {@code building}; only one shard is queried when partitioning by building
+     */
+    public List<Order> findByBuilding(int building) {
+        return filterByBuilding(building, InMemoryOrderRepository::findAll);
+    }
+
+    /**
+     * @return the orders in {@code status} to be delivered to {@code building}
+     */
+    public List<Order> findByBuildingAndStatus(int building, OrderStatus status) {
+        return filterByBuilding(building, orders -> orders.findByStatus(status));
+    }
+
+    /**
+     * @return the load of every shard, in shard order
+     */
+    public List<ShardStats> getShardStats() {
+        return Arrays
+            .stream(shards)
+            .map(Shard::stats)
+            .toList();
+    }
+
+    private List<Order> filterByBuilding(int building, Function<InMemoryOrderRepository, List<Order>> query) {
+        List<Order> candidates = partitioning == Partitioning.BY_BUILDING
+            ? query.apply(shardOfBuilding(building).reading())
+            : fanOut(query);
+        List<Order> orders = new ArrayList<>();
+        for (Order order : candidates) {
+            if (order
+                .getAddress()
+                .building() == building) {
+                orders.add(order);
+            }
+        }
+        return orders;
+    }
+
+    private List<Order> fanOut(Function<InMemoryOrderRepository, List<Order>> query) {
+        return Arrays
+            .stream(shards)
+            .parallel()
+            .flatMap(shard -> query
+                .apply(shard.reading())
+                .stream())
+            .toList();
+    }
+
+    private Shard shardOfBuilding(int building) {
+        return shards[Math.floorMod(building, shards.length)];
+    }
+
+    private Shard shardOf(UUID orderId) {
+        if (directory != null) {
+            return directory.get(orderId);
+        }
+        return shards[Math.floorMod(orderId.hashCode(), shards.length)];
+    }
+}
@@ -0,0 +1,232 @@
+package org.pancakelab.repository;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.zip.CRC32C;
+
+/**
+ * Journal file with group commit. Appending only copies a record into an in-memory batch; the first thread that
+ * then waits for durability becomes the leader, writes every record appended so far and issues a single fsync for
+ * the whole batch, while the other waiting threads find their records already durable.
+ * <p>
+ * Each record is framed as {@code [int bodyLength][int crc32c][body]}; reading stops at the first truncated or
+ * corrupt record.
+ * <p>
+ * The first failed write, fsync or rotation fails the log for good: records of the failed batch may or may not have
+ * reached the file, so every later append, and every wait for a record that was not durable yet, rethrows that
+ * failure instead of reporting records durable that never were.
+ */
+final class WriteAheadLog implements AutoCloseable {
+    private static final int FRAME_HEADER_SIZE = 2 * Integer.BYTES;
+
+    private final    Lock        appendLock = new ReentrantLock();
+    private final    Lock        flushLock  = new ReentrantLock();
+    private final    CRC32C      crc        = new CRC32C();
+    private final    LongAdder   syncs      = new LongAdder();
+    private          ByteBuffer  pending    = ByteBuffer.allocate(64 * 1024);
+    private          ByteBuffer  spare      = ByteBuffer.allocate(64 * 1024);
+    private          long        appendedLsn;
+    private volatile long        durableLsn;
+    private volatile IOException failure;
+    private          FileChannel channel;
+
+    WriteAheadLog(Path file) throws IOException {
+        this.channel = open(file);
+    }
+
+    /**
+     * Copies a record into the current batch.
+     *
+     * @return the log sequence number to pass to {@link #awaitDurable(long)}
+     */
+    long append(int bodySize, Consumer<ByteBuffer> body) {
+        appendLock.lock();
+        try {
+            checkNotFailed();
+            ensureCapacity(FRAME_HEADER_SIZE + bodySize);
+            int start = pending.position();
+            pending.position(start + FRAME_HEADER_SIZE);
+            body.accept(pending);
+            crc.reset();
+            crc.update(pending
+                .duplicate()
+                .position(start + FRAME_HEADER_SIZE)
+                .limit(pending.position()));
+            pending.putInt(start, bodySize);
+            pending.putInt(start + Integer.BYTES, (int) crc.getValue());
+            return ++appendedLsn;
+        }
+        finally {
+            appendLock.unlock();
+        }
+    }
+
+    /**
+     * @return the sequence number of the last record appended
+     */
+    long lastLsn() {
+        appendLock.lock();
+        try {
+            return appendedLsn;
+        }
+        finally {
+            appendLock.unlock();
+        }
+    }
+
+    /**
+     * Blocks until the record with the given sequence number has been written and forced to the storage device.
+     *
+     * @throws UncheckedIOException when the log failed before the record became durable
+     */
+    void awaitDurable(long lsn) {
+        if (durableLsn >= lsn) {
+            return;
+        }
+        flushLock.lock();
+        try {
+            if (durableLsn < lsn) {
+                flushBatch();
+            }
+        }
+        finally {
+            flushLock.unlock();
+        }
+    }
+
+    /**
+     * Makes every appended record durable and continues the journal in a new file.
+     */
+    void rotate(Path file) throws IOException {
+        flushLock.lock();
+        try {
+            appendLock.lock();
+            try {
+                flushBatch();
+                channel.close();
+                channel = open(file);
+            }
+            catch (IOException e) {
+                failure = e;
+                throw e;
+            }
+            finally {
+                appendLock.unlock();
+            }
+        }
+        finally {
+            flushLock.unlock();
+        }
+    }
+
+    /**
+     * @return the number of fsyncs issued so far, i.e. the number of committed batches
+     */
+    long syncCount() {
+        return syncs.sum();
+    }
+
+    @Override public void close() throws IOException {
+        flushLock.lock();
+        try {
+            flushBatch();
+        }
+        finally {
+            channel.close();
+            flushLock.unlock();
+        }
+    }
+
+    /**
+     * Must be called with the flush lock held.
+     */
+    private void flushBatch() {
+        checkNotFailed();
+        ByteBuffer batch;
+        long batchLsn;
+        appendLock.lock();
+        try {
+            batch = pending;
+            batchLsn = appendedLsn;
+            pending = spare;
+        }
+        finally {
+            appendLock.unlock();
+        }
+        try {
+            batch.flip();
+            if (batch.hasRemaining()) {
+                while (batch.hasRemaining()) {
+                    channel.write(batch);
+                }
+                channel.force(false);
+                syncs.increment();
+            }
+        }
+        catch (IOException e) {
+            failure = e;
+            throw new UncheckedIOException(e);
+        }
+        finally {
+            batch.clear();
+            spare = batch;
+        }
+        durableLsn = batchLsn;
+    }
+
+    private void checkNotFailed() {
+        IOException failed = failure;
+        if (failed != null) {
+            throw new UncheckedIOException("Journal failed earlier.", failed);
+        }
+    }
+
+    private void ensureCapacity(int size) {
+        if (pending.remaining() < size) {
+            ByteBuffer grown = ByteBuffer.allocate(Math.max(pending.capacity() * 2, pending.position() + size));
+            pending.flip();
+            grown.put(pending);
+            pending = grown;
+        }
+    }
+
+    private static FileChannel open(Path file) throws IOException {
+        return FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+    }
+
+    /**
+     * Feeds the body of every intact record in {@code file} to {@code consumer}, in append order.
+     */
+    static void read(Path file, Consumer<ByteBuffer> consumer) throws IOException {
+        try (FileChannel reader = FileChannel.open(file, StandardOpenOption.READ)) {
+            MappedByteBuffer records = reader.map(FileChannel.MapMode.READ_ONLY, 0, reader.size());
+            CRC32C checksum = new CRC32C();
+            while (records.remaining() >= FRAME_HEADER_SIZE) {
+                int length = records.getInt();
+                int expectedCrc = records.getInt();
+                if (length <= 0 || length > records.remaining()) {
+                    return;
+                }
+                ByteBuffer body = records
+                    .slice()
+                    .limit(length);
+                checksum.reset();
+                checksum.update(body.duplicate());
+                if ((int) checksum.getValue() != expectedCrc) {
+                    return;
+                }
+                consumer.accept(body);
+                records.position(records.position() + length);
+            }
+        }
+    }
+}
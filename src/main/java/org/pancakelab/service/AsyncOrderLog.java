@@ -0,0 +1,246 @@
+package org.pancakelab.service;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import org.pancakelab.domain.log.OrderEvent;
+
+/**
+ * {@link OrderLog} that takes indexing off the caller's thread. {@link #log(OrderEvent)} claims a slot in a
+ * preallocated ring buffer shared by all producers and publishes the event there; a single consumer thread indexes
+ * the events in claim order, so the log keeps the order and the contents of the synchronous one.
+ * <p>
+ * Reads first wait for the consumer to index every event logged before the read started, which keeps a thread's
+ * own writes visible to its next read. When the ring is full, producers either wait for the consumer or drop the
+ * event, depending on the {@link OverflowPolicy}. How the idle consumer waits is set by the {@link WaitStrategy};
+ * waiting producers and readers always back off to yielding and parking, so they cannot starve the consumer of a CPU.
+ */
+public class AsyncOrderLog extends OrderLog {
+    public static final int DEFAULT_CAPACITY = 64 * 1024;
+
+    private static final long SLEEP_NANOS     = 50_000;
+    private static final long MAX_BLOCK_NANOS = 1_000_000;
+    /**
+     * Set in {@link #claimed} on close, so that no slot can be claimed once close has read the last claim.
+     */
+    private static final long CLOSED          = Long.MIN_VALUE;
+
+    /**
+     * How the consumer waits for events.
+     */
+    public enum WaitStrategy {
+        /**
+         * Spins on the CPU; lowest latency, but keeps a core busy while idle.
+         */
+        BUSY_SPIN,
+        /**
+         * Spins briefly, then yields the CPU between checks.
+         */
+        YIELDING,
+        /**
+         * Spins, yields, then sleeps for short intervals.
+         */
+        SLEEPING,
+        /**
+         * Parks the idle consumer until a producer wakes it up.
+         */
+        BLOCKING;
+
+        void idle(int attempt) {
+            if (this == BUSY_SPIN || attempt < 100) {
+                Thread.onSpinWait();
+            } else if (this == YIELDING || attempt < 200) {
+                Thread.yield();
+            } else {
+                LockSupport.parkNanos(SLEEP_NANOS);
+            }
+        }
+    }
+
+    /**
+     * What {@link #log(OrderEvent)} does when the ring buffer is full.
+     */
+    public enum OverflowPolicy {
+        /**
+         * Wait until the consumer frees a slot.
+         */
+        BLOCK,
+        /**
+         * Discard the event and count it in {@link #getDroppedEvents()}.
+         */
+        DROP
+    }
+
+    private final AtomicReferenceArray<OrderEvent> slots;
+    private final AtomicLongArray                  published;
+    private final int                              mask;
+    private final WaitStrategy                     waitStrategy;
+    private final OverflowPolicy                   overflowPolicy;
+    private final AtomicLong                       claimed = new AtomicLong();
+    private final LongAdder                        dropped = new LongAdder();
+    private final Thread                           consumer;
+    private volatile long                          consumed;
+    private volatile boolean                       consumerParked;
+
+    public AsyncOrderLog() {
+        this(RetentionPolicy.UNBOUNDED, DEFAULT_CAPACITY, WaitStrategy.SLEEPING, OverflowPolicy.BLOCK);
+    }
+
+    /**
+     * @param capacity the number of slots of the ring buffer, a power of two
+     */
+    public AsyncOrderLog(RetentionPolicy retention, int capacity, WaitStrategy waitStrategy, OverflowPolicy overflowPolicy) {
+        super(retention);
+        if (capacity <= 0 || Integer.bitCount(capacity) != 1) {
+            throw new IllegalArgumentException("Capacity must be a positive power of two.");
+        }
+        this.slots = new AtomicReferenceArray<>(capacity);
+        this.published = new AtomicLongArray(capacity);
+        for (int i = 0; i < capacity; i++) {
+            published.set(i, -1);
+        }
+        this.mask = capacity - 1;
+        this.waitStrategy = waitStrategy;
+        this.overflowPolicy = overflowPolicy;
+        this.consumer = new Thread(this::consume, "order-log-consumer");
+        consumer.setDaemon(true);
+        consumer.start();
+    }
+
+    /**
+     * Hands the event to the consumer thread and returns without indexing it.
+     *
+     * @throws IllegalStateException when the log is closed, or when it has to wait for a consumer that stopped
+     */
+    @Override public void log(OrderEvent event) {
+        long sequence;
+        int attempt = 0;
+        do {
+            sequence = claimed.get();
+            if ((sequence & CLOSED) != 0) {
+                throw new IllegalStateException("Order log is closed.");
+            }
+            if (sequence - consumed >= slots.length()) {
+                if (overflowPolicy == OverflowPolicy.DROP) {
+                    dropped.increment();
+                    return;
+                }
+                if (!consumer.isAlive()) {
+                    throw new IllegalStateException("Order log consumer stopped.");
+                }
+                backOff(attempt++);
+                continue;
+            }
+            if (claimed.compareAndSet(sequence, sequence + 1)) {
+                break;
+            }
+        } while (true);
+
+        int slot = (int) sequence & mask;
+        slots.lazySet(slot, event);
+        published.set(slot, sequence);
+        if (consumerParked) {
+            LockSupport.unpark(consumer);
+        }
+    }
+
+    @Override public List<OrderEvent> getEventsForOrder(UUID orderId) {
+        awaitConsumer();
+        return super.getEventsForOrder(orderId);
+    }
+
+    @Override public List<OrderEvent> getEventsByType(OrderEvent.EventType type) {
+        awaitConsumer();
+        return super.getEventsByType(type);
+    }
+
+    @Override public List<OrderEvent> getAllEvents() {
+        awaitConsumer();
+        return super.getAllEvents();
+    }
+
+    @Override public RetentionStats getRetentionStats() {
+        awaitConsumer();
+        return super.getRetentionStats();
+    }
+
+    /**
+     * @return the number of events discarded because the ring buffer was full
+     */
+    public long getDroppedEvents() {
+        return dropped.sum();
+    }
+
+    /**
+     * Stops accepting events, waits for the consumer to index the ones already logged, then stops it.
+     */
+    @Override public void close() {
+        claimed.getAndUpdate(sequence -> sequence | CLOSED);
+        awaitConsumer();
+        consumer.interrupt();
+        try {
+            consumer.join();
+        }
+        catch (InterruptedException e) {
+            Thread
+                .currentThread()
+                .interrupt();
+        }
+        super.close();
+    }
+
+    private void consume() {
+        long next = 0;
+        int attempt = 0;
+        while (!Thread.interrupted()) {
+            long available = next;
+            while (published.get((int) available & mask) == available) {
+                int slot = (int) available & mask;
+                OrderEvent event = slots.get(slot);
+                slots.lazySet(slot, null);
+                super.log(event);
+                available++;
+            }
+            if (available != next) {
+                // one volatile write per batch frees all its slots at once
+                consumed = available;
+                next = available;
+                attempt = 0;
+            } else if (waitStrategy == WaitStrategy.BLOCKING) {
+                consumerParked = true;
+                if (published.get((int) next & mask) != next) {
+                    LockSupport.parkNanos(this, MAX_BLOCK_NANOS);
+                }
+                consumerParked = false;
+            } else {
+                waitStrategy.idle(attempt++);
+            }
+        }
+    }
+
+    private void awaitConsumer() {
+        long target = claimed.get() & ~CLOSED;
+        int attempt = 0;
+        while (consumed < target && consumer.isAlive()) {
+            backOff(attempt++);
+        }
+    }
+
+    /**
+     * How producers and readers wait for the consumer, whatever its strategy: a thread spinning here could take the
+     * CPU the consumer needs to make progress.
+     */
+    private static void backOff(int attempt) {
+        if (attempt < 10) {
+            Thread.onSpinWait();
+        } else if (attempt < 20) {
+            Thread.yield();
+        } else {
+            LockSupport.parkNanos(SLEEP_NANOS);
+        }
+    }
+}
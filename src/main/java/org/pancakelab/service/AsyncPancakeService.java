@@ -0,0 +1,187 @@
+package org.pancakelab.service;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import org.pancakelab.concurrent.WorkerThreads;
+import org.pancakelab.domain.order.Order;
+import org.pancakelab.domain.shared.Address;
+import org.pancakelab.domain.shared.Ingredient;
+
+/**
+ * Non-blocking facade of a {@link PancakeService}. Every operation runs on the executor and returns a future of
+ * what the blocking call returns, or fails with what it throws.
+ * <p>
+ * Operations on the same order run one after another, in submission order, on that order's lane, so they never
+ * contend for the order; operations on different orders run in parallel. A lane is the tail of a future chain and
+ * exists only while it has work queued.
+ */
+public class AsyncPancakeService implements AutoCloseable {
+    private static final CompletableFuture<Void> IDLE = CompletableFuture.completedFuture(null);
+
+    private final PancakeService                     service;
+    private final Executor                           executor;
+    private final ExecutorService                    ownedExecutor;
+    private final Map<UUID, CompletableFuture<Void>> lanes = new ConcurrentHashMap<>();
+    private volatile boolean                         closed;
+
+    /**
+     * Runs operations on virtual threads, or on a pool of one platform thread per core on JDKs without
+     * virtual threads.
+     */
+    public AsyncPancakeService(PancakeService service) {
+        this(service, defaultExecutor(), true);
+    }
+
+    /**
+     * @param executor runs the operations; it is not shut down by {@link #close()}
+     */
+    public AsyncPancakeService(PancakeService service, Executor executor) {
+        this(service, executor, false);
+    }
+
+    private AsyncPancakeService(PancakeService service, Executor executor, boolean owned) {
+        this.service = service;
+        this.executor = executor;
+        this.ownedExecutor = owned ? (ExecutorService) executor : null;
+    }
+
+    public CompletableFuture<Order> createOrder(Address address) {
+        if (closed) {
+            return closedFuture();
+        }
+        // nobody can refer to the order before it exists, so it needs no lane
+        return CompletableFuture.supplyAsync(() -> service.createOrder(address), executor);
+    }
+
+    public CompletableFuture<Void> addCustomPancake(UUID orderId, List<Ingredient> ingredients, int count) {
+        return onLane(orderId, () -> {
+            service.addCustomPancake(orderId, ingredients, count);
+            return null;
+        });
+    }
+
+    public CompletableFuture<List<String>> viewOrder(UUID orderId) {
+        return onLane(orderId, () -> service.viewOrder(orderId));
+    }
+
+    public CompletableFuture<Void> removePancakes(String description, UUID orderId, int count) {
+        return onLane(orderId, () -> {
+            service.removePancakes(description, orderId, count);
+            return null;
+        });
+    }
+
+    public CompletableFuture<Void> cancelOrder(UUID orderId) {
+        return onLane(orderId, () -> {
+            service.cancelOrder(orderId);
+            return null;
+        });
+    }
+
+    public CompletableFuture<Void> completeOrder(UUID orderId) {
+        return onLane(orderId, () -> {
+            service.completeOrder(orderId);
+            return null;
+        });
+    }
+
+    public CompletableFuture<Void> prepareOrder(UUID orderId) {
+        return onLane(orderId, () -> {
+            service.prepareOrder(orderId);
+            return null;
+        });
+    }
+
+    public CompletableFuture<Object[]> deliverOrder(UUID orderId) {
+        return onLane(orderId, () -> service.deliverOrder(orderId));
+    }
+
+    public CompletableFuture<Set<UUID>> listCompletedOrders() {
+        if (closed) {
+            return closedFuture();
+        }
+        return CompletableFuture.supplyAsync(service::listCompletedOrders, executor);
+    }
+
+    public CompletableFuture<Set<UUID>> listPreparedOrders() {
+        if (closed) {
+            return closedFuture();
+        }
+        return CompletableFuture.supplyAsync(service::listPreparedOrders, executor);
+    }
+
+    /**
+     * @return the number of orders with queued or running operations
+     */
+    public int activeLanes() {
+        return lanes.size();
+    }
+
+    /**
+     * Stops accepting operations and waits for the queued ones to finish, then shuts down the default executor.
+     */
+    @Override public void close() {
+        closed = true;
+        CompletableFuture
+            .allOf(lanes
+                .values()
+                .toArray(CompletableFuture[]::new))
+            .join();
+        if (ownedExecutor != null) {
+            ownedExecutor.shutdown();
+            try {
+                ownedExecutor.awaitTermination(1, TimeUnit.MINUTES);
+            }
+            catch (InterruptedException e) {
+                Thread
+                    .currentThread()
+                    .interrupt();
+            }
+        }
+    }
+
+    private <T> CompletableFuture<T> onLane(UUID orderId, Supplier<T> operation) {
+        if (closed) {
+            return closedFuture();
+        }
+        CompletableFuture<T> result = new CompletableFuture<>();
+        // the lane itself never fails, so one failed operation does not hold up the next ones
+        CompletableFuture<Void> lane = lanes.compute(orderId, (id, previous) -> (previous == null ? IDLE : previous).handleAsync(
+            (ignored, failure) -> {
+                try {
+                    result.complete(operation.get());
+                }
+                catch (Throwable e) {
+                    result.completeExceptionally(e);
+                }
+                return null;
+            }, executor));
+        lane.whenComplete((ignored, failure) -> {
+            if (failure != null) {
+                // the executor rejected the operation
+                result.completeExceptionally(failure);
+            }
+            lanes.remove(orderId, lane);
+        });
+        return result;
+    }
+
+    private static <T> CompletableFuture<T> closedFuture() {
+        return CompletableFuture.failedFuture(new IllegalStateException("Service is closed."));
+    }
+
+    private static ExecutorService defaultExecutor() {
+        // virtual threads are cheap to start and must not be pooled, so each operation gets its own
+        return WorkerThreads.virtualExecutor("pancake-service-", Runtime
+            .getRuntime()
+            .availableProcessors());
+    }
+}
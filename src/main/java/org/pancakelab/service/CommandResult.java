@@ -0,0 +1,19 @@
+package org.pancakelab.service;
+
+/**
+ * The outcome of one {@link OrderCommand}: either the value documented on the command, which may be {@code null},
+ * or the exception the equivalent service call would have thrown.
+ */
+public record CommandResult(OrderCommand command, Object value, RuntimeException failure) {
+    static CommandResult success(OrderCommand command, Object value) {
+        return new CommandResult(command, value, null);
+    }
+
+    static CommandResult failure(OrderCommand command, RuntimeException failure) {
+        return new CommandResult(command, null, failure);
+    }
+
+    public boolean succeeded() {
+        return failure == null;
+    }
+}
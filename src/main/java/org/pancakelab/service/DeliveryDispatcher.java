@@ -0,0 +1,212 @@
+package org.pancakelab.service;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import org.pancakelab.concurrent.WorkerThreads;
+import org.pancakelab.domain.order.Order;
+import org.pancakelab.domain.order.OrderListener;
+import org.pancakelab.domain.order.OrderStatus;
+
+/**
+ * Delivers prepared orders in trips. Every order prepared through the {@link PancakeService} joins the pending
+ * batch of its building; a batch leaves as soon as it holds {@code maxBatchSize} orders or its first order has
+ * waited {@code maxWait}, whichever comes first. A courier thread then delivers the batch room by room through
+ * {@link PancakeService#deliverOrders(List)} and hands the resulting {@link DeliveryTrip} to the trip consumer.
+ * Orders already prepared when the dispatcher starts are batched too.
+ */
+public class DeliveryDispatcher implements AutoCloseable {
+    private final PancakeService           service;
+    private final int                      maxBatchSize;
+    private final Duration                 maxWait;
+    private final Consumer<DeliveryTrip>   onTrip;
+    private final Lock                     batchLock = new ReentrantLock();
+    private final Map<Integer, Batch>      pending   = new HashMap<>();
+    private final ScheduledExecutorService timer;
+    private final ExecutorService          courier;
+    private final LongAdder                trips     = new LongAdder();
+    private final LongAdder                delivered = new LongAdder();
+    private boolean                        closed;
+    private final OrderListener            listener  = (order, previous, current) -> {
+        if (current == OrderStatus.PREPARED) {
+            enqueue(order);
+        }
+    };
+
+    private record Stop(UUID orderId, int room) {
+    }
+
+    private static final class Batch {
+        private final int        building;
+        private final List<Stop> stops = new ArrayList<>();
+
+        private Batch(int building) {
+            this.building = building;
+        }
+    }
+
+    public DeliveryDispatcher(PancakeService service, int maxBatchSize, Duration maxWait) {
+        this(service, maxBatchSize, maxWait, trip -> {
+        });
+    }
+
+    public DeliveryDispatcher(PancakeService service, int maxBatchSize, Duration maxWait, Consumer<DeliveryTrip> onTrip) {
+        if (maxBatchSize <= 0) {
+            throw new IllegalArgumentException("Batch size must be positive.");
+        }
+        if (maxWait.isNegative() || maxWait.isZero()) {
+            throw new IllegalArgumentException("Maximum wait must be positive.");
+        }
+        this.service = service;
+        this.maxBatchSize = maxBatchSize;
+        this.maxWait = maxWait;
+        this.onTrip = onTrip;
+        this.timer = Executors.newSingleThreadScheduledExecutor(WorkerThreads.factory(WorkerThreads.Kind.PLATFORM, "delivery-timer-"));
+        this.courier = Executors.newSingleThreadExecutor(WorkerThreads.factory(WorkerThreads.Kind.PLATFORM, "courier-"));
+
+        service.addOrderListener(listener);
+        for (Order order : service.findOrdersByStatus(OrderStatus.PREPARED)) {
+            enqueue(order);
+        }
+    }
+
+    /**
+     * Sends every pending batch out now, without waiting for it to fill up or time out.
+     */
+    public void flush() {
+        List<Batch> batches;
+        batchLock.lock();
+        try {
+            batches = new ArrayList<>(pending.values());
+            pending.clear();
+        }
+        finally {
+            batchLock.unlock();
+        }
+        batches.forEach(this::dispatch);
+    }
+
+    /**
+     * @return the number of trips made so far
+     */
+    public long tripCount() {
+        return trips.sum();
+    }
+
+    /**
+     * @return the number of orders delivered so far
+     */
+    public long deliveredOrders() {
+        return delivered.sum();
+    }
+
+    /**
+     * Stops batching new orders, sends out the pending batches and waits for the courier to come back. Orders prepared
+     * while closing are left prepared.
+     */
+    @Override public void close() {
+        service.removeOrderListener(listener);
+        batchLock.lock();
+        try {
+            closed = true;
+        }
+        finally {
+            batchLock.unlock();
+        }
+        timer.shutdownNow();
+        flush();
+        courier.shutdown();
+        try {
+            courier.awaitTermination(1, TimeUnit.MINUTES);
+        }
+        catch (InterruptedException e) {
+            Thread
+                .currentThread()
+                .interrupt();
+        }
+    }
+
+    private void enqueue(Order order) {
+        int building = order
+            .getAddress()
+            .building();
+        Batch full = null;
+        batchLock.lock();
+        try {
+            if (closed) {
+                // a notification that was already under way when the listener was removed
+                return;
+            }
+            Batch batch = pending.get(building);
+            if (batch == null) {
+                Batch created = new Batch(building);
+                pending.put(building, created);
+                batch = created;
+                timer.schedule(() -> release(created), maxWait.toNanos(), TimeUnit.NANOSECONDS);
+            }
+            batch.stops.add(new Stop(order.getId(), order
+                .getAddress()
+                .room()));
+            if (batch.stops.size() >= maxBatchSize) {
+                pending.remove(building);
+                full = batch;
+            }
+        }
+        finally {
+            batchLock.unlock();
+        }
+        if (full != null) {
+            dispatch(full);
+        }
+    }
+
+    /**
+     * Sends {@code batch} out when its wait is over, unless it already left because it filled up.
+     */
+    private void release(Batch batch) {
+        batchLock.lock();
+        try {
+            if (!pending.remove(batch.building, batch)) {
+                return;
+            }
+        }
+        finally {
+            batchLock.unlock();
+        }
+        dispatch(batch);
+    }
+
+    private void dispatch(Batch batch) {
+        List<UUID> route = batch.stops
+            .stream()
+            .sorted(Comparator.comparingInt(Stop::room))
+            .map(Stop::orderId)
+            .toList();
+        Runnable trip = () -> {
+            List<DeliveryReceipt> receipts = service.deliverOrders(route);
+            trips.increment();
+            delivered.add(receipts.size());
+            onTrip.accept(new DeliveryTrip(batch.building, receipts));
+        };
+        try {
+            courier.execute(trip);
+        }
+        catch (RejectedExecutionException e) {
+            // the batch filled up while the dispatcher closed and the courier is gone, so make the trip here
+            trip.run();
+        }
+    }
+}
@@ -0,0 +1,13 @@
+package org.pancakelab.service;
+
+import java.util.List;
+import java.util.UUID;
+import org.pancakelab.domain.shared.Address;
+
+/**
+ * Proof of delivery of one order.
+ *
+ * @param pancakes the descriptions of the delivered pancakes
+ */
+public record DeliveryReceipt(UUID orderId, Address address, List<String> pancakes) {
+}
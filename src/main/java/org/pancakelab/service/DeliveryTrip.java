@@ -0,0 +1,11 @@
+package org.pancakelab.service;
+
+import java.util.List;
+
+/**
+ * One courier run through a building, delivering orders room by room.
+ *
+ * @param receipts the delivered orders, in ascending room order
+ */
+public record DeliveryTrip(int building, List<DeliveryReceipt> receipts) {
+}
@@ -0,0 +1,126 @@
+package org.pancakelab.service;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import org.pancakelab.concurrent.WorkerThreads;
+import org.pancakelab.domain.order.OrderListener;
+import org.pancakelab.domain.order.OrderStatus;
+import org.pancakelab.metrics.LatencyHistogram;
+
+/**
+ * Prepares orders as soon as they are completed. Every order completed through the {@link PancakeService} is
+ * queued, and a pool of chef workers takes orders from the queue, cooks for {@code cookingTime} and calls
+ * {@link PancakeService#prepareOrder(UUID)}. Orders already completed when the kitchen opens are queued too.
+ */
+public class Kitchen implements AutoCloseable {
+    private final PancakeService        service;
+    private final Duration              cookingTime;
+    private final BlockingQueue<Ticket> tickets       = new LinkedBlockingQueue<>();
+    private final List<Thread>          chefs         = new ArrayList<>();
+    private final LatencyHistogram      timeToPrepare = new LatencyHistogram();
+    private final LongAdder             prepared      = new LongAdder();
+    private final LongAdder             skipped       = new LongAdder();
+    private final LongAdder             failed        = new LongAdder();
+    private final long                  openedAt;
+    private final OrderListener         listener      = (order, previous, current) -> {
+        if (current == OrderStatus.COMPLETED) {
+            tickets.add(new Ticket(order.getId(), System.nanoTime()));
+        }
+    };
+
+    private record Ticket(UUID orderId, long completedAt) {
+    }
+
+    public Kitchen(PancakeService service, int chefCount, Duration cookingTime) {
+        this(service, chefCount, cookingTime, WorkerThreads.Kind.VIRTUAL);
+    }
+
+    /**
+     * @param threads the kind of thread each chef runs on; virtual threads fall back to platform threads on JDKs
+     *                without them
+     */
+    public Kitchen(PancakeService service, int chefCount, Duration cookingTime, WorkerThreads.Kind threads) {
+        if (chefCount <= 0) {
+            throw new IllegalArgumentException("A kitchen needs at least one chef.");
+        }
+        if (cookingTime.isNegative()) {
+            throw new IllegalArgumentException("Cooking time cannot be negative.");
+        }
+        this.service = service;
+        this.cookingTime = cookingTime;
+        this.openedAt = System.nanoTime();
+
+        service.addOrderListener(listener);
+        for (UUID orderId : service.listCompletedOrders()) {
+            tickets.add(new Ticket(orderId, openedAt));
+        }
+        ThreadFactory factory = WorkerThreads.factory(threads, "chef-");
+        for (int i = 0; i < chefCount; i++) {
+            Thread chef = factory.newThread(this::cook);
+            chefs.add(chef);
+            chef.start();
+        }
+    }
+
+    public KitchenStats getStats() {
+        long preparedOrders = prepared.sum();
+        double elapsedSeconds = (System.nanoTime() - openedAt) / (double) TimeUnit.SECONDS.toNanos(1);
+        return new KitchenStats(tickets.size(), preparedOrders, skipped.sum(), failed.sum(), preparedOrders / elapsedSeconds, timeToPrepare.percentile(50),
+            timeToPrepare.percentile(90), timeToPrepare.percentile(99), timeToPrepare.max());
+    }
+
+    /**
+     * Stops taking new orders and stops the chefs; an order being cooked is abandoned and stays completed.
+     */
+    @Override public void close() {
+        service.removeOrderListener(listener);
+        for (Thread chef : chefs) {
+            chef.interrupt();
+        }
+        for (Thread chef : chefs) {
+            try {
+                chef.join();
+            }
+            catch (InterruptedException e) {
+                Thread
+                    .currentThread()
+                    .interrupt();
+                return;
+            }
+        }
+    }
+
+    private void cook() {
+        try {
+            while (true) {
+                Ticket ticket = tickets.take();
+                if (!cookingTime.isZero()) {
+                    Thread.sleep(cookingTime.toMillis(), cookingTime.toNanosPart() % 1_000_000);
+                }
+                try {
+                    service.prepareOrder(ticket.orderId());
+                    timeToPrepare.record(System.nanoTime() - ticket.completedAt());
+                    prepared.increment();
+                }
+                catch (IllegalArgumentException | IllegalStateException e) {
+                    // the order was deleted, or prepared by someone else meanwhile
+                    skipped.increment();
+                }
+                catch (RuntimeException e) {
+                    // e.g. the repository failed; this chef carries on with the next order
+                    failed.increment();
+                }
+            }
+        }
+        catch (InterruptedException e) {
+            // kitchen closed
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package org.pancakelab.service;
+
+import java.time.Duration;
+
+/**
+ * Point-in-time view of a {@link Kitchen}.
+ *
+ * @param queueDepth          completed orders waiting for a chef
+ * @param preparedOrders      orders prepared since the kitchen opened
+ * @param skippedOrders       queued orders that were no longer waiting to be prepared when a chef took them
+ * @param failedOrders        orders whose preparation failed unexpectedly, e.g. because the repository threw
+ * @param ordersPerSecond     prepared orders per second since the kitchen opened
+ * @param timeToPrepareMedian time from completion to preparation, 50th percentile
+ * @param timeToPrepareP90    90th percentile
+ * @param timeToPrepareP99    99th percentile
+ * @param timeToPrepareMax    slowest preparation
+ */
+public record KitchenStats(int queueDepth,
+                           long preparedOrders,
+                           long skippedOrders,
+                           long failedOrders,
+                           double ordersPerSecond,
+                           Duration timeToPrepareMedian,
+                           Duration timeToPrepareP90,
+                           Duration timeToPrepareP99,
+                           Duration timeToPrepareMax
+) {
+}
@@ -0,0 +1,235 @@
+package org.pancakelab.service;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+import org.pancakelab.domain.log.OrderEvent;
+import org.pancakelab.domain.shared.Address;
+
+/**
+ * {@link OrderLog} that also appends every event to memory-mapped segment files, and replays them on startup to
+ * rebuild the in-memory indexes.
+ * <p>
+ * Each record is {@code [int length][long uuidMsb][long uuidLsb][long epochNanos][byte type][byte template]}
+ * followed by the typed fields {@code [int count][long recipeId][int remainingItems][int building][int room]}, or,
+ * for {@link OrderEvent.Template#TEXT} events only, by {@code [int detailsLength][UTF-8 details]}. Details are thus
+ * never rendered to be written, and replayed events are typed again. The length prefix is written after the body,
+ * so a record torn by a crash reads as the end of the segment. A segment is rolled over when the next record does
+ * not fit.
+ */
+public class MappedOrderLog extends OrderLog {
+    public static final int DEFAULT_SEGMENT_SIZE = 64 * 1024 * 1024;
+
+    private static final String SEGMENT_PREFIX = "orderlog-";
+    private static final String SEGMENT_SUFFIX = ".seg";
+    private static final int    HEADER_SIZE    = Integer.BYTES;
+    private static final int    FIXED_SIZE     = 3 * Long.BYTES + 2 * Byte.BYTES;
+    private static final int    TYPED_SIZE     = Long.BYTES + 4 * Integer.BYTES;
+
+    private static final OrderEvent.EventType[] EVENT_TYPES = OrderEvent.EventType.values();
+    private static final OrderEvent.Template[]  TEMPLATES   = OrderEvent.Template.values();
+
+    private final Path             directory;
+    private final int              segmentSize;
+    private final Lock             appendLock = new ReentrantLock();
+    private       long             segmentIndex;
+    private       FileChannel      channel;
+    private       MappedByteBuffer segment;
+
+    public MappedOrderLog(Path directory) throws IOException {
+        this(directory, RetentionPolicy.UNBOUNDED, DEFAULT_SEGMENT_SIZE);
+    }
+
+    public MappedOrderLog(Path directory, RetentionPolicy retention, int segmentSize) throws IOException {
+        super(retention);
+        if (segmentSize < HEADER_SIZE + FIXED_SIZE + TYPED_SIZE) {
+            throw new IllegalArgumentException("Segment size is too small: " + segmentSize);
+        }
+        this.directory = Files.createDirectories(directory);
+        this.segmentSize = segmentSize;
+
+        List<Path> segments = listSegments();
+        for (Path path : segments) {
+            if (channel != null) {
+                channel.close();
+            }
+            openSegment(path);
+            replaySegment(path);
+            segmentIndex = indexOf(path);
+        }
+        if (segment == null) {
+            openSegment(segmentPath(segmentIndex));
+        }
+    }
+
+    @Override public void log(OrderEvent event) {
+        append(event);
+    }
+
+    /**
+     * Forces the current segment to the storage device.
+     */
+    public void flush() {
+        appendLock.lock();
+        try {
+            segment.force();
+        }
+        finally {
+            appendLock.unlock();
+        }
+    }
+
+    @Override public void close() {
+        appendLock.lock();
+        try {
+            segment.force();
+            channel.close();
+        }
+        catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        finally {
+            appendLock.unlock();
+            super.close();
+        }
+    }
+
+    private void append(OrderEvent event) {
+        byte[] details = event.template() == OrderEvent.Template.TEXT ? event
+            .details()
+            .getBytes(StandardCharsets.UTF_8) : null;
+        int length = FIXED_SIZE + (details == null ? TYPED_SIZE : Integer.BYTES + details.length);
+        if (HEADER_SIZE + length > segmentSize) {
+            throw new IllegalArgumentException("Event does not fit in a segment: " + length + " bytes.");
+        }
+
+        appendLock.lock();
+        try {
+            if (segment.remaining() < HEADER_SIZE + length) {
+                rollOver();
+            }
+            int start = segment.position();
+            segment.position(start + HEADER_SIZE);
+            segment.putLong(event
+                .orderId()
+                .getMostSignificantBits());
+            segment.putLong(event
+                .orderId()
+                .getLeastSignificantBits());
+            segment.putLong(event.epochNanos());
+            segment.put((byte) event
+                .type()
+                .ordinal());
+            segment.put((byte) event
+                .template()
+                .ordinal());
+            if (details == null) {
+                segment.putInt(event.count());
+                segment.putLong(event.recipeId());
+                segment.putInt(event.remainingItems());
+                Address address = event.address();
+                segment.putInt(address == null ? 0 : address.building());
+                segment.putInt(address == null ? 0 : address.room());
+            } else {
+                segment.putInt(details.length);
+                segment.put(details);
+            }
+            segment.putInt(start, length);
+            // indexed under the append lock so that in-memory order always matches replay order
+            super.log(event);
+        }
+        finally {
+            appendLock.unlock();
+        }
+    }
+
+    private void rollOver() {
+        try {
+            segment.force();
+            channel.close();
+            openSegment(segmentPath(++segmentIndex));
+        }
+        catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void replaySegment(Path path) {
+        while (segment.remaining() >= HEADER_SIZE + FIXED_SIZE) {
+            int start = segment.position();
+            int length = segment.getInt();
+            if (length <= 0 || length > segment.remaining()) {
+                segment.position(start);
+                return;
+            }
+            UUID orderId = new UUID(segment.getLong(), segment.getLong());
+            long epochNanos = segment.getLong();
+            OrderEvent.EventType type = EVENT_TYPES[checkOrdinal(segment.get(), EVENT_TYPES.length, "event type", path, start)];
+            OrderEvent.Template template = TEMPLATES[checkOrdinal(segment.get(), TEMPLATES.length, "template", path, start)];
+            if (template == OrderEvent.Template.TEXT) {
+                int detailsLength = segment.getInt();
+                if (detailsLength < 0 || detailsLength != length - FIXED_SIZE - Integer.BYTES) {
+                    throw new IllegalStateException("Corrupt order log segment " + path + " at offset " + start + ": details length "
+                        + detailsLength + " does not match the record.");
+                }
+                byte[] details = new byte[detailsLength];
+                segment.get(details);
+                super.log(new OrderEvent(orderId, epochNanos, type, new String(details, StandardCharsets.UTF_8)));
+            } else {
+                int count = segment.getInt();
+                long recipeId = segment.getLong();
+                int remainingItems = segment.getInt();
+                int building = segment.getInt();
+                int room = segment.getInt();
+                Address address = template == OrderEvent.Template.ORDER_DELIVERED ? new Address(building, room) : null;
+                super.log(OrderEvent.restore(orderId, epochNanos, type, template, count, recipeId, address, remainingItems));
+            }
+        }
+    }
+
+    private static int checkOrdinal(byte ordinal, int count, String field, Path path, int offset) {
+        if (ordinal < 0 || ordinal >= count) {
+            throw new IllegalStateException("Corrupt order log segment " + path + " at offset " + offset + ": unknown " + field + " " + ordinal
+                + ".");
+        }
+        return ordinal;
+    }
+
+    private void openSegment(Path path) throws IOException {
+        channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        segment = channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentSize);
+    }
+
+    private List<Path> listSegments() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files
+                .filter(path -> path
+                    .getFileName()
+                    .toString()
+                    .startsWith(SEGMENT_PREFIX))
+                .sorted()
+                .toList();
+        }
+    }
+
+    private Path segmentPath(long index) {
+        return directory.resolve(SEGMENT_PREFIX + "%016d".formatted(index) + SEGMENT_SUFFIX);
+    }
+
+    private static long indexOf(Path segment) {
+        String name = segment
+            .getFileName()
+            .toString();
+        return Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+    }
+}
@@ -0,0 +1,213 @@
+package org.pancakelab.service;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import org.pancakelab.domain.log.EventClock;
+import org.pancakelab.domain.log.OrderEvent;
+import org.pancakelab.domain.pancake.RecipeRegistry;
+import org.pancakelab.domain.shared.IngredientName;
+
+/**
+ * Running aggregates over the events of an {@link OrderLog}, updated as each event is indexed so that queries never
+ * walk the log. Counts are kept in {@link LongAdder}s, which concurrent writers update without contending: pancakes
+ * added and removed per ingredient, delivered orders per building, events per type, and events per type in
+ * fixed-width time buckets that answer sliding-window queries up to {@link #windowSpan()} long.
+ * <p>
+ * Buckets are reused round-robin, so an event older than the span by the time it is logged is left out of the
+ * windowed counts. Window boundaries are rounded to whole buckets.
+ */
+public class OrderAnalytics implements OrderLogListener {
+    public static final Duration DEFAULT_BUCKET_WIDTH = Duration.ofSeconds(1);
+    public static final int      DEFAULT_BUCKETS      = 300;
+
+    private static final IngredientName[]       INGREDIENTS = IngredientName.values();
+    private static final OrderEvent.EventType[] TYPES       = OrderEvent.EventType.values();
+
+    private final EventClock                   clock;
+    private final long                         bucketNanos;
+    private final AtomicReferenceArray<Bucket> buckets;
+    private final LongAdder[]                  pancakesAdded       = adders(INGREDIENTS.length);
+    private final LongAdder[]                  pancakesRemoved     = adders(INGREDIENTS.length);
+    private final LongAdder[]                  events              = adders(TYPES.length);
+    private final Map<Integer, LongAdder>      deliveredByBuilding = new ConcurrentHashMap<>();
+
+    public OrderAnalytics(EventClock clock) {
+        this(clock, DEFAULT_BUCKET_WIDTH, DEFAULT_BUCKETS);
+    }
+
+    /**
+     * @param clock       the clock windows end at, normally the one that timestamps the events
+     * @param bucketWidth the granularity of windowed counts
+     * @param buckets     the number of buckets, which with their width bounds the longest window
+     */
+    public OrderAnalytics(EventClock clock, Duration bucketWidth, int buckets) {
+        if (bucketWidth.isNegative() || bucketWidth.isZero()) {
+            throw new IllegalArgumentException("Bucket width must be positive.");
+        }
+        if (buckets <= 0) {
+            throw new IllegalArgumentException("Bucket count must be positive.");
+        }
+        this.clock = clock;
+        this.bucketNanos = bucketWidth.toNanos();
+        this.buckets = new AtomicReferenceArray<>(buckets);
+    }
+
+    /**
+     * Creates analytics with the default buckets that follow {@code orderLog} from now on.
+     */
+    public static OrderAnalytics attachTo(OrderLog orderLog) {
+        OrderAnalytics analytics = new OrderAnalytics(orderLog.clock());
+        orderLog.addListener(analytics);
+        return analytics;
+    }
+
+    @Override public void onLogged(OrderEvent event) {
+        int type = event
+            .type()
+            .ordinal();
+        events[type].increment();
+        switch (event.template()) {
+            case PANCAKES_ADDED -> countIngredients(pancakesAdded, event.recipeId(), event.count());
+            case PANCAKES_REMOVED -> countIngredients(pancakesRemoved, event.recipeId(), event.count());
+            case ORDER_DELIVERED -> deliveredByBuilding
+                .computeIfAbsent(event
+                    .address()
+                    .building(), building -> new LongAdder())
+                .increment();
+            default -> {
+            }
+        }
+        Bucket bucket = bucketFor(Math.floorDiv(event.epochNanos(), bucketNanos));
+        if (bucket != null) {
+            bucket.events[type].increment();
+        }
+    }
+
+    /**
+     * @return the number of pancakes containing {@code ingredient} added to orders
+     */
+    public long pancakesAdded(IngredientName ingredient) {
+        return pancakesAdded[ingredient.ordinal()].sum();
+    }
+
+    /**
+     * @return the number of pancakes containing {@code ingredient} removed from orders
+     */
+    public long pancakesRemoved(IngredientName ingredient) {
+        return pancakesRemoved[ingredient.ordinal()].sum();
+    }
+
+    /**
+     * @return pancakes containing {@code ingredient} added minus those removed again
+     */
+    public long pancakesOrdered(IngredientName ingredient) {
+        return pancakesAdded(ingredient) - pancakesRemoved(ingredient);
+    }
+
+    /**
+     * @return the number of orders delivered to {@code building}
+     */
+    public long deliveredOrders(int building) {
+        LongAdder delivered = deliveredByBuilding.get(building);
+        return delivered == null ? 0 : delivered.sum();
+    }
+
+    public long events(OrderEvent.EventType type) {
+        return events[type.ordinal()].sum();
+    }
+
+    /**
+     * @return the share of cancelled orders among cancelled and delivered ones, or zero before either happened
+     */
+    public double cancelRate() {
+        return rate(events(OrderEvent.EventType.CANCEL_ORDER), events(OrderEvent.EventType.DELIVER_ORDER));
+    }
+
+    /**
+     * @return the number of events of {@code type} in the {@code window} up to now
+     * @throws IllegalArgumentException when the window is longer than {@link #windowSpan()}
+     */
+    public long events(OrderEvent.EventType type, Duration window) {
+        long newest = Math.floorDiv(clock.epochNanos(), bucketNanos);
+        long oldest = newest - bucketsIn(window) + 1;
+        long count = 0;
+        for (int slot = 0; slot < buckets.length(); slot++) {
+            Bucket bucket = buckets.get(slot);
+            if (bucket != null && bucket.index >= oldest && bucket.index <= newest) {
+                count += bucket.events[type.ordinal()].sum();
+            }
+        }
+        return count;
+    }
+
+    /**
+     * @return the cancel rate of the orders that ended in the {@code window} up to now
+     */
+    public double cancelRate(Duration window) {
+        return rate(events(OrderEvent.EventType.CANCEL_ORDER, window), events(OrderEvent.EventType.DELIVER_ORDER, window));
+    }
+
+    /**
+     * @return the longest window the windowed queries accept
+     */
+    public Duration windowSpan() {
+        return Duration.ofNanos(bucketNanos * buckets.length());
+    }
+
+    private int bucketsIn(Duration window) {
+        long nanos = window.toNanos();
+        if (nanos <= 0 || nanos > bucketNanos * buckets.length()) {
+            throw new IllegalArgumentException("Window must be positive and at most " + windowSpan() + ".");
+        }
+        return (int) ((nanos + bucketNanos - 1) / bucketNanos);
+    }
+
+    /**
+     * @return the bucket counting events of bucket {@code index}, or {@code null} when its slot already moved on
+     */
+    private Bucket bucketFor(long index) {
+        int slot = (int) Math.floorMod(index, (long) buckets.length());
+        Bucket bucket = buckets.get(slot);
+        while (bucket == null || bucket.index < index) {
+            Bucket fresh = new Bucket(index);
+            if (buckets.compareAndSet(slot, bucket, fresh)) {
+                return fresh;
+            }
+            bucket = buckets.get(slot);
+        }
+        return bucket.index == index ? bucket : null;
+    }
+
+    private static void countIngredients(LongAdder[] counters, long recipeId, int count) {
+        for (IngredientName ingredient : INGREDIENTS) {
+            if ((recipeId & RecipeRegistry.bitOf(ingredient)) != 0) {
+                counters[ingredient.ordinal()].add(count);
+            }
+        }
+    }
+
+    private static double rate(long cancelled, long delivered) {
+        long ended = cancelled + delivered;
+        return ended == 0 ? 0 : (double) cancelled / ended;
+    }
+
+    private static LongAdder[] adders(int count) {
+        LongAdder[] adders = new LongAdder[count];
+        for (int i = 0; i < count; i++) {
+            adders[i] = new LongAdder();
+        }
+        return adders;
+    }
+
+    private static final class Bucket {
+        final long        index;
+        final LongAdder[] events = adders(TYPES.length);
+
+        Bucket(long index) {
+            this.index = index;
+        }
+    }
+}
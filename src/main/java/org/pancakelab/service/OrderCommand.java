@@ -0,0 +1,62 @@
+package org.pancakelab.service;
+
+import java.util.List;
+import java.util.UUID;
+import org.pancakelab.domain.order.OrderIdGenerator;
+import org.pancakelab.domain.shared.Address;
+import org.pancakelab.domain.shared.Ingredient;
+
+/**
+ * A single change to one order, applied together with others by {@link PancakeService#execute(List)}. Each command
+ * does what the service method of the same name does.
+ */
+public sealed interface OrderCommand {
+    /**
+     * @return the order the command applies to
+     */
+    UUID orderId();
+
+    /**
+     * Creates an order with an identity chosen by the caller, so that later commands of the same batch can refer
+     * to it. Succeeds with the created {@link org.pancakelab.domain.order.Order}.
+     */
+    record Create(UUID orderId, Address address) implements OrderCommand {
+        /**
+         * @return a command creating an order with a {@linkplain OrderIdGenerator#timeOrdered() time-ordered} id
+         */
+        public static Create newOrder(Address address) {
+            return newOrder(address, OrderIdGenerator.timeOrdered());
+        }
+
+        public static Create newOrder(Address address, OrderIdGenerator idGenerator) {
+            return new Create(idGenerator.nextId(), address);
+        }
+    }
+
+    /**
+     * Succeeds with the number of pancakes added.
+     */
+    record AddPancakes(UUID orderId, List<Ingredient> ingredients, int count) implements OrderCommand {
+    }
+
+    /**
+     * Succeeds with the number of pancakes removed.
+     */
+    record RemovePancakes(UUID orderId, String description, int count) implements OrderCommand {
+    }
+
+    record Complete(UUID orderId) implements OrderCommand {
+    }
+
+    record Cancel(UUID orderId) implements OrderCommand {
+    }
+
+    record Prepare(UUID orderId) implements OrderCommand {
+    }
+
+    /**
+     * Succeeds with the {@link DeliveryReceipt}.
+     */
+    record Deliver(UUID orderId) implements OrderCommand {
+    }
+}
@@ -1,35 +1,271 @@
 package org.pancakelab.service;
 
+import java.util.EnumMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Queue;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import org.pancakelab.domain.log.EventClock;
 import org.pancakelab.domain.log.OrderEvent;
+import org.pancakelab.metrics.OrderLogAppendEvent;
 
-public class OrderLog {
-    private final Queue<OrderEvent> events = new ConcurrentLinkedQueue<>();
+/**
+ * Append-only audit log of order events. Every event is stamped with a log-wide sequence number and indexed by
+ * order id and by type, so lookups only touch the events they return while all views keep insertion order. The
+ * log's {@link EventClock} timestamps the events created for it and decides which events are too old to retain.
+ * <p>
+ * A bounded {@link RetentionPolicy} starts a background thread that evicts events one by one from the concurrent
+ * indexes, so neither writers nor readers are ever paused by an eviction pass.
+ * <p>
+ * {@link OrderLogListener}s see every event indexed after they were added, and are not told about evictions. An
+ * exception thrown by a listener is counted and otherwise ignored.
+ */
+public class OrderLog implements AutoCloseable {
+    private final AtomicLong                                                          sequence      = new AtomicLong();
+    private final ConcurrentNavigableMap<Long, OrderEvent>                            events        = new ConcurrentSkipListMap<>();
+    private final Map<UUID, ConcurrentNavigableMap<Long, OrderEvent>>                 eventsByOrder = new ConcurrentHashMap<>();
+    private final Map<OrderEvent.EventType, ConcurrentNavigableMap<Long, OrderEvent>> eventsByType  = new EnumMap<>(OrderEvent.EventType.class);
+
+    private final RetentionPolicy           retention;
+    private final EventClock                clock;
+    private final ScheduledExecutorService  evictor;
+    private final AtomicLong                retained             = new AtomicLong();
+    private final Queue<TerminatedOrder>    terminatedOrders     = new ConcurrentLinkedQueue<>();
+    private final LongAdder                 evictedByCount       = new LongAdder();
+    private final LongAdder                 evictedByAge         = new LongAdder();
+    private final LongAdder                 evictedAfterTerminal = new LongAdder();
+    private final List<OrderLogListener>    listeners            = new CopyOnWriteArrayList<>();
+    private final LongAdder                 listenerFailures     = new LongAdder();
+
+    public OrderLog() {
+        this(RetentionPolicy.UNBOUNDED);
+    }
+
+    public OrderLog(RetentionPolicy retention) {
+        this(retention, EventClock.system());
+    }
+
+    public OrderLog(RetentionPolicy retention, EventClock clock) {
+        this.retention = retention;
+        this.clock = clock;
+        for (OrderEvent.EventType type : OrderEvent.EventType.values()) {
+            eventsByType.put(type, new ConcurrentSkipListMap<>());
+        }
+        if (retention.isBounded()) {
+            long interval = retention
+                .evictionInterval()
+                .toNanos();
+            evictor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "order-log-evictor");
+                thread.setDaemon(true);
+                return thread;
+            });
+            evictor.scheduleWithFixedDelay(this::evict, interval, interval, TimeUnit.NANOSECONDS);
+        } else {
+            evictor = null;
+        }
+    }
 
     public void log(OrderEvent event) {
-        events.add(event);
+        OrderLogAppendEvent appendEvent = new OrderLogAppendEvent();
+        appendEvent.begin();
+        Long position = sequence.incrementAndGet();
+        event.assignSequence(position);
+        ConcurrentNavigableMap<Long, OrderEvent> indexed = eventsByOrder.compute(event.orderId(), (orderId, orderEvents) -> {
+            if (orderEvents == null) {
+                orderEvents = new ConcurrentSkipListMap<>();
+            }
+            orderEvents.put(position, event);
+            return orderEvents;
+        });
+        eventsByType
+            .get(event.type())
+            .put(position, event);
+        retained.incrementAndGet();
+        // published last: the evictor walks this map, so it must only ever see fully indexed events
+        events.put(position, event);
+        if (eventsByOrder.get(event.orderId()) != indexed && events.remove(position, event)) {
+            // the evictor dropped the events of this terminated order before this one was published
+            eventsByType
+                .get(event.type())
+                .remove(position);
+            retained.decrementAndGet();
+            evictedAfterTerminal.increment();
+        }
+        for (OrderLogListener listener : listeners) {
+            try {
+                listener.onLogged(event);
+            }
+            catch (RuntimeException e) {
+                // the event is logged already; a failing listener must not fail the caller or stop the next one
+                listenerFailures.increment();
+            }
+        }
+
+        if (retention.terminalGracePeriod() != null && isTerminal(event.type())) {
+            long deadline = clock.epochNanos() + retention
+                .terminalGracePeriod()
+                .toNanos();
+            terminatedOrders.add(new TerminatedOrder(event.orderId(), deadline));
+        }
+        if (appendEvent.shouldCommit()) {
+            appendEvent.log = getClass().getSimpleName();
+            appendEvent.eventType = event
+                .type()
+                .name();
+            appendEvent.retainedEvents = retained.get();
+            appendEvent.commit();
+        }
+    }
+
+    /**
+     * Registers a listener notified of every event indexed from now on.
+     */
+    public void addListener(OrderLogListener listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(OrderLogListener listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * @return the number of times a listener threw while being notified of an event
+     */
+    public long getListenerFailures() {
+        return listenerFailures.sum();
     }
 
     public List<OrderEvent> getEventsForOrder(UUID orderId) {
-        return events
-            .stream()
-            .filter(event -> event
-                .orderId()
-                .equals(orderId))
-            .toList();
+        ConcurrentNavigableMap<Long, OrderEvent> orderEvents = eventsByOrder.get(orderId);
+        if (orderEvents == null) {
+            return List.of();
+        }
+        return List.copyOf(orderEvents.values());
     }
 
     public List<OrderEvent> getEventsByType(OrderEvent.EventType type) {
-        return events
-            .stream()
-            .filter(event -> event.type() == type)
-            .toList();
+        return List.copyOf(eventsByType
+            .get(type)
+            .values());
     }
 
     public List<OrderEvent> getAllEvents() {
-        return List.copyOf(events);
+        return List.copyOf(events.values());
+    }
+
+    public RetentionStats getRetentionStats() {
+        return new RetentionStats(retained.get(), evictedByCount.sum(), evictedByAge.sum(), evictedAfterTerminal.sum());
+    }
+
+    /**
+     * @return the clock that timestamps events for this log
+     */
+    public EventClock clock() {
+        return clock;
+    }
+
+    @Override public void close() {
+        if (evictor != null) {
+            evictor.shutdownNow();
+        }
+    }
+
+    /**
+     * Runs one eviction pass. Called periodically by the evictor thread.
+     */
+    void evict() {
+        if (retention.terminalGracePeriod() != null) {
+            evictTerminatedOrders();
+        }
+        if (retention.maxAge() != null) {
+            evictOlderThan(clock.epochNanos() - retention
+                .maxAge()
+                .toNanos());
+        }
+        if (retention.maxEvents() > 0) {
+            evictOverflow();
+        }
+    }
+
+    /**
+     * An event that is logged for an order while its events are evicted here, but published only afterwards, is
+     * evicted by the thread logging it.
+     */
+    private void evictTerminatedOrders() {
+        long now = clock.epochNanos();
+        TerminatedOrder terminated;
+        while ((terminated = terminatedOrders.peek()) != null && now - terminated.deadline() >= 0) {
+            terminatedOrders.poll();
+            ConcurrentNavigableMap<Long, OrderEvent> orderEvents = eventsByOrder.remove(terminated.orderId());
+            if (orderEvents == null) {
+                continue;
+            }
+            for (Map.Entry<Long, OrderEvent> entry : orderEvents.entrySet()) {
+                if (events.remove(entry.getKey()) != null) {
+                    eventsByType
+                        .get(entry
+                            .getValue()
+                            .type())
+                        .remove(entry.getKey());
+                    retained.decrementAndGet();
+                    evictedAfterTerminal.increment();
+                }
+            }
+        }
+    }
+
+    private void evictOlderThan(long cutoffEpochNanos) {
+        Map.Entry<Long, OrderEvent> oldest;
+        while ((oldest = events.firstEntry()) != null && oldest
+            .getValue()
+            .epochNanos() < cutoffEpochNanos) {
+            if (events.remove(oldest.getKey(), oldest.getValue())) {
+                unindex(oldest.getKey(), oldest.getValue());
+                evictedByAge.increment();
+            }
+        }
+    }
+
+    private void evictOverflow() {
+        while (retained.get() > retention.maxEvents()) {
+            Map.Entry<Long, OrderEvent> oldest = events.pollFirstEntry();
+            if (oldest == null) {
+                return;
+            }
+            unindex(oldest.getKey(), oldest.getValue());
+            evictedByCount.increment();
+        }
+    }
+
+    private void unindex(Long position, OrderEvent event) {
+        eventsByOrder.computeIfPresent(event.orderId(), (orderId, orderEvents) -> {
+            orderEvents.remove(position);
+            return orderEvents.isEmpty() ? null : orderEvents;
+        });
+        eventsByType
+            .get(event.type())
+            .remove(position);
+        retained.decrementAndGet();
+    }
+
+    private static boolean isTerminal(OrderEvent.EventType type) {
+        return type == OrderEvent.EventType.CANCEL_ORDER || type == OrderEvent.EventType.DELIVER_ORDER;
+    }
+
+    /**
+     * @param deadline when the events of the order are due for eviction, in {@link EventClock#epochNanos()}
+     */
+    private record TerminatedOrder(UUID orderId, long deadline) {
     }
 }
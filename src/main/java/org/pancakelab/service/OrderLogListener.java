@@ -0,0 +1,16 @@
+package org.pancakelab.service;
+
+import org.pancakelab.domain.log.OrderEvent;
+
+/**
+ * Notified of every event an {@link OrderLog} indexes.
+ */
+@FunctionalInterface
+public interface OrderLogListener {
+    /**
+     * Called on the thread that indexes the event, after it became visible to readers of the log, and possibly while
+     * the log holds a lock; implementations must be fast and must not log events themselves. A runtime exception
+     * thrown here is counted in {@link OrderLog#getListenerFailures()} and does not reach the caller of the log.
+     */
+    void onLogged(OrderEvent event);
+}
@@ -0,0 +1,21 @@
+package org.pancakelab.service;
+
+import java.util.UUID;
+
+/**
+ * Thrown when a service call refers to an order the repository does not hold.
+ */
+public class OrderNotFoundException extends IllegalArgumentException {
+    private static final long serialVersionUID = 1L;
+
+    private final UUID orderId;
+
+    public OrderNotFoundException(UUID orderId) {
+        super("Order not found: " + orderId);
+        this.orderId = orderId;
+    }
+
+    public UUID getOrderId() {
+        return orderId;
+    }
+}
@@ -1,150 +1,489 @@
 package org.pancakelab.service;
 
-import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.stream.Collectors;
+import org.pancakelab.domain.inventory.Inventory;
 import org.pancakelab.domain.log.OrderEvent;
 import org.pancakelab.domain.order.Order;
+import org.pancakelab.domain.order.OrderIdGenerator;
+import org.pancakelab.domain.order.OrderListener;
 import org.pancakelab.domain.order.OrderStatus;
 import org.pancakelab.domain.pancake.Item;
+import org.pancakelab.domain.pancake.Pancake;
 import org.pancakelab.domain.pancake.PancakeBuilder;
+import org.pancakelab.domain.pancake.RecipeRegistry;
 import org.pancakelab.domain.shared.Address;
 import org.pancakelab.domain.shared.Ingredient;
 import org.pancakelab.repository.OrderRepository;
+import org.pancakelab.service.PancakeServiceMetrics.Operation;
 
 public class PancakeService {
-    private final OrderRepository orderRepository;
-    private final OrderLog        orderLog;
+    private final OrderRepository       orderRepository;
+    private final OrderLog              orderLog;
+    private final PancakeServiceMetrics metrics;
+    private final OrderIdGenerator      idGenerator;
+    private final Inventory             inventory;
+    private final List<OrderListener>   listeners = new CopyOnWriteArrayList<>();
 
     public PancakeService(OrderRepository orderRepository, OrderLog orderLog) {
+        this(orderRepository, orderLog, new PancakeServiceMetrics());
+    }
+
+    /**
+     * @param metrics records the latency and outcome of every call
+     */
+    public PancakeService(OrderRepository orderRepository, OrderLog orderLog, PancakeServiceMetrics metrics) {
+        this(orderRepository, orderLog, metrics, OrderIdGenerator.timeOrdered());
+    }
+
+    /**
+     * @param idGenerator gives every order created by {@link #createOrder(Address)} or {@link #newOrderCommand(Address)}
+     *                    its identity
+     */
+    public PancakeService(OrderRepository orderRepository, OrderLog orderLog, PancakeServiceMetrics metrics,
+                          OrderIdGenerator idGenerator) {
+        this(orderRepository, orderLog, metrics, idGenerator, Inventory.unlimited());
+    }
+
+    /**
+     * @param inventory reserves the ingredients of added pancakes, releases them when pancakes are removed or the order
+     *                  is cancelled, and consumes them when the order is prepared
+     */
+    public PancakeService(OrderRepository orderRepository, OrderLog orderLog, PancakeServiceMetrics metrics,
+                          OrderIdGenerator idGenerator, Inventory inventory) {
         this.orderRepository = orderRepository;
         this.orderLog = orderLog;
+        this.metrics = metrics;
+        this.idGenerator = idGenerator;
+        this.inventory = inventory;
+    }
+
+    /**
+     * Registers a listener notified after every status transition made through this service.
+     */
+    public void addOrderListener(OrderListener listener) {
+        listeners.add(listener);
+    }
+
+    public void removeOrderListener(OrderListener listener) {
+        listeners.remove(listener);
     }
 
     public Order createOrder(final Address address) {
-        Order order = new Order(address);
-        this.orderRepository.save(order);
+        long start = System.nanoTime();
+        Order order = new Order(idGenerator.nextId(), address);
+        try {
+            this.orderRepository.save(order);
+        }
+        catch (RuntimeException e) {
+            metrics.failed(Operation.CREATE_ORDER, start, e);
+            throw e;
+        }
+        metrics.succeeded(Operation.CREATE_ORDER, start);
         return order;
     }
 
+    /**
+     * @return a command for {@link #execute(List)} that creates an order with an id from this service's generator
+     */
+    public OrderCommand.Create newOrderCommand(Address address) {
+        return OrderCommand.Create.newOrder(address, idGenerator);
+    }
+
     public void addCustomPancake(UUID orderId, List<Ingredient> ingredients, int count) {
-        Order order = this.orderRepository.findById(orderId);
-        if (order == null) {
-            throw new IllegalArgumentException("Order not found: " + orderId);
+        long start = System.nanoTime();
+        try {
+            addPancakes(find(orderId), ingredients, count);
+        }
+        catch (RuntimeException e) {
+            metrics.failed(Operation.ADD_PANCAKES, start, e);
+            throw e;
         }
+        metrics.succeeded(Operation.ADD_PANCAKES, start);
+    }
 
-        for (int i = 0; i < count; ++i) {
-            PancakeBuilder pancakeBuilder = new PancakeBuilder();
-            for (Ingredient ingredient : ingredients) {
-                pancakeBuilder.addIngredient(ingredient);
-            }
-            Item pancake = pancakeBuilder.build();
-            order.addItem(pancake);
-            orderLog.log(new OrderEvent(orderId, LocalDateTime.now(), OrderEvent.EventType.ADD_PANCAKE,
-                "Added pancake with description %s".formatted(pancake.getDescription())));
+    private int addPancakes(Order order, List<Ingredient> ingredients, int count) {
+        if (count <= 0) {
+            return 0;
+        }
+        PancakeBuilder pancakeBuilder = new PancakeBuilder();
+        for (Ingredient ingredient : ingredients) {
+            pancakeBuilder.addIngredient(ingredient);
+        }
+        Item pancake = pancakeBuilder.build();
+        inventory.reserve(pancake.getRecipeId(), count);
+        try {
+            order.addItems(pancake, count);
+        }
+        catch (RuntimeException e) {
+            inventory.release(pancake.getRecipeId(), count);
+            throw e;
         }
+        orderLog.log(OrderEvent.pancakesAdded(order.getId(), now(), pancake.getRecipeId(), count));
+        return count;
     }
 
     public List<String> viewOrder(UUID orderId) {
-        Order order = this.orderRepository.findById(orderId);
-        if (order == null) {
-            return List.of();
+        long start = System.nanoTime();
+        List<String> descriptions;
+        try {
+            Order order = this.orderRepository.findById(orderId);
+            descriptions = order == null ? List.of() : order.getPancakeDescriptions();
         }
-        return order.getPancakeDescriptions();
+        catch (RuntimeException e) {
+            metrics.failed(Operation.VIEW_ORDER, start, e);
+            throw e;
+        }
+        metrics.succeeded(Operation.VIEW_ORDER, start);
+        return descriptions;
     }
 
     public void removePancakes(String description, UUID orderId, int count) {
-        Order order = this.orderRepository.findById(orderId);
-        if (order == null) {
-            throw new IllegalArgumentException("Order not found: " + orderId);
+        long start = System.nanoTime();
+        try {
+            removePancakes(find(orderId), description, count);
+        }
+        catch (RuntimeException e) {
+            metrics.failed(Operation.REMOVE_PANCAKES, start, e);
+            throw e;
+        }
+        metrics.succeeded(Operation.REMOVE_PANCAKES, start);
+    }
+
+    private int removePancakes(Order order, String description, int count) {
+        Pancake recipe = RecipeRegistry.recipeDescribedAs(description);
+        int removedCount = order.removeItem(recipe, count);
+        if (removedCount > 0) {
+            inventory.release(recipe.getRecipeId(), removedCount);
         }
-        int initialSize = order
-            .getItems()
-            .size();
-        order.removeItem(description, count);
-        int removedCount = initialSize - order
-            .getItems()
-            .size();
 
-        orderLog.log(new OrderEvent(orderId, LocalDateTime.now(), OrderEvent.EventType.REMOVE_PANCAKE,
-            String.format("Removed %d pancake(s) with description '%s'. Order now contains %d pancake(s).", removedCount, description, order
-                .getItems()
-                .size())));
+        orderLog.log(OrderEvent.pancakesRemoved(order.getId(), now(), description, recipe, removedCount, order.getItemCount()));
+        return removedCount;
     }
 
     public void cancelOrder(UUID orderId) {
-        Order order = this.orderRepository.findById(orderId);
-        if (order == null) {
-            throw new IllegalArgumentException("Order not found: " + orderId);
+        long start = System.nanoTime();
+        try {
+            cancel(find(orderId));
         }
+        catch (RuntimeException e) {
+            metrics.failed(Operation.CANCEL_ORDER, start, e);
+            throw e;
+        }
+        metrics.succeeded(Operation.CANCEL_ORDER, start);
+    }
 
+    private void cancel(Order order) {
         order.cancel();
-        this.orderRepository.delete(orderId);
-        orderLog.log(new OrderEvent(orderId, LocalDateTime.now(), OrderEvent.EventType.CANCEL_ORDER,
-            "Order canceled with %d pancakes with orderId %s.".formatted(order
-                .getItems()
-                .size(), orderId)));
+        if (inventory.isLimited()) {
+            order
+                .getItemQuantities()
+                .forEach((item, quantity) -> inventory.release(item.getRecipeId(), quantity));
+        }
+        this.orderRepository.delete(order.getId());
+        statusChanged(order, OrderStatus.NEW, OrderStatus.CANCELLED);
+        orderLog.log(OrderEvent.orderCancelled(order.getId(), now(), order.getItemCount()));
     }
 
     public void completeOrder(UUID orderId) {
-        Order order = this.orderRepository.findById(orderId);
-        if (order == null) {
-            throw new IllegalArgumentException("Order not found: " + orderId);
+        long start = System.nanoTime();
+        try {
+            complete(find(orderId));
+        }
+        catch (RuntimeException e) {
+            metrics.failed(Operation.COMPLETE_ORDER, start, e);
+            throw e;
         }
+        metrics.succeeded(Operation.COMPLETE_ORDER, start);
+    }
+
+    private void complete(Order order) {
         order.complete();
+        statusChanged(order, OrderStatus.NEW, OrderStatus.COMPLETED);
     }
 
     public Set<UUID> listCompletedOrders() {
-        return this.orderRepository
-            .findAll()
-            .stream()
-            .filter(order -> order.getStatus() == OrderStatus.COMPLETED)
-            .map(Order::getId)
-            .collect(Collectors.toSet());
+        long start = System.nanoTime();
+        Set<UUID> result;
+        try {
+            result = idsOfOrdersIn(OrderStatus.COMPLETED);
+        }
+        catch (RuntimeException e) {
+            metrics.failed(Operation.LIST_COMPLETED_ORDERS, start, e);
+            throw e;
+        }
+        metrics.succeeded(Operation.LIST_COMPLETED_ORDERS, start);
+        return result;
     }
 
     public void prepareOrder(UUID orderId) {
-        Order order = this.orderRepository.findById(orderId);
-        if (order == null) {
-            throw new IllegalArgumentException("Order not found: " + orderId);
+        long start = System.nanoTime();
+        try {
+            prepare(find(orderId));
+        }
+        catch (RuntimeException e) {
+            metrics.failed(Operation.PREPARE_ORDER, start, e);
+            throw e;
         }
+        metrics.succeeded(Operation.PREPARE_ORDER, start);
+    }
+
+    private void prepare(Order order) {
         order.prepare();
+        if (inventory.isLimited()) {
+            order
+                .getItemQuantities()
+                .forEach((item, quantity) -> inventory.consume(item.getRecipeId(), quantity));
+        }
+        statusChanged(order, OrderStatus.COMPLETED, OrderStatus.PREPARED);
+    }
+
+    /**
+     * @return the orders currently in {@code status}
+     */
+    public List<Order> findOrdersByStatus(OrderStatus status) {
+        long start = System.nanoTime();
+        List<Order> result;
+        try {
+            result = this.orderRepository.findByStatus(status);
+        }
+        catch (RuntimeException e) {
+            metrics.failed(Operation.FIND_ORDERS_BY_STATUS, start, e);
+            throw e;
+        }
+        metrics.succeeded(Operation.FIND_ORDERS_BY_STATUS, start);
+        return result;
     }
 
     public Set<UUID> listPreparedOrders() {
+        long start = System.nanoTime();
+        Set<UUID> result;
+        try {
+            result = idsOfOrdersIn(OrderStatus.PREPARED);
+        }
+        catch (RuntimeException e) {
+            metrics.failed(Operation.LIST_PREPARED_ORDERS, start, e);
+            throw e;
+        }
+        metrics.succeeded(Operation.LIST_PREPARED_ORDERS, start);
+        return result;
+    }
+
+    private Set<UUID> idsOfOrdersIn(OrderStatus status) {
         return this.orderRepository
-            .findAll()
+            .findByStatus(status)
             .stream()
-            .filter(order -> order.getStatus() == OrderStatus.PREPARED)
             .map(Order::getId)
             .collect(Collectors.toSet());
     }
 
     public Object[] deliverOrder(UUID orderId) {
-        Order order = this.orderRepository.findById(orderId);
-        if (order == null) {
-            throw new IllegalArgumentException("Order not found: " + orderId);
+        long start = System.nanoTime();
+        Order order;
+        DeliveryReceipt receipt;
+        try {
+            order = find(orderId);
+            receipt = deliver(order);
+        }
+        catch (RuntimeException e) {
+            metrics.failed(Operation.DELIVER_ORDER, start, e);
+            throw e;
         }
-        List<String> pancakesToDeliver = viewOrder(orderId);
+        metrics.succeeded(Operation.DELIVER_ORDER, start);
+
+        return new Object[] { order, receipt.pancakes() };
+    }
+
+    /**
+     * Delivers the given orders in one pass and in the given sequence, looking each one up once. Orders that no
+     * longer exist or are not prepared are skipped.
+     *
+     * @return one receipt per delivered order
+     */
+    public List<DeliveryReceipt> deliverOrders(List<UUID> orderIds) {
+        long start = System.nanoTime();
+        List<DeliveryReceipt> result;
+        try {
+            result = deliverAll(orderIds);
+        }
+        catch (RuntimeException e) {
+            metrics.failed(Operation.DELIVER_ORDERS, start, e);
+            throw e;
+        }
+        metrics.succeeded(Operation.DELIVER_ORDERS, start);
+        return result;
+    }
+
+    private List<DeliveryReceipt> deliverAll(List<UUID> orderIds) {
+        List<DeliveryReceipt> receipts = new ArrayList<>(orderIds.size());
+        for (UUID orderId : orderIds) {
+            Order order = this.orderRepository.findById(orderId);
+            if (order == null || order.getStatus() != OrderStatus.PREPARED) {
+                continue;
+            }
+            try {
+                receipts.add(deliver(order));
+            }
+            catch (IllegalStateException deliveredMeanwhile) {
+                // another caller delivered it first
+            }
+        }
+        return receipts;
+    }
+
+    private DeliveryReceipt deliver(Order order) {
+        List<String> pancakesToDeliver = order.getPancakeDescriptions();
         order.deliver();
 
-        orderLog.log(new OrderEvent(orderId, LocalDateTime.now(), OrderEvent.EventType.DELIVER_ORDER,
-            String.format("Order %s with %d pancake(s) delivered to building %d, room %d.", orderId, order
-                .getItems()
-                .size(), order
-                .getAddress()
-                .building(), order
-                .getAddress()
-                .room())));
+        orderLog.log(OrderEvent.orderDelivered(order.getId(), now(), order.getItemCount(), order.getAddress()));
+
+        this.orderRepository.delete(order.getId());
+        statusChanged(order, OrderStatus.PREPARED, OrderStatus.DELIVERED);
+
+        return new DeliveryReceipt(order.getId(), order.getAddress(), pancakesToDeliver);
+    }
+
+    /**
+     * Applies a batch of commands, possibly for several orders, and reports the outcome of each instead of throwing.
+     * Commands are grouped by order; each order is looked up once and its commands run in their given sequence
+     * while holding the order's item lock, so no other caller changes its items in between. A failed command does
+     * not stop the commands after it.
+     *
+     * @return one result per command, in the sequence of {@code commands}
+     */
+    public List<CommandResult> execute(List<? extends OrderCommand> commands) {
+        long start = System.nanoTime();
+        List<CommandResult> result;
+        try {
+            result = executeAll(commands);
+        }
+        catch (RuntimeException e) {
+            metrics.failed(Operation.EXECUTE, start, e);
+            throw e;
+        }
+        metrics.succeeded(Operation.EXECUTE, start);
+        return result;
+    }
 
-        this.orderRepository.delete(orderId);
+    private List<CommandResult> executeAll(List<? extends OrderCommand> commands) {
+        Map<UUID, List<Integer>> positionsByOrder = new LinkedHashMap<>();
+        for (int i = 0; i < commands.size(); i++) {
+            UUID orderId = commands
+                .get(i)
+                .orderId();
+            positionsByOrder
+                .computeIfAbsent(orderId, id -> new ArrayList<>())
+                .add(i);
+        }
 
-        return new Object[] { order, pancakesToDeliver };
+        CommandResult[] results = new CommandResult[commands.size()];
+        positionsByOrder.forEach((orderId, positions) -> executeForOrder(orderId, positions, commands, results));
+        return Arrays.asList(results);
+    }
+
+    private void executeForOrder(UUID orderId, List<Integer> positions, List<? extends OrderCommand> commands,
+                                 CommandResult[] results) {
+        Order order = this.orderRepository.findById(orderId);
+        int next = 0;
+        while (order == null && next < positions.size()) {
+            int position = positions.get(next++);
+            OrderCommand command = commands.get(position);
+            if (command instanceof OrderCommand.Create create) {
+                Order created = new Order(create.orderId(), create.address());
+                if (this.orderRepository.saveIfAbsent(created)) {
+                    order = created;
+                    results[position] = CommandResult.success(command, created);
+                } else {
+                    // another batch created the id in the meantime; its order serves the rest of this one
+                    results[position] = CommandResult.failure(command, new IllegalStateException("Order already exists: " + orderId));
+                    order = this.orderRepository.findById(orderId);
+                }
+            } else {
+                results[position] = CommandResult.failure(command, new OrderNotFoundException(orderId));
+            }
+        }
+        if (next == positions.size()) {
+            return;
+        }
+
+        Order resolved = order;
+        List<Integer> remaining = positions.subList(next, positions.size());
+        resolved.withItemsLocked(() -> {
+            for (int position : remaining) {
+                OrderCommand command = commands.get(position);
+                try {
+                    results[position] = CommandResult.success(command, apply(resolved, command));
+                }
+                catch (RuntimeException e) {
+                    results[position] = CommandResult.failure(command, e);
+                }
+            }
+        });
+    }
+
+    private Object apply(Order order, OrderCommand command) {
+        if (command instanceof OrderCommand.AddPancakes add) {
+            return addPancakes(order, add.ingredients(), add.count());
+        }
+        if (command instanceof OrderCommand.RemovePancakes remove) {
+            return removePancakes(order, remove.description(), remove.count());
+        }
+        if (command instanceof OrderCommand.Complete) {
+            complete(order);
+        } else if (command instanceof OrderCommand.Cancel) {
+            cancel(order);
+        } else if (command instanceof OrderCommand.Prepare) {
+            prepare(order);
+        } else if (command instanceof OrderCommand.Deliver) {
+            return deliver(order);
+        } else if (command instanceof OrderCommand.Create) {
+            throw new IllegalStateException("Order already exists: " + order.getId());
+        }
+        return null;
+    }
+
+    private Order find(UUID orderId) {
+        Order order = this.orderRepository.findById(orderId);
+        if (order == null) {
+            throw new OrderNotFoundException(orderId);
+        }
+        return order;
+    }
+
+    private long now() {
+        return orderLog
+            .clock()
+            .epochNanos();
+    }
+
+    private void statusChanged(Order order, OrderStatus previous, OrderStatus current) {
+        for (OrderListener listener : listeners) {
+            try {
+                listener.onStatusChanged(order, previous, current);
+            }
+            catch (RuntimeException e) {
+                // the transition is applied already; a failing listener must not fail the caller or stop the next one
+                metrics.listenerFailed();
+            }
+        }
     }
 
     public OrderLog getOrderLog() {
         return orderLog;
     }
+
+    public PancakeServiceMetrics getMetrics() {
+        return metrics;
+    }
+
+    public Inventory getInventory() {
+        return inventory;
+    }
 }
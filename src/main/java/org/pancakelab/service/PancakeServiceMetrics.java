@@ -0,0 +1,208 @@
+package org.pancakelab.service;
+
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.LongAdder;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import org.pancakelab.metrics.LatencyHistogram;
+
+/**
+ * Latency and outcome of every {@link PancakeService} call. Each operation has a {@link LatencyHistogram} and one
+ * {@link LongAdder} per {@link Outcome}, so recording is lock-free and allocates nothing. The figures can be read
+ * as a text {@link #snapshot()} or through the platform MBean server once {@link #register(String)} was called.
+ */
+public class PancakeServiceMetrics implements PancakeServiceMetricsMXBean {
+    public enum Operation {
+        CREATE_ORDER,
+        ADD_PANCAKES,
+        REMOVE_PANCAKES,
+        VIEW_ORDER,
+        COMPLETE_ORDER,
+        CANCEL_ORDER,
+        PREPARE_ORDER,
+        DELIVER_ORDER,
+        DELIVER_ORDERS,
+        LIST_COMPLETED_ORDERS,
+        LIST_PREPARED_ORDERS,
+        FIND_ORDERS_BY_STATUS,
+        EXECUTE
+    }
+
+    public enum Outcome {
+        SUCCESS,
+        /**
+         * The call referred to an order that does not exist.
+         */
+        NOT_FOUND,
+        /**
+         * The order was not in a status that allows the call.
+         */
+        ILLEGAL_STATE,
+        /**
+         * Any other exception, such as an invalid argument.
+         */
+        FAILED
+    }
+
+    private static final Operation[] OPERATIONS = Operation.values();
+    private static final Outcome[]   OUTCOMES   = Outcome.values();
+
+    private final LatencyHistogram[] latencies        = new LatencyHistogram[OPERATIONS.length];
+    private final LongAdder[]        calls            = new LongAdder[OPERATIONS.length * OUTCOMES.length];
+    private final LongAdder          listenerFailures = new LongAdder();
+
+    public PancakeServiceMetrics() {
+        for (int i = 0; i < latencies.length; i++) {
+            latencies[i] = new LatencyHistogram();
+        }
+        for (int i = 0; i < calls.length; i++) {
+            calls[i] = new LongAdder();
+        }
+    }
+
+    /**
+     * @param startNanos the {@link System#nanoTime()} taken when the call started
+     */
+    public void succeeded(Operation operation, long startNanos) {
+        record(operation, Outcome.SUCCESS, startNanos);
+    }
+
+    public void failed(Operation operation, long startNanos, RuntimeException failure) {
+        record(operation, outcomeOf(failure), startNanos);
+    }
+
+    public void record(Operation operation, Outcome outcome, long startNanos) {
+        latencies[operation.ordinal()].record(System.nanoTime() - startNanos);
+        calls[operation.ordinal() * OUTCOMES.length + outcome.ordinal()].increment();
+    }
+
+    /**
+     * Counts an order listener that threw while being notified of a status change.
+     */
+    public void listenerFailed() {
+        listenerFailures.increment();
+    }
+
+    @Override public long getListenerFailures() {
+        return listenerFailures.sum();
+    }
+
+    public long count(Operation operation, Outcome outcome) {
+        return calls[operation.ordinal() * OUTCOMES.length + outcome.ordinal()].sum();
+    }
+
+    public LatencyHistogram latency(Operation operation) {
+        return latencies[operation.ordinal()];
+    }
+
+    /**
+     * Publishes these metrics on the platform MBean server as {@code org.pancakelab:type=PancakeService,name=<name>}.
+     *
+     * @return the name registered under
+     * @throws IllegalStateException when the name is taken or cannot be registered
+     */
+    public ObjectName register(String name) {
+        try {
+            ObjectName objectName = objectName(name);
+            ManagementFactory
+                .getPlatformMBeanServer()
+                .registerMBean(this, objectName);
+            return objectName;
+        }
+        catch (JMException e) {
+            throw new IllegalStateException("Cannot register metrics as " + name + ".", e);
+        }
+    }
+
+    /**
+     * Removes the MBean registered by {@link #register(String)}, if any.
+     */
+    public void unregister(String name) {
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName objectName = objectName(name);
+            if (server.isRegistered(objectName)) {
+                server.unregisterMBean(objectName);
+            }
+        }
+        catch (JMException e) {
+            throw new IllegalStateException("Cannot unregister metrics " + name + ".", e);
+        }
+    }
+
+    @Override public Map<String, Long> getCalls() {
+        Map<String, Long> counts = new TreeMap<>();
+        for (Operation operation : OPERATIONS) {
+            for (Outcome outcome : OUTCOMES) {
+                counts.put(operation + "." + outcome, count(operation, outcome));
+            }
+        }
+        return counts;
+    }
+
+    @Override public Map<String, Long> getMedianNanos() {
+        return latencyByOperation(50);
+    }
+
+    @Override public Map<String, Long> getP99Nanos() {
+        return latencyByOperation(99);
+    }
+
+    @Override public Map<String, Long> getMaxNanos() {
+        return latencyByOperation(100);
+    }
+
+    @Override public String getSnapshot() {
+        return snapshot();
+    }
+
+    /**
+     * @return one line per operation that was called: its count per outcome and its latency percentiles
+     */
+    public String snapshot() {
+        StringBuilder text = new StringBuilder(String.format("%-22s %10s %10s %10s %10s %10s %10s %10s %10s%n", "operation", "success",
+            "not_found", "ill_state", "failed", "p50_us", "p90_us", "p99_us", "max_us"));
+        for (Operation operation : OPERATIONS) {
+            LatencyHistogram latency = latency(operation);
+            if (latency.count() == 0) {
+                continue;
+            }
+            text.append(String.format("%-22s %10d %10d %10d %10d %10.1f %10.1f %10.1f %10.1f%n", operation, count(operation, Outcome.SUCCESS),
+                count(operation, Outcome.NOT_FOUND), count(operation, Outcome.ILLEGAL_STATE), count(operation, Outcome.FAILED),
+                micros(latency.percentile(50)), micros(latency.percentile(90)), micros(latency.percentile(99)), micros(latency.max())));
+        }
+        return text.toString();
+    }
+
+    private Map<String, Long> latencyByOperation(double percentile) {
+        Map<String, Long> nanos = new TreeMap<>();
+        for (Operation operation : OPERATIONS) {
+            nanos.put(operation.name(), latency(operation)
+                .percentile(percentile)
+                .toNanos());
+        }
+        return nanos;
+    }
+
+    private static Outcome outcomeOf(RuntimeException failure) {
+        if (failure instanceof OrderNotFoundException) {
+            return Outcome.NOT_FOUND;
+        }
+        if (failure instanceof IllegalStateException) {
+            return Outcome.ILLEGAL_STATE;
+        }
+        return Outcome.FAILED;
+    }
+
+    private static double micros(Duration duration) {
+        return duration.toNanos() / 1000.0;
+    }
+
+    private static ObjectName objectName(String name) throws JMException {
+        return ObjectName.getInstance("org.pancakelab:type=PancakeService,name=" + ObjectName.quote(name));
+    }
+}
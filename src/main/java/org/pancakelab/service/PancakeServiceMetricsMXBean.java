@@ -0,0 +1,24 @@
+package org.pancakelab.service;
+
+import java.util.Map;
+
+/**
+ * Management view of {@link PancakeServiceMetrics}. Counters are keyed by {@code OPERATION.OUTCOME}, latencies by
+ * operation.
+ */
+public interface PancakeServiceMetricsMXBean {
+    Map<String, Long> getCalls();
+
+    Map<String, Long> getMedianNanos();
+
+    Map<String, Long> getP99Nanos();
+
+    Map<String, Long> getMaxNanos();
+
+    String getSnapshot();
+
+    /**
+     * @return the number of times an order listener threw while being notified of a status change
+     */
+    long getListenerFailures();
+}
@@ -0,0 +1,51 @@
+package org.pancakelab.service;
+
+import java.time.Duration;
+
+/**
+ * Limits how many {@link org.pancakelab.domain.log.OrderEvent}s an {@link OrderLog} keeps in memory. A
+ * {@code maxEvents} of zero and {@code null} durations mean "no limit".
+ *
+ * @param maxEvents           the number of most recent events to keep
+ * @param maxAge              events whose timestamp is older than this are evicted
+ * @param terminalGracePeriod all events of an order are evicted this long after it was cancelled or delivered
+ * @param evictionInterval    the delay between two background eviction passes
+ */
+public record RetentionPolicy(long maxEvents, Duration maxAge, Duration terminalGracePeriod, Duration evictionInterval) {
+    public static final RetentionPolicy UNBOUNDED = new RetentionPolicy(0, null, null, Duration.ofMillis(100));
+
+    public RetentionPolicy {
+        if (maxEvents < 0) {
+            throw new IllegalArgumentException("Maximum number of events cannot be negative.");
+        }
+        if (maxAge != null && maxAge.isNegative()) {
+            throw new IllegalArgumentException("Maximum event age cannot be negative.");
+        }
+        if (terminalGracePeriod != null && terminalGracePeriod.isNegative()) {
+            throw new IllegalArgumentException("Terminal grace period cannot be negative.");
+        }
+        if (evictionInterval == null || evictionInterval.isNegative() || evictionInterval.isZero()) {
+            throw new IllegalArgumentException("Eviction interval must be positive.");
+        }
+    }
+
+    public RetentionPolicy withMaxEvents(long maxEvents) {
+        return new RetentionPolicy(maxEvents, maxAge, terminalGracePeriod, evictionInterval);
+    }
+
+    public RetentionPolicy withMaxAge(Duration maxAge) {
+        return new RetentionPolicy(maxEvents, maxAge, terminalGracePeriod, evictionInterval);
+    }
+
+    public RetentionPolicy withTerminalGracePeriod(Duration terminalGracePeriod) {
+        return new RetentionPolicy(maxEvents, maxAge, terminalGracePeriod, evictionInterval);
+    }
+
+    public RetentionPolicy withEvictionInterval(Duration evictionInterval) {
+        return new RetentionPolicy(maxEvents, maxAge, terminalGracePeriod, evictionInterval);
+    }
+
+    public boolean isBounded() {
+        return maxEvents > 0 || maxAge != null || terminalGracePeriod != null;
+    }
+}
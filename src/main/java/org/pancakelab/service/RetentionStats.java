@@ -0,0 +1,11 @@
+package org.pancakelab.service;
+
+/**
+ * Snapshot of the eviction counters of an {@link OrderLog}.
+ */
+public record RetentionStats(long retainedEvents, long evictedByCount, long evictedByAge, long evictedAfterTerminal) {
+
+    public long totalEvicted() {
+        return evictedByCount + evictedByAge + evictedAfterTerminal;
+    }
+}
@@ -0,0 +1,90 @@
+package org.pancakelab.benchmark;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.pancakelab.domain.shared.Address;
+import org.pancakelab.domain.shared.Ingredient;
+import org.pancakelab.domain.shared.IngredientName;
+import org.pancakelab.repository.InMemoryOrderRepository;
+import org.pancakelab.service.AsyncPancakeService;
+import org.pancakelab.service.OrderLog;
+import org.pancakelab.service.PancakeService;
+import org.pancakelab.service.RetentionPolicy;
+
+/**
+ * Load test of {@link AsyncPancakeService}: each invocation runs {@value #ORDERS} full order lifecycles at once,
+ * with every order on its own lane, on a pool of {@code workers} threads. Throughput is reported per order, so it
+ * should grow with the number of workers up to the number of cores.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+@State(Scope.Benchmark)
+public class AsyncPancakeServiceBenchmark {
+    static final int ORDERS = 256;
+
+    private static final List<Ingredient> INGREDIENTS = List.of(
+        new Ingredient(IngredientName.MILK_CHOCOLATE),
+        new Ingredient(IngredientName.HAZELNUTS));
+
+    @Param({ "1", "2", "4", "8" })
+    public int workers;
+
+    private ExecutorService     executor;
+    private AsyncPancakeService service;
+
+    @Setup(Level.Trial)
+    public void open() {
+        executor = Executors.newFixedThreadPool(workers);
+        service = new AsyncPancakeService(new PancakeService(new InMemoryOrderRepository(),
+            new OrderLog(RetentionPolicy.UNBOUNDED.withMaxEvents(1_000_000))), executor);
+    }
+
+    @TearDown(Level.Trial)
+    public void close() {
+        service.close();
+        executor.shutdown();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ORDERS)
+    public void orderLifecycles() {
+        CompletableFuture<?>[] deliveries = new CompletableFuture<?>[ORDERS];
+        for (int i = 0; i < ORDERS; i++) {
+            deliveries[i] = service
+                .createOrder(new Address(1 + i % 20, 1 + i))
+                .thenCompose(order -> lifecycle(order.getId()));
+        }
+        CompletableFuture
+            .allOf(deliveries)
+            .join();
+    }
+
+    private CompletableFuture<Object[]> lifecycle(UUID orderId) {
+        service.addCustomPancake(orderId, INGREDIENTS, 2);
+        service.viewOrder(orderId);
+        service.completeOrder(orderId);
+        service.prepareOrder(orderId);
+        return service.deliverOrder(orderId);
+    }
+}
@@ -0,0 +1,40 @@
+package org.pancakelab.benchmark;
+
+import java.util.Arrays;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Entry point of the {@code benchmark} Maven profile. Runs the selected benchmarks once per thread count listed in
+ * the {@code benchmark.threads} system property and writes one JSON result file per thread count under
+ * {@code target/}. Any regular JMH command line option is accepted as well.
+ */
+public final class BenchmarkRunner {
+
+    private BenchmarkRunner() {
+    }
+
+    public static void main(String[] args) throws RunnerException, CommandLineOptionException {
+        CommandLineOptions commandLine = new CommandLineOptions(args);
+        int[] threadCounts = Arrays
+            .stream(System
+                .getProperty("benchmark.threads", "1")
+                .split(","))
+            .map(String::trim)
+            .mapToInt(Integer::parseInt)
+            .toArray();
+
+        for (int threads : threadCounts) {
+            new Runner(new OptionsBuilder()
+                .parent(commandLine)
+                .threads(threads)
+                .resultFormat(ResultFormatType.JSON)
+                .result("target/jmh-result-t" + threads + ".json")
+                .build()).run();
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package org.pancakelab.benchmark;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.pancakelab.domain.order.Order;
+import org.pancakelab.domain.shared.Address;
+import org.pancakelab.domain.shared.Ingredient;
+import org.pancakelab.domain.shared.IngredientName;
+import org.pancakelab.repository.InMemoryOrderRepository;
+import org.pancakelab.service.CommandResult;
+import org.pancakelab.service.OrderCommand;
+import org.pancakelab.service.OrderLog;
+import org.pancakelab.service.PancakeService;
+import org.pancakelab.service.RetentionPolicy;
+
+/**
+ * A typical client session: create an order, add several pancake types, remove one and complete the order, made
+ * either as one call per step or as one {@link PancakeService#execute(List)} batch. The completed order is deleted
+ * again so the repository keeps {@code repositorySize} orders.
+ */
+@BenchmarkMode({ Mode.Throughput, Mode.SampleTime })
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class CommandBatchBenchmark {
+    private static final List<Ingredient> DARK_CHOCOLATE = List.of(new Ingredient(IngredientName.DARK_CHOCOLATE));
+    private static final List<Ingredient> MILK_CHOCOLATE = List.of(new Ingredient(IngredientName.MILK_CHOCOLATE));
+    private static final List<Ingredient> HAZELNUTS      = List.of(
+        new Ingredient(IngredientName.MILK_CHOCOLATE),
+        new Ingredient(IngredientName.HAZELNUTS));
+    private static final String           DESCRIPTION    = "Delicious pancake with milk chocolate!";
+
+    @State(Scope.Benchmark)
+    public static class Shop {
+        @Param({ "1000", "100000" })
+        public int repositorySize;
+
+        InMemoryOrderRepository repository;
+        PancakeService          service;
+
+        @Setup(Level.Trial)
+        public void fill() {
+            repository = new InMemoryOrderRepository();
+            service = new PancakeService(repository, new OrderLog(RetentionPolicy.UNBOUNDED.withMaxEvents(1_000_000)));
+            for (int i = 0; i < repositorySize; i++) {
+                Order order = service.createOrder(new Address(1 + i % 20, 1 + i % 400));
+                service.addCustomPancake(order.getId(), DARK_CHOCOLATE, 1);
+            }
+        }
+
+        @TearDown(Level.Trial)
+        public void close() {
+            service
+                .getOrderLog()
+                .close();
+        }
+    }
+
+    @Benchmark
+    public UUID oneCallPerStep(Shop shop) {
+        UUID orderId = shop.service
+            .createOrder(new Address(2, 2))
+            .getId();
+        shop.service.addCustomPancake(orderId, DARK_CHOCOLATE, 2);
+        shop.service.addCustomPancake(orderId, MILK_CHOCOLATE, 3);
+        shop.service.addCustomPancake(orderId, HAZELNUTS, 1);
+        shop.service.removePancakes(DESCRIPTION, orderId, 1);
+        shop.service.completeOrder(orderId);
+        shop.repository.delete(orderId);
+        return orderId;
+    }
+
+    @Benchmark
+    public List<CommandResult> oneBatch(Shop shop) {
+        OrderCommand.Create create = shop.service.newOrderCommand(new Address(2, 2));
+        UUID orderId = create.orderId();
+        List<CommandResult> results = shop.service.execute(List.of(
+            create,
+            new OrderCommand.AddPancakes(orderId, DARK_CHOCOLATE, 2),
+            new OrderCommand.AddPancakes(orderId, MILK_CHOCOLATE, 3),
+            new OrderCommand.AddPancakes(orderId, HAZELNUTS, 1),
+            new OrderCommand.RemovePancakes(orderId, DESCRIPTION, 1),
+            new OrderCommand.Complete(orderId)));
+        shop.repository.delete(orderId);
+        return results;
+    }
+}
@@ -0,0 +1,88 @@
+package org.pancakelab.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.pancakelab.domain.shared.Address;
+import org.pancakelab.domain.shared.Ingredient;
+import org.pancakelab.domain.shared.IngredientName;
+import org.pancakelab.repository.InMemoryOrderRepository;
+import org.pancakelab.service.DeliveryReceipt;
+import org.pancakelab.service.OrderLog;
+import org.pancakelab.service.PancakeService;
+import org.pancakelab.service.RetentionPolicy;
+
+/**
+ * Delivers a building's worth of prepared orders one by one through {@code deliverOrder} and as one trip through
+ * {@code deliverOrders}. The orders are prepared again before every invocation, outside the measurement, so both
+ * scores count whole buildings delivered.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class DeliveryBenchmark {
+    private static final List<Ingredient> INGREDIENTS = List.of(new Ingredient(IngredientName.DARK_CHOCOLATE));
+
+    @Param({ "8", "64" })
+    public int ordersPerBuilding;
+
+    private PancakeService service;
+    private List<UUID>     prepared;
+
+    @Setup(Level.Trial)
+    public void openShop() {
+        service = new PancakeService(new InMemoryOrderRepository(), new OrderLog(RetentionPolicy.UNBOUNDED.withMaxEvents(100_000)));
+    }
+
+    @Setup(Level.Invocation)
+    public void prepareBuilding() {
+        prepared = new ArrayList<>(ordersPerBuilding);
+        for (int room = 1; room <= ordersPerBuilding; room++) {
+            UUID orderId = service
+                .createOrder(new Address(1, room))
+                .getId();
+            service.addCustomPancake(orderId, INGREDIENTS, 2);
+            service.completeOrder(orderId);
+            service.prepareOrder(orderId);
+            prepared.add(orderId);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void closeShop() {
+        service
+            .getOrderLog()
+            .close();
+    }
+
+    @Benchmark
+    public int unbatched() {
+        int delivered = 0;
+        for (UUID orderId : prepared) {
+            delivered += service.deliverOrder(orderId).length;
+        }
+        return delivered;
+    }
+
+    @Benchmark
+    public List<DeliveryReceipt> batched() {
+        return service.deliverOrders(prepared);
+    }
+}
@@ -0,0 +1,71 @@
+package org.pancakelab.benchmark;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.pancakelab.domain.inventory.Inventory;
+import org.pancakelab.domain.pancake.RecipeRegistry;
+import org.pancakelab.domain.shared.IngredientName;
+
+/**
+ * Every thread reserves and releases the same two-ingredient recipe, the worst case for contention. Compares the
+ * striped {@link Inventory} at several stripe counts with one global lock around the same counters.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(Threads.MAX)
+@State(Scope.Benchmark)
+public class InventoryBenchmark {
+    private static final long RECIPE = RecipeRegistry.bitOf(IngredientName.MILK_CHOCOLATE) | RecipeRegistry.bitOf(IngredientName.HAZELNUTS);
+
+    @Param({ "1", "16" })
+    public int stripes;
+
+    private Inventory inventory;
+    private long      lockedMilkChocolate;
+    private long      lockedHazelnuts;
+
+    @Setup(Level.Iteration)
+    public void restock() {
+        inventory = new Inventory(stripes);
+        inventory.restock(IngredientName.MILK_CHOCOLATE, 1_000_000);
+        inventory.restock(IngredientName.HAZELNUTS, 1_000_000);
+        lockedMilkChocolate = 1_000_000;
+        lockedHazelnuts = 1_000_000;
+    }
+
+    @Benchmark
+    public void stripedReserveAndRelease() {
+        inventory.reserve(RECIPE, 1);
+        inventory.release(RECIPE, 1);
+    }
+
+    @Benchmark
+    public void globalLockReserveAndRelease() {
+        synchronized (this) {
+            if (lockedMilkChocolate < 1 || lockedHazelnuts < 1) {
+                throw new IllegalStateException("Out of stock.");
+            }
+            lockedMilkChocolate--;
+            lockedHazelnuts--;
+        }
+        synchronized (this) {
+            lockedMilkChocolate++;
+            lockedHazelnuts++;
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package org.pancakelab.benchmark;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.pancakelab.service.PancakeServiceMetrics;
+import org.pancakelab.service.PancakeServiceMetrics.Operation;
+
+/**
+ * Cost of recording one {@link org.pancakelab.service.PancakeService} call, including the {@link System#nanoTime()}
+ * taken at its start. Run with {@code -prof gc} to check that recording does not allocate.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class MetricsRecordingBenchmark {
+    private final PancakeServiceMetrics metrics = new PancakeServiceMetrics();
+    private final IllegalStateException failure = new IllegalStateException();
+
+    @Benchmark
+    public void recordSuccess() {
+        metrics.succeeded(Operation.ADD_PANCAKES, System.nanoTime());
+    }
+
+    @Benchmark
+    public void recordFailure() {
+        metrics.failed(Operation.COMPLETE_ORDER, System.nanoTime(), failure);
+    }
+}
@@ -0,0 +1,110 @@
+package org.pancakelab.benchmark;
+
+import java.time.Duration;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.pancakelab.domain.log.OrderEvent;
+import org.pancakelab.domain.pancake.RecipeRegistry;
+import org.pancakelab.domain.shared.Address;
+import org.pancakelab.domain.shared.IngredientName;
+import org.pancakelab.service.OrderAnalytics;
+import org.pancakelab.service.OrderLog;
+
+/**
+ * Cost of answering "pancakes ordered with dark chocolate" and "cancel rate" by scanning the log against reading the
+ * aggregates {@link OrderAnalytics} keeps while events are logged. The scans grow with {@code logSize}; the
+ * analytics queries should stay flat.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class OrderAnalyticsBenchmark {
+    private static final int  EVENTS_PER_ORDER = 8;
+    private static final long DARK_CHOCOLATE   = RecipeRegistry.bitOf(IngredientName.DARK_CHOCOLATE);
+
+    @Param({ "10000", "100000", "1000000" })
+    public int logSize;
+
+    private OrderLog       orderLog;
+    private OrderAnalytics analytics;
+
+    @Setup(Level.Trial)
+    public void fillLog() {
+        orderLog = new OrderLog();
+        analytics = OrderAnalytics.attachTo(orderLog);
+        long[] recipes = { DARK_CHOCOLATE, RecipeRegistry.bitOf(IngredientName.MILK_CHOCOLATE), DARK_CHOCOLATE | RecipeRegistry.bitOf(
+            IngredientName.HAZELNUTS) };
+        UUID orderId = null;
+        for (int i = 0; i < logSize; i++) {
+            if (i % EVENTS_PER_ORDER == 0) {
+                orderId = UUID.randomUUID();
+            }
+            long now = orderLog
+                .clock()
+                .epochNanos();
+            if (i % EVENTS_PER_ORDER < EVENTS_PER_ORDER - 1) {
+                orderLog.log(OrderEvent.pancakesAdded(orderId, now, recipes[i % recipes.length], 1));
+            } else if (i % (3 * EVENTS_PER_ORDER) == EVENTS_PER_ORDER - 1) {
+                orderLog.log(OrderEvent.orderCancelled(orderId, now, EVENTS_PER_ORDER - 1));
+            } else {
+                orderLog.log(OrderEvent.orderDelivered(orderId, now, EVENTS_PER_ORDER - 1, new Address(1 + i % 100, 1)));
+            }
+        }
+    }
+
+    @Benchmark
+    public long darkChocolatePancakesByScan() {
+        long pancakes = 0;
+        for (OrderEvent event : orderLog.getEventsByType(OrderEvent.EventType.ADD_PANCAKE)) {
+            if ((event.recipeId() & DARK_CHOCOLATE) != 0) {
+                pancakes += event.count();
+            }
+        }
+        return pancakes;
+    }
+
+    @Benchmark
+    public long darkChocolatePancakesFromAnalytics() {
+        return analytics.pancakesAdded(IngredientName.DARK_CHOCOLATE);
+    }
+
+    @Benchmark
+    public double cancelRateByScan() {
+        long cancelled = 0;
+        long ended = 0;
+        for (OrderEvent event : orderLog.getAllEvents()) {
+            if (event.type() == OrderEvent.EventType.CANCEL_ORDER) {
+                cancelled++;
+                ended++;
+            } else if (event.type() == OrderEvent.EventType.DELIVER_ORDER) {
+                ended++;
+            }
+        }
+        return ended == 0 ? 0 : (double) cancelled / ended;
+    }
+
+    @Benchmark
+    public double cancelRateFromAnalytics() {
+        return analytics.cancelRate();
+    }
+
+    @Benchmark
+    public double cancelRateOverLastMinuteFromAnalytics() {
+        return analytics.cancelRate(Duration.ofMinutes(1));
+    }
+}
@@ -0,0 +1,74 @@
+package org.pancakelab.benchmark;
+
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.pancakelab.domain.order.Order;
+import org.pancakelab.domain.order.OrderIdGenerator;
+import org.pancakelab.domain.shared.Address;
+import org.pancakelab.repository.InMemoryOrderRepository;
+import org.pancakelab.service.OrderLog;
+import org.pancakelab.service.PancakeService;
+import org.pancakelab.service.PancakeServiceMetrics;
+
+/**
+ * {@code createOrder} throughput, and the cost of the ID alone, for each {@link OrderIdGenerator}. Run through
+ * {@link BenchmarkRunner} with {@code -Dbenchmark.threads=1,2,4,8} to see how each generator scales with threads.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+@State(Scope.Benchmark)
+public class OrderIdBenchmark {
+    @Param({ "random", "timeOrdered", "perThreadCounter" })
+    public String generator;
+
+    private OrderIdGenerator        idGenerator;
+    private InMemoryOrderRepository repository;
+    private PancakeService          service;
+
+    @Setup(Level.Trial)
+    public void open() {
+        idGenerator = switch (generator) {
+            case "random" -> OrderIdGenerator.random();
+            case "timeOrdered" -> OrderIdGenerator.timeOrdered();
+            case "perThreadCounter" -> OrderIdGenerator.perThreadCounter();
+            default -> throw new IllegalArgumentException("Unknown generator: " + generator);
+        };
+        repository = new InMemoryOrderRepository();
+        service = new PancakeService(repository, new OrderLog(), new PancakeServiceMetrics(), idGenerator);
+    }
+
+    @TearDown(Level.Trial)
+    public void close() {
+        service
+            .getOrderLog()
+            .close();
+    }
+
+    @Benchmark
+    public UUID nextId() {
+        return idGenerator.nextId();
+    }
+
+    @Benchmark
+    public Order createOrder() {
+        Order order = service.createOrder(new Address(3, 3));
+        repository.delete(order.getId());
+        return order;
+    }
+}
@@ -0,0 +1,73 @@
+package org.pancakelab.benchmark;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.pancakelab.domain.log.OrderEvent;
+import org.pancakelab.service.OrderLog;
+
+/**
+ * Lookup latency of {@link OrderLog} queries as the log grows. The probed order and the probed event type always
+ * hold the same number of events, so with indexed lookups the scores should stay flat across {@code logSize}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class OrderLogBenchmark {
+    private static final int EVENTS_PER_ORDER = 8;
+    private static final int PROBED_EVENTS    = 16;
+
+    @Param({ "10000", "100000", "1000000", "2000000" })
+    public int logSize;
+
+    private OrderLog orderLog;
+    private UUID     probedOrderId;
+
+    @Setup(Level.Trial)
+    public void fillLog() {
+        orderLog = new OrderLog();
+        LocalDateTime timestamp = LocalDateTime.now();
+        UUID orderId = null;
+        for (int i = 0; i < logSize - PROBED_EVENTS; i++) {
+            if (i % EVENTS_PER_ORDER == 0) {
+                orderId = UUID.randomUUID();
+            }
+            OrderEvent.EventType type = i % EVENTS_PER_ORDER == EVENTS_PER_ORDER - 1
+                ? OrderEvent.EventType.CANCEL_ORDER
+                : OrderEvent.EventType.ADD_PANCAKE;
+            orderLog.log(new OrderEvent(orderId, timestamp, type, "Added pancake."));
+            if (i == logSize / 2) {
+                probedOrderId = orderId;
+            }
+        }
+        for (int i = 0; i < PROBED_EVENTS; i++) {
+            orderLog.log(new OrderEvent(UUID.randomUUID(), timestamp, OrderEvent.EventType.DELIVER_ORDER, "Delivered."));
+        }
+    }
+
+    @Benchmark
+    public List<OrderEvent> getEventsForOrder() {
+        return orderLog.getEventsForOrder(probedOrderId);
+    }
+
+    @Benchmark
+    public List<OrderEvent> getEventsByType() {
+        return orderLog.getEventsByType(OrderEvent.EventType.DELIVER_ORDER);
+    }
+}
@@ -0,0 +1,61 @@
+package org.pancakelab.benchmark;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.pancakelab.domain.log.OrderEvent;
+import org.pancakelab.service.AsyncOrderLog;
+import org.pancakelab.service.OrderLog;
+import org.pancakelab.service.RetentionPolicy;
+
+/**
+ * Caller-side latency of {@link OrderLog#log(OrderEvent)}, with indexing on the caller's thread ({@code sync}) or
+ * handed to the {@link AsyncOrderLog} consumer with each wait strategy. Once producers outrun the consumer the
+ * async scores include backpressure.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({ Mode.Throughput, Mode.SampleTime })
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class OrderLogWriteBenchmark {
+    private static final RetentionPolicy RETENTION = RetentionPolicy.UNBOUNDED.withMaxEvents(1_000_000);
+
+    @Param({ "sync", "BUSY_SPIN", "YIELDING", "SLEEPING", "BLOCKING" })
+    public String logMode;
+
+    private OrderLog   orderLog;
+    private OrderEvent event;
+
+    @Setup(Level.Trial)
+    public void openLog() {
+        orderLog = logMode.equals("sync")
+            ? new OrderLog(RETENTION)
+            : new AsyncOrderLog(RETENTION, AsyncOrderLog.DEFAULT_CAPACITY, AsyncOrderLog.WaitStrategy.valueOf(logMode), AsyncOrderLog.OverflowPolicy.BLOCK);
+        event = new OrderEvent(UUID.randomUUID(), LocalDateTime.now(), OrderEvent.EventType.ADD_PANCAKE, "Added pancake.");
+    }
+
+    @TearDown(Level.Trial)
+    public void closeLog() {
+        orderLog.close();
+    }
+
+    @Benchmark
+    public void log() {
+        orderLog.log(event);
+    }
+}
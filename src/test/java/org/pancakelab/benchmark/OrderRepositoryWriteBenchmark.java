@@ -0,0 +1,94 @@
+package org.pancakelab.benchmark;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.pancakelab.domain.order.Order;
+import org.pancakelab.domain.pancake.Item;
+import org.pancakelab.domain.pancake.PancakeBuilder;
+import org.pancakelab.domain.shared.Address;
+import org.pancakelab.domain.shared.Ingredient;
+import org.pancakelab.domain.shared.IngredientName;
+import org.pancakelab.repository.ColumnarOrderRepository;
+import org.pancakelab.repository.InMemoryOrderRepository;
+import org.pancakelab.repository.JournaledOrderRepository;
+import org.pancakelab.repository.OrderRepository;
+
+/**
+ * Write throughput of a full order lifecycle (save, add, complete, prepare, deliver, delete) against the in-memory,
+ * the journaled and the columnar repository. Run with {@code -t} set to several thread counts to see group commit
+ * amortise fsyncs across concurrent writers.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(4)
+public class OrderRepositoryWriteBenchmark {
+    private static final Item PANCAKE = new PancakeBuilder()
+        .addIngredient(new Ingredient(IngredientName.DARK_CHOCOLATE))
+        .build();
+
+    @Param({ "in-memory", "journaled", "columnar" })
+    public String repositoryType;
+
+    private OrderRepository repository;
+    private Path            directory;
+
+    @Setup(Level.Trial)
+    public void openRepository() throws IOException {
+        if (repositoryType.equals("journaled")) {
+            directory = Files.createTempDirectory("pancakelab-journal");
+            repository = new JournaledOrderRepository(directory);
+        } else if (repositoryType.equals("columnar")) {
+            repository = new ColumnarOrderRepository();
+        } else {
+            repository = new InMemoryOrderRepository();
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void closeRepository() throws IOException {
+        if (repository instanceof JournaledOrderRepository journaled) {
+            journaled.close();
+            try (Stream<Path> files = Files.walk(directory)) {
+                for (Path file : files
+                    .sorted(Comparator.reverseOrder())
+                    .toList()) {
+                    Files.delete(file);
+                }
+            }
+        }
+    }
+
+    @Benchmark
+    public Order orderLifecycle() {
+        Order order = new Order(new Address(1, 101));
+        repository.save(order);
+        order.addItem(PANCAKE);
+        order.complete();
+        order.prepare();
+        order.deliver();
+        repository.delete(order.getId());
+        return order;
+    }
+}
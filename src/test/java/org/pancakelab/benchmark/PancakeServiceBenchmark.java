@@ -0,0 +1,171 @@
+package org.pancakelab.benchmark;
+
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.pancakelab.domain.log.OrderEvent;
+import org.pancakelab.domain.order.Order;
+import org.pancakelab.domain.shared.Address;
+import org.pancakelab.domain.shared.Ingredient;
+import org.pancakelab.domain.shared.IngredientName;
+import org.pancakelab.repository.InMemoryOrderRepository;
+import org.pancakelab.service.OrderLog;
+import org.pancakelab.service.PancakeService;
+import org.pancakelab.service.RetentionPolicy;
+
+/**
+ * Hot paths of the {@link PancakeService} order lifecycle, measured both as throughput and as sampled latency
+ * (which reports p50/p90/p99/p99.9) against repositories pre-filled with {@code repositorySize} open orders.
+ * Use {@link BenchmarkRunner} to repeat the run at several thread counts.
+ */
+@BenchmarkMode({ Mode.Throughput, Mode.SampleTime })
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class PancakeServiceBenchmark {
+    private static final List<Ingredient> INGREDIENTS = List.of(
+        new Ingredient(IngredientName.MILK_CHOCOLATE),
+        new Ingredient(IngredientName.HAZELNUTS));
+    private static final String DESCRIPTION = "Delicious pancake with milk chocolate, hazelnuts!";
+
+    @State(Scope.Benchmark)
+    public static class Shop {
+        @Param({ "1000", "100000" })
+        public int repositorySize;
+
+        InMemoryOrderRepository repository;
+        PancakeService          service;
+        /**
+         * Holds the events of the pre-filled orders only; the write benchmarks log to the service's own bounded log,
+         * which would eventually evict the events the read benchmarks look up.
+         */
+        OrderLog                filledLog;
+        UUID                    viewedOrderId;
+
+        @Setup(Level.Trial)
+        public void fill() {
+            repository = new InMemoryOrderRepository();
+            filledLog = new OrderLog();
+            service = new PancakeService(repository, filledLog);
+            for (int i = 0; i < repositorySize; i++) {
+                Order order = service.createOrder(address(i));
+                service.addCustomPancake(order.getId(), INGREDIENTS, 1);
+                if (i % 10 == 0) {
+                    service.completeOrder(order.getId());
+                } else if (i % 100 == 1) {
+                    service.cancelOrder(order.getId());
+                }
+            }
+            Order viewed = service.createOrder(new Address(1, 1));
+            service.addCustomPancake(viewed.getId(), INGREDIENTS, 20);
+            viewedOrderId = viewed.getId();
+            // bounded so that long measurements do not turn into a heap-growth benchmark
+            service = new PancakeService(repository, new OrderLog(RetentionPolicy.UNBOUNDED.withMaxEvents(1_000_000)));
+        }
+
+        @TearDown(Level.Trial)
+        public void close() {
+            service
+                .getOrderLog()
+                .close();
+            filledLog.close();
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Basket {
+        private static final int ADDS_PER_ORDER = 1_000;
+
+        @Param({ "1", "10", "100", "1000" })
+        public int count;
+
+        UUID orderId;
+        int  adds;
+
+        @Setup(Level.Iteration)
+        public void open(Shop shop) {
+            orderId = shop.service
+                .createOrder(new Address(2, 2))
+                .getId();
+            adds = 0;
+        }
+
+        void rotate(Shop shop) {
+            if (++adds == ADDS_PER_ORDER) {
+                shop.service.cancelOrder(orderId);
+                open(shop);
+            }
+        }
+    }
+
+    @Benchmark
+    public Order createOrder(Shop shop) {
+        Order order = shop.service.createOrder(new Address(3, 3));
+        shop.repository.delete(order.getId());
+        return order;
+    }
+
+    @Benchmark
+    public UUID addCustomPancake(Shop shop, Basket basket) {
+        shop.service.addCustomPancake(basket.orderId, INGREDIENTS, basket.count);
+        basket.rotate(shop);
+        return basket.orderId;
+    }
+
+    @Benchmark
+    public UUID addAndRemovePancakes(Shop shop, Basket basket) {
+        shop.service.addCustomPancake(basket.orderId, INGREDIENTS, basket.count);
+        shop.service.removePancakes(DESCRIPTION, basket.orderId, basket.count);
+        return basket.orderId;
+    }
+
+    @Benchmark
+    public List<String> viewOrder(Shop shop) {
+        return shop.service.viewOrder(shop.viewedOrderId);
+    }
+
+    @Benchmark
+    public Set<UUID> listCompletedOrders(Shop shop) {
+        return shop.service.listCompletedOrders();
+    }
+
+    @Benchmark
+    public Object[] orderLifecycleUpToDelivery(Shop shop) {
+        UUID orderId = shop.service
+            .createOrder(new Address(4, 4))
+            .getId();
+        shop.service.addCustomPancake(orderId, INGREDIENTS, 1);
+        shop.service.completeOrder(orderId);
+        shop.service.prepareOrder(orderId);
+        return shop.service.deliverOrder(orderId);
+    }
+
+    @Benchmark
+    public List<OrderEvent> getEventsForOrder(Shop shop) {
+        return shop.filledLog.getEventsForOrder(shop.viewedOrderId);
+    }
+
+    @Benchmark
+    public List<OrderEvent> getEventsByType(Shop shop) {
+        return shop.filledLog.getEventsByType(OrderEvent.EventType.CANCEL_ORDER);
+    }
+
+    private static Address address(int i) {
+        return new Address(1 + i % 20, 1 + i % 400);
+    }
+}
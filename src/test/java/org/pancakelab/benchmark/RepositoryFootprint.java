@@ -0,0 +1,75 @@
+package org.pancakelab.benchmark;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.util.List;
+import java.util.function.Supplier;
+import org.pancakelab.domain.order.Order;
+import org.pancakelab.domain.order.OrderStatus;
+import org.pancakelab.domain.pancake.Item;
+import org.pancakelab.domain.pancake.PancakeBuilder;
+import org.pancakelab.domain.shared.Address;
+import org.pancakelab.domain.shared.Ingredient;
+import org.pancakelab.domain.shared.IngredientName;
+import org.pancakelab.repository.ColumnarOrderRepository;
+import org.pancakelab.repository.InMemoryOrderRepository;
+import org.pancakelab.repository.OrderRepository;
+
+/**
+ * Heap retained per stored order by the in-memory and the columnar repository. Fills each repository with orders of
+ * two recipes, drops every {@link Order} reference it holds, and compares the used heap after a full collection with
+ * the used heap before filling. Run with a fixed heap, e.g.
+ * {@code java -Xms2g -Xmx2g -cp ... org.pancakelab.benchmark.RepositoryFootprint 1000000}.
+ */
+public final class RepositoryFootprint {
+    private static final Item DARK_CHOCOLATE = new PancakeBuilder()
+        .addIngredient(new Ingredient(IngredientName.DARK_CHOCOLATE))
+        .build();
+    private static final Item MILK_CHOCOLATE = new PancakeBuilder()
+        .addIngredient(new Ingredient(IngredientName.MILK_CHOCOLATE))
+        .build();
+
+    private RepositoryFootprint() {
+    }
+
+    public static void main(String[] args) {
+        int orders = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        List<Supplier<OrderRepository>> repositories = List.of(InMemoryOrderRepository::new, ColumnarOrderRepository::new);
+        for (Supplier<OrderRepository> repository : repositories) {
+            long bytes = retainedBytes(repository, orders);
+            System.out.printf("%-28s %,12d orders %,14d bytes %8.1f bytes/order%n", repository
+                .get()
+                .getClass()
+                .getSimpleName(), orders, bytes, (double) bytes / orders);
+        }
+    }
+
+    private static long retainedBytes(Supplier<OrderRepository> factory, int orders) {
+        long before = usedHeapAfterGc();
+        OrderRepository repository = factory.get();
+        for (int i = 0; i < orders; i++) {
+            Order order = new Order(new Address(1 + i % 1000, 1 + i % 500));
+            repository.save(order);
+            order.addItems(DARK_CHOCOLATE, 2);
+            order.addItem(MILK_CHOCOLATE);
+        }
+        usedHeapAfterGc();
+        // a scan touches every segment, which lets the columnar repository drop the views collected above
+        repository.findByStatus(OrderStatus.DELIVERED);
+        long after = usedHeapAfterGc();
+        if (repository.findAll().size() != orders) {
+            throw new IllegalStateException("Repository lost orders.");
+        }
+        return after - before;
+    }
+
+    private static long usedHeapAfterGc() {
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return memory
+            .getHeapMemoryUsage()
+            .getUsed();
+    }
+}
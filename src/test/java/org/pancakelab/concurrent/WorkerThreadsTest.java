@@ -0,0 +1,37 @@
+package org.pancakelab.concurrent;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+
+class WorkerThreadsTest {
+
+    @Test
+    void givenVirtualExecutor_whenTasksRun_thenTheyRunOnNamedThreadsOfTheAvailableKind() throws Exception {
+        ExecutorService executor = WorkerThreads.virtualExecutor("worker-test-", 2);
+        try {
+            Thread first = executor
+                .submit(Thread::currentThread)
+                .get();
+            Thread second = executor
+                .submit(Thread::currentThread)
+                .get();
+
+            assertTrue(first
+                .getName()
+                .startsWith("worker-test-"));
+            if (WorkerThreads.virtualThreadsAvailable()) {
+                // one thread per task, never reused
+                assertNotSame(first, second);
+            } else {
+                assertTrue(second.isDaemon());
+            }
+        }
+        finally {
+            executor.shutdown();
+        }
+        assertTrue(executor.awaitTermination(5, TimeUnit.SECONDS));
+    }
+}
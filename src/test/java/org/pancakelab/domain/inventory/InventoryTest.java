@@ -0,0 +1,105 @@
+package org.pancakelab.domain.inventory;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+import org.pancakelab.domain.pancake.RecipeRegistry;
+import org.pancakelab.domain.shared.IngredientName;
+
+class InventoryTest {
+    private static final long HAZELNUT_CHOCOLATE = RecipeRegistry.bitOf(IngredientName.MILK_CHOCOLATE) | RecipeRegistry.bitOf(
+        IngredientName.HAZELNUTS);
+
+    @Test
+    void givenStock_whenReservingReleasingAndConsuming_thenCountsFollow() {
+        Inventory inventory = new Inventory(4);
+        inventory.restock(IngredientName.MILK_CHOCOLATE, 10);
+        inventory.restock(IngredientName.HAZELNUTS, 10);
+
+        inventory.reserve(HAZELNUT_CHOCOLATE, 6);
+        inventory.release(HAZELNUT_CHOCOLATE, 2);
+        inventory.consume(HAZELNUT_CHOCOLATE, 4);
+
+        assertEquals(6, inventory.available(IngredientName.HAZELNUTS));
+        assertEquals(0, inventory.reserved(IngredientName.HAZELNUTS));
+        assertEquals(4, inventory.consumed(IngredientName.MILK_CHOCOLATE));
+    }
+
+    @Test
+    void givenOneIngredientShort_whenReservingRecipe_thenNothingIsReserved() {
+        Inventory inventory = new Inventory(4);
+        inventory.restock(IngredientName.MILK_CHOCOLATE, 10);
+        inventory.restock(IngredientName.HAZELNUTS, 3);
+
+        OutOfStockException shortage = assertThrows(OutOfStockException.class, () -> inventory.reserve(HAZELNUT_CHOCOLATE, 4));
+
+        assertEquals(IngredientName.HAZELNUTS, shortage.getIngredient());
+        assertEquals(10, inventory.available(IngredientName.MILK_CHOCOLATE));
+        assertEquals(3, inventory.available(IngredientName.HAZELNUTS));
+        assertEquals(0, inventory.reserved(IngredientName.MILK_CHOCOLATE));
+    }
+
+    @Test
+    void givenStockSpreadOverStripes_whenOneReservationNeedsMoreThanAStripe_thenItDrawsFromTheOthers() {
+        Inventory inventory = new Inventory(8);
+        inventory.restock(IngredientName.HAZELNUTS, 8);
+
+        inventory.reserve(RecipeRegistry.bitOf(IngredientName.HAZELNUTS), 8);
+
+        assertEquals(0, inventory.available(IngredientName.HAZELNUTS));
+        assertEquals(8, inventory.reserved(IngredientName.HAZELNUTS));
+    }
+
+    @Test
+    void givenManyThreadsReserving_whenStockRunsOut_thenItIsNeverOversold() throws Exception {
+        Inventory inventory = new Inventory(8);
+        inventory.restock(IngredientName.MILK_CHOCOLATE, 5_000);
+        inventory.restock(IngredientName.HAZELNUTS, 1_000);
+        AtomicInteger reserved = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<?>> tasks = new ArrayList<>();
+            for (int thread = 0; thread < 8; thread++) {
+                tasks.add(executor.submit(() -> {
+                    for (int i = 0; i < 1_000; i++) {
+                        try {
+                            inventory.reserve(HAZELNUT_CHOCOLATE, 1);
+                            reserved.incrementAndGet();
+                        }
+                        catch (OutOfStockException soldOut) {
+                            // expected once the hazelnuts are gone
+                        }
+                    }
+                }));
+            }
+            for (Future<?> task : tasks) {
+                task.get();
+            }
+        }
+        finally {
+            executor.shutdown();
+        }
+
+        assertEquals(1_000, reserved.get());
+        assertEquals(0, inventory.available(IngredientName.HAZELNUTS));
+        assertEquals(4_000, inventory.available(IngredientName.MILK_CHOCOLATE));
+        assertEquals(1_000, inventory.reserved(IngredientName.HAZELNUTS));
+    }
+
+    @Test
+    void givenUnlimitedInventory_whenReserving_thenNothingIsCounted() {
+        Inventory inventory = Inventory.unlimited();
+
+        inventory.reserve(HAZELNUT_CHOCOLATE, 1_000_000);
+
+        assertFalse(inventory.isLimited());
+        assertEquals(0, inventory.reserved(IngredientName.HAZELNUTS));
+        assertThrows(IllegalArgumentException.class, () -> new Inventory(3));
+    }
+}
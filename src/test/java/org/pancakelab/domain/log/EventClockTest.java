@@ -0,0 +1,76 @@
+package org.pancakelab.domain.log;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.api.Test;
+
+class EventClockTest {
+
+    @Test
+    void givenSystemClock_whenReadRepeatedly_thenItNeverGoesBackwardsAndFollowsWallClock() {
+        EventClock clock = EventClock.system();
+        long previous = clock.epochNanos();
+        for (int i = 0; i < 10_000; i++) {
+            long current = clock.epochNanos();
+            assertTrue(current >= previous);
+            previous = current;
+        }
+        long wallClock = Instant
+            .now()
+            .toEpochMilli() * 1_000_000L;
+        assertTrue(Math.abs(previous - wallClock) < Duration
+            .ofSeconds(1)
+            .toNanos());
+    }
+
+    @Test
+    void givenDriftingWallClock_whenSystemClockResyncs_thenItCatchesUpButNeverGoesBackwards() {
+        AtomicLong wallClock = new AtomicLong(1_000);
+        AtomicLong nanoTime = new AtomicLong(0);
+        SystemEventClock clock = new SystemEventClock(wallClock::get, nanoTime::get, Duration.ofNanos(100));
+
+        nanoTime.set(50);
+        wallClock.set(5_000);
+        assertEquals(1_050, clock.epochNanos());
+        nanoTime.set(100);
+        assertEquals(5_000, clock.epochNanos());
+        nanoTime.set(150);
+        assertEquals(5_050, clock.epochNanos());
+
+        wallClock.set(2_000);
+        nanoTime.set(200);
+        assertEquals(5_100, clock.epochNanos());
+        nanoTime.set(250);
+        assertEquals(5_150, clock.epochNanos());
+    }
+
+    @Test
+    void givenCoarseClock_whenTimePasses_thenItTicksUntilClosed() throws InterruptedException {
+        long before;
+        try (CoarseEventClock clock = EventClock.coarse(Duration.ofMillis(1))) {
+            before = clock.epochNanos();
+            long deadline = System.nanoTime() + Duration
+                .ofSeconds(5)
+                .toNanos();
+            while (clock.epochNanos() == before && System.nanoTime() < deadline) {
+                Thread.sleep(1);
+            }
+            assertTrue(clock.epochNanos() > before);
+        }
+        assertThrows(IllegalArgumentException.class, () -> EventClock.coarse(Duration.ZERO));
+    }
+
+    @Test
+    void givenManualClock_whenAdvancedOrSet_thenItReportsExactlyThatTime() {
+        ManualEventClock clock = new ManualEventClock(Instant.ofEpochSecond(10, 5));
+
+        assertEquals(10_000_000_005L, clock.epochNanos());
+        clock.advance(Duration.ofNanos(7));
+        assertEquals(10_000_000_012L, clock.epochNanos());
+        clock.set(Instant.EPOCH);
+        assertEquals(0, clock.epochNanos());
+    }
+}
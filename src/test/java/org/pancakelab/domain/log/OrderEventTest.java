@@ -0,0 +1,75 @@
+package org.pancakelab.domain.log;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+import org.junit.jupiter.api.Test;
+import org.pancakelab.domain.pancake.Pancake;
+import org.pancakelab.domain.pancake.RecipeRegistry;
+import org.pancakelab.domain.shared.Address;
+import org.pancakelab.domain.shared.Ingredient;
+import org.pancakelab.domain.shared.IngredientName;
+
+class OrderEventTest {
+    private static final UUID          ORDER_ID  = UUID.randomUUID();
+    private static final LocalDateTime TIMESTAMP = LocalDateTime.of(2024, 5, 1, 12, 30);
+    private static final long          NANOS     = new OrderEvent(ORDER_ID, TIMESTAMP, OrderEvent.EventType.ADD_PANCAKE, "").epochNanos();
+    private static final Pancake       PANCAKE   = RecipeRegistry.recipeOf(List.of(new Ingredient(IngredientName.DARK_CHOCOLATE)));
+
+    @Test
+    void givenStructuredEvent_whenDetailsAreRead_thenTheyAreRenderedOnceAndCached() {
+        OrderEvent event = OrderEvent.pancakesAdded(ORDER_ID, NANOS, PANCAKE.getRecipeId(), 3);
+
+        String details = event.details();
+
+        assertEquals("Added 3 pancakes with description Delicious pancake with dark chocolate!", details);
+        assertSame(details, event.details());
+        assertEquals(OrderEvent.Template.PANCAKES_ADDED, event.template());
+        assertEquals(3, event.count());
+    }
+
+    @Test
+    void givenStructuredEvents_whenCompared_thenTypedFieldsDecideWithoutRenderingDetails() {
+        Address address = new Address(1, 101);
+        OrderEvent delivered = OrderEvent.orderDelivered(ORDER_ID, NANOS, 2, address);
+        // rendering an address-less delivery would fail, so these comparisons prove details stay unrendered
+        OrderEvent unrenderable = OrderEvent.orderDelivered(ORDER_ID, NANOS, 2, null);
+
+        assertEquals(OrderEvent.orderDelivered(ORDER_ID, NANOS, 2, new Address(1, 101)), delivered);
+        assertEquals(OrderEvent
+            .orderDelivered(ORDER_ID, NANOS, 2, new Address(1, 101))
+            .hashCode(), delivered.hashCode());
+        assertNotEquals(OrderEvent.orderDelivered(ORDER_ID, NANOS, 3, address), delivered);
+        assertNotEquals(delivered, unrenderable);
+        assertEquals(OrderEvent.orderDelivered(ORDER_ID, NANOS, 2, null), unrenderable);
+        assertEquals(OrderEvent
+            .orderDelivered(ORDER_ID, NANOS, 2, null)
+            .hashCode(), unrenderable.hashCode());
+        assertNotEquals(OrderEvent.pancakesAdded(ORDER_ID, NANOS, PANCAKE.getRecipeId(), 2), OrderEvent.orderCancelled(ORDER_ID, NANOS, 2));
+    }
+
+    @Test
+    void givenTextEvents_whenCompared_thenDetailsDecide() {
+        String details = "Added pancake with description Delicious pancake with dark chocolate!";
+        OrderEvent text = new OrderEvent(ORDER_ID, TIMESTAMP, OrderEvent.EventType.ADD_PANCAKE, details);
+
+        assertEquals(new OrderEvent(ORDER_ID, NANOS, OrderEvent.EventType.ADD_PANCAKE, details), text);
+        assertEquals(new OrderEvent(ORDER_ID, NANOS, OrderEvent.EventType.ADD_PANCAKE, details).hashCode(), text.hashCode());
+        assertNotEquals(new OrderEvent(ORDER_ID, NANOS, OrderEvent.EventType.ADD_PANCAKE, "Something else"), text);
+        assertNotEquals(OrderEvent.pancakesAdded(ORDER_ID, NANOS, PANCAKE.getRecipeId(), 1), text);
+    }
+
+    @Test
+    void givenRemovalByUnknownDescription_whenDetailsAreRead_thenGivenDescriptionIsKept() {
+        OrderEvent known = OrderEvent.pancakesRemoved(ORDER_ID, NANOS, PANCAKE.getDescription(), 1, 4);
+        OrderEvent unknown = OrderEvent.pancakesRemoved(ORDER_ID, NANOS, "Pancake nobody made", 0, 4);
+
+        assertEquals(PANCAKE.getRecipeId(), known.recipeId());
+        assertEquals("Removed 1 pancake(s) with description 'Delicious pancake with dark chocolate!'. Order now contains 4 pancake(s).",
+            known.details());
+        assertEquals(OrderEvent.Template.TEXT, unknown.template());
+        assertEquals("Removed 0 pancake(s) with description 'Pancake nobody made'. Order now contains 4 pancake(s).", unknown.details());
+    }
+}
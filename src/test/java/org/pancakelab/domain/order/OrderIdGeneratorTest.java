@@ -0,0 +1,100 @@
+package org.pancakelab.domain.order;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.pancakelab.domain.shared.Address;
+
+class OrderIdGeneratorTest {
+
+    static Stream<OrderIdGenerator> generators() {
+        return Stream.of(OrderIdGenerator.random(), OrderIdGenerator.timeOrdered(), OrderIdGenerator.perThreadCounter());
+    }
+
+    @ParameterizedTest
+    @MethodSource("generators")
+    void givenGenerator_whenManyThreadsGenerateIds_thenAllAreDistinct(OrderIdGenerator generator) throws Exception {
+        Set<UUID> ids = ConcurrentHashMap.newKeySet();
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<?>> tasks = new ArrayList<>();
+            for (int thread = 0; thread < 8; thread++) {
+                tasks.add(executor.submit(() -> {
+                    for (int i = 0; i < 20_000; i++) {
+                        ids.add(generator.nextId());
+                    }
+                }));
+            }
+            for (Future<?> task : tasks) {
+                task.get();
+            }
+        }
+        finally {
+            executor.shutdown();
+        }
+
+        assertEquals(8 * 20_000, ids.size());
+    }
+
+    @Test
+    void givenTimeOrderedGenerator_whenGenerating_thenIdsAreVersion7AndSortByCreationTime() throws InterruptedException {
+        OrderIdGenerator generator = OrderIdGenerator.timeOrdered();
+        long before = System.currentTimeMillis();
+        UUID first = generator.nextId();
+        Thread.sleep(2);
+        UUID second = generator.nextId();
+
+        assertEquals(7, first.version());
+        assertEquals(2, first.variant());
+        assertTrue(first.getMostSignificantBits() >>> 16 >= before);
+        assertTrue(first.compareTo(second) < 0);
+    }
+
+    @Test
+    void givenPerThreadCounterGenerator_whenGeneratingOnOneThread_thenIdsAreConsecutive() {
+        OrderIdGenerator generator = OrderIdGenerator.perThreadCounter();
+        UUID first = generator.nextId();
+        UUID second = generator.nextId();
+
+        assertEquals(8, first.version());
+        assertEquals(2, first.variant());
+        assertEquals(first.getMostSignificantBits(), second.getMostSignificantBits());
+        assertEquals(first.getLeastSignificantBits() + 1, second.getLeastSignificantBits());
+    }
+
+    @Test
+    void givenEveryLaneTaken_whenNewThreadGenerates_thenLanesContinueUnderANewPrefix() throws Exception {
+        OrderIdGenerator generator = OrderIdGenerator.perThreadCounter();
+        UUID before = generator.nextId();
+
+        PerThreadCounterIdGenerator.exhaustLanes();
+        UUID[] after = new UUID[1];
+        Thread thread = new Thread(() -> after[0] = generator.nextId());
+        thread.start();
+        thread.join();
+
+        assertEquals(8, after[0].version());
+        assertNotEquals(before.getMostSignificantBits(), after[0].getMostSignificantBits());
+        assertTrue(after[0].getMostSignificantBits() >>> 16 > before.getMostSignificantBits() >>> 16);
+    }
+
+    @Test
+    void givenNewOrder_whenCreatedWithoutId_thenItGetsTimeOrderedId() {
+        Order order = new Order(new Address(1, 1));
+
+        assertEquals(7, order
+            .getId()
+            .version());
+    }
+}
@@ -0,0 +1,169 @@
+package org.pancakelab.domain.order;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.pancakelab.domain.pancake.Item;
+import org.pancakelab.domain.pancake.PancakeBuilder;
+import org.pancakelab.domain.shared.Address;
+import org.pancakelab.domain.shared.Ingredient;
+import org.pancakelab.domain.shared.IngredientName;
+
+/**
+ * Races the operations of a single {@link Order} many times over and checks the invariants of its state machine
+ * after every round.
+ */
+class OrderStateStressTest {
+    private static final int  ROUNDS  = 2_000;
+    private static final int  THREADS = 4;
+    private static final Item PANCAKE = new PancakeBuilder()
+        .addIngredient(new Ingredient(IngredientName.DARK_CHOCOLATE))
+        .build();
+
+    private final ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+
+    @AfterEach
+    void shutdown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void givenAddsAndRemovesRacingCompletion_whenRoundEnds_thenNoPancakeIsLostOrAddedAfterCompletion() throws Exception {
+        for (int round = 0; round < ROUNDS; round++) {
+            Order order = new Order(new Address(1, 101));
+            order.addItem(PANCAKE);
+            AtomicInteger expected = new AtomicInteger(1);
+            Runnable adder = () -> {
+                for (int i = 0; i < 5; i++) {
+                    try {
+                        order.addItems(PANCAKE, 2);
+                        expected.addAndGet(2);
+                    }
+                    catch (IllegalStateException closed) {
+                        return;
+                    }
+                }
+            };
+            Runnable remover = () -> {
+                for (int i = 0; i < 5; i++) {
+                    try {
+                        expected.addAndGet(-order.removeItem(PANCAKE, 1));
+                    }
+                    catch (IllegalStateException closed) {
+                        return;
+                    }
+                }
+            };
+            Runnable completer = () -> {
+                try {
+                    order.complete();
+                }
+                catch (IllegalStateException emptyOrRaced) {
+                    // the remover may have emptied the order first
+                }
+            };
+
+            race(adder, adder, remover, completer);
+
+            OrderStatus status = order.getStatus();
+            assertTrue(status == OrderStatus.NEW || status == OrderStatus.COMPLETED);
+            assertEquals(expected.get(), order.getItemCount());
+            assertEquals(expected.get(), order.getItems().size());
+            assertEquals(expected.get(), order.countOf(PANCAKE));
+            if (status == OrderStatus.COMPLETED) {
+                assertTrue(order.getItemCount() > 0);
+                assertThrows(IllegalStateException.class, () -> order.addItem(PANCAKE));
+            }
+        }
+    }
+
+    @Test
+    void givenCompetingTransitionsFromNew_whenRoundEnds_thenExactlyOneWinsAndIsReportedOnce() throws Exception {
+        for (int round = 0; round < ROUNDS; round++) {
+            Order order = new Order(new Address(1, 101));
+            order.addItem(PANCAKE);
+            Queue<OrderStatus> reported = new ConcurrentLinkedQueue<>();
+            order.attach((changed, previous, current) -> {
+                if (previous != null) {
+                    assertEquals(OrderStatus.NEW, previous);
+                    reported.add(current);
+                }
+            });
+            AtomicInteger winners = new AtomicInteger();
+            Runnable completer = () -> attempt(order::complete, winners);
+            Runnable canceller = () -> attempt(order::cancel, winners);
+
+            race(completer, canceller, completer, canceller);
+
+            assertEquals(1, winners.get());
+            assertEquals(List.of(order.getStatus()), List.copyOf(reported));
+        }
+    }
+
+    @Test
+    void givenEveryThreadDrivingTheOrderForward_whenRoundEnds_thenEachTransitionHappensExactlyOnce() throws Exception {
+        for (int round = 0; round < ROUNDS; round++) {
+            Order order = new Order(new Address(1, 101));
+            order.addItem(PANCAKE);
+            Queue<OrderStatus> reported = new ConcurrentLinkedQueue<>();
+            order.attach((changed, previous, current) -> {
+                if (previous != null) {
+                    reported.add(current);
+                }
+            });
+            AtomicInteger transitions = new AtomicInteger();
+            Runnable driver = () -> {
+                attempt(order::complete, transitions);
+                attempt(order::prepare, transitions);
+                attempt(order::deliver, transitions);
+            };
+
+            race(driver, driver, driver, driver);
+
+            assertEquals(OrderStatus.DELIVERED, order.getStatus());
+            assertEquals(3, transitions.get());
+            List<OrderStatus> sorted = new ArrayList<>(reported);
+            sorted.sort(null);
+            assertEquals(List.of(OrderStatus.COMPLETED, OrderStatus.PREPARED, OrderStatus.DELIVERED), sorted);
+        }
+    }
+
+    private static void attempt(Runnable transition, AtomicInteger successes) {
+        try {
+            transition.run();
+            successes.incrementAndGet();
+        }
+        catch (IllegalStateException illegal) {
+            // another thread made this transition, or the order is not there yet
+        }
+    }
+
+    /**
+     * Starts all tasks at the same instant and waits for them to finish.
+     */
+    private void race(Runnable... tasks) throws Exception {
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+        for (Runnable task : tasks) {
+            futures.add(executor.submit(() -> {
+                start.await();
+                task.run();
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get();
+        }
+    }
+}
@@ -3,6 +3,7 @@ package org.pancakelab.domain.order;
 import static org.junit.jupiter.api.Assertions.*;
 
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
@@ -75,6 +76,54 @@ class OrderTest {
         assertEquals(1, order.getItems().size());
     }
 
+    @Test
+    void givenOrderWithPancakes_whenRemovingByRecipe_thenOnlyMatchingPancakesAreRemovedAndCounted() {
+        var darkChocolate = new PancakeBuilder()
+            .addIngredient(new Ingredient(IngredientName.DARK_CHOCOLATE))
+            .build();
+        var whippedCream = new PancakeBuilder()
+            .addIngredient(new Ingredient(IngredientName.WHIPPED_CREAM))
+            .build();
+        order.addItem(darkChocolate);
+        order.addItem(whippedCream);
+        order.addItem(darkChocolate);
+
+        assertEquals(2, order.removeItem(darkChocolate, 5));
+        assertEquals(0, order.removeItem("Delicious pancake with nothing!", 1));
+        assertEquals(List.of(whippedCream), order.getItems());
+        assertEquals(1, order.getItemCount());
+    }
+
+    @Test
+    void givenCateringOrder_whenAddingAndRemovingInBulk_thenQuantitiesAreKeptPerRecipe() {
+        var darkChocolate = new PancakeBuilder()
+            .addIngredient(new Ingredient(IngredientName.DARK_CHOCOLATE))
+            .build();
+        var whippedCream = new PancakeBuilder()
+            .addIngredient(new Ingredient(IngredientName.WHIPPED_CREAM))
+            .build();
+
+        order.addItems(darkChocolate, 500);
+        order.addItem(whippedCream);
+        order.addItems(darkChocolate, 500);
+        assertEquals(999, order.removeItem(darkChocolate, 999));
+
+        assertEquals(2, order.getItemCount());
+        assertEquals(1, order.countOf(darkChocolate));
+        assertEquals(List.of(darkChocolate.getDescription(), whippedCream.getDescription()), order.getPancakeDescriptions());
+        assertEquals(Map.of(darkChocolate, 1, whippedCream, 1), order.getItemQuantities());
+    }
+
+    @Test
+    void givenNonPositiveCount_whenAddingItems_thenThrowsException() {
+        var pancake = new PancakeBuilder()
+            .addIngredient(new Ingredient(IngredientName.DARK_CHOCOLATE))
+            .build();
+
+        Exception exception = assertThrows(IllegalArgumentException.class, () -> order.addItems(pancake, 0));
+        assertEquals("Pancake count must be positive.", exception.getMessage());
+    }
+
     @Test
     void givenOrderWithPancakes_whenRemovingSpecificPancakes_andOrderStatusChangedToDelivery_thenOrderCannotBeRemoved() {
         var pancake = new PancakeBuilder()
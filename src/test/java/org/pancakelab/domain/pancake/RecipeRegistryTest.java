@@ -0,0 +1,62 @@
+package org.pancakelab.domain.pancake;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.Arrays;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.pancakelab.domain.shared.Ingredient;
+import org.pancakelab.domain.shared.IngredientName;
+
+class RecipeRegistryTest {
+
+    @Test
+    void givenSameIngredientsInAnyOrder_whenLookingUpRecipe_thenSameInstanceIsShared() {
+        Pancake first = RecipeRegistry.recipeOf(List.of(
+            new Ingredient(IngredientName.WHIPPED_CREAM),
+            new Ingredient(IngredientName.DARK_CHOCOLATE)));
+        Item second = new PancakeBuilder()
+            .addIngredient(new Ingredient(IngredientName.DARK_CHOCOLATE))
+            .addIngredient(new Ingredient(IngredientName.WHIPPED_CREAM))
+            .build();
+
+        assertSame(first, second);
+        assertEquals(first.getRecipeId(), second.getRecipeId());
+        assertSame(first, RecipeRegistry.recipe(first.getRecipeId()));
+    }
+
+    @Test
+    void givenRecipe_whenDescribed_thenIngredientsAreListedInMenuOrder() {
+        Pancake pancake = RecipeRegistry.recipeOf(List.of(
+            new Ingredient(IngredientName.HAZELNUTS),
+            new Ingredient(IngredientName.MILK_CHOCOLATE)));
+
+        assertEquals("Delicious pancake with milk chocolate, hazelnuts!", pancake.getDescription());
+    }
+
+    @Test
+    void givenDescription_whenLookingUpRecipe_thenSharedRecipeIsReturned() {
+        Pancake pancake = RecipeRegistry.recipeOf(List.of(new Ingredient(IngredientName.WHIPPED_CREAM)));
+
+        assertSame(pancake.getDescription(), pancake.getDescription());
+        assertSame(pancake, RecipeRegistry.recipeDescribedAs("Delicious pancake with whipped cream!"));
+        assertNull(RecipeRegistry.recipeDescribedAs("Delicious pancake with nothing!"));
+    }
+
+    @Test
+    void givenDuplicateOrNullIngredient_whenLookingUpRecipe_thenThrowsException() {
+        List<Ingredient> duplicate = List.of(
+            new Ingredient(IngredientName.HAZELNUTS),
+            new Ingredient(IngredientName.HAZELNUTS));
+
+        Exception exception = assertThrows(IllegalArgumentException.class, () -> RecipeRegistry.recipeOf(duplicate));
+        assertEquals("Duplicate ingredient: hazelnuts", exception.getMessage());
+        exception = assertThrows(IllegalArgumentException.class, () -> RecipeRegistry.recipeOf(Arrays.asList((Ingredient) null)));
+        assertEquals("Ingredient cannot be null.", exception.getMessage());
+    }
+
+    @Test
+    void givenEmptyRecipe_whenLookingUpRecipe_thenThrowsException() {
+        assertThrows(IllegalArgumentException.class, () -> RecipeRegistry.recipe(0));
+    }
+}
@@ -0,0 +1,151 @@
+package org.pancakelab.metrics;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import jdk.jfr.Name;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.pancakelab.domain.order.Order;
+import org.pancakelab.domain.pancake.PancakeBuilder;
+import org.pancakelab.domain.shared.Address;
+import org.pancakelab.domain.shared.Ingredient;
+import org.pancakelab.domain.shared.IngredientName;
+import org.pancakelab.repository.InMemoryOrderRepository;
+import org.pancakelab.service.OrderLog;
+import org.pancakelab.service.PancakeService;
+
+class FlightRecorderEventsTest {
+    private static final List<Ingredient> DARK_CHOCOLATE = List.of(new Ingredient(IngredientName.DARK_CHOCOLATE));
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void givenRecording_whenOrderGoesThroughItsLifecycle_thenLifecycleEventsAreRecorded() throws Exception {
+        PancakeService service = new PancakeService(new InMemoryOrderRepository(), new OrderLog());
+
+        List<RecordedEvent> events = record(() -> {
+            UUID orderId = service
+                .createOrder(new Address(1, 1))
+                .getId();
+            service.addCustomPancake(orderId, DARK_CHOCOLATE, 3);
+            service.removePancakes("Delicious pancake with dark chocolate!", orderId, 1);
+            service.completeOrder(orderId);
+            service.listCompletedOrders();
+            service.prepareOrder(orderId);
+            service.deliverOrder(orderId);
+        });
+
+        Map<String, List<RecordedEvent>> byName = events
+            .stream()
+            .collect(Collectors.groupingBy(event -> event
+                .getEventType()
+                .getName()));
+        assertEquals(List.of("COMPLETED", "PREPARED", "DELIVERED"), byName
+            .get("org.pancakelab.OrderTransition")
+            .stream()
+            .map(event -> event.getString("to"))
+            .toList());
+        assertEquals(List.of(3, -1), byName
+            .get("org.pancakelab.OrderItemsChanged")
+            .stream()
+            .map(event -> event.getInt("change"))
+            .toList());
+        assertEquals(3, byName
+            .get("org.pancakelab.OrderLogAppend")
+            .size());
+        RecordedEvent scan = byName
+            .get("org.pancakelab.RepositoryScan")
+            .get(0);
+        assertEquals("findByStatus(COMPLETED)", scan.getString("query"));
+        assertEquals(1, scan.getInt("returned"));
+    }
+
+    @Test
+    void givenRecording_whenItemLockIsHeldByAnotherThread_thenTheWaitIsRecorded() throws Exception {
+        Order order = new Order(new Address(1, 1));
+        CountDownLatch locked = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        List<RecordedEvent> events = record(() -> {
+            Thread holder = new Thread(() -> order.withItemsLocked(() -> {
+                locked.countDown();
+                await(release);
+            }));
+            holder.start();
+            await(locked);
+            Thread waiter = new Thread(() -> order.addItem(new PancakeBuilder()
+                .addIngredient(new Ingredient(IngredientName.DARK_CHOCOLATE))
+                .build()));
+            waiter.start();
+            while (waiter.getState() != Thread.State.WAITING) {
+                Thread.onSpinWait();
+            }
+            release.countDown();
+            join(holder);
+            join(waiter);
+        });
+
+        RecordedEvent wait = events
+            .stream()
+            .filter(event -> event
+                .getEventType()
+                .getName()
+                .equals("org.pancakelab.OrderLockWait"))
+            .findFirst()
+            .orElseThrow();
+        assertEquals(order
+            .getId()
+            .toString(), wait.getString("orderId"));
+        assertEquals(1, order.getItemCount());
+    }
+
+    private List<RecordedEvent> record(Runnable workload) throws Exception {
+        Path file = directory.resolve("pancakelab.jfr");
+        try (Recording recording = new Recording()) {
+            for (Class<?> type : List.of(OrderTransitionEvent.class, OrderItemsChangedEvent.class, OrderLogAppendEvent.class,
+                RepositoryScanEvent.class, OrderLockWaitEvent.class, OrderStateContentionEvent.class)) {
+                recording
+                    .enable(type.getAnnotation(Name.class).value())
+                    .withoutThreshold();
+            }
+            recording.start();
+            workload.run();
+            recording.stop();
+            recording.dump(file);
+        }
+        return RecordingFile.readAllEvents(file);
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            assertTrue(latch.await(5, TimeUnit.SECONDS));
+        }
+        catch (InterruptedException e) {
+            Thread
+                .currentThread()
+                .interrupt();
+        }
+    }
+
+    private static void join(Thread thread) {
+        try {
+            thread.join(TimeUnit.SECONDS.toMillis(5));
+        }
+        catch (InterruptedException e) {
+            Thread
+                .currentThread()
+                .interrupt();
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package org.pancakelab.metrics;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.time.Duration;
+import org.junit.jupiter.api.Test;
+
+class LatencyHistogramTest {
+
+    @Test
+    void givenUniformValues_whenReadingPercentiles_thenTheyAreWithinBucketPrecision() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (long micros = 1; micros <= 1000; micros++) {
+            histogram.record(Duration.ofNanos(micros * 1000));
+        }
+
+        assertEquals(1000, histogram.count());
+        assertWithin(500_000, histogram.percentile(50));
+        assertWithin(990_000, histogram.percentile(99));
+        assertEquals(Duration.ofMillis(1), histogram.percentile(100));
+        assertEquals(Duration.ofMillis(1), histogram.max());
+        assertEquals(Duration.ofNanos(500_500), histogram.mean());
+    }
+
+    @Test
+    void givenSmallValues_whenReadingPercentiles_thenTheyAreExact() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(3);
+        histogram.record(7);
+
+        assertEquals(Duration.ofNanos(3), histogram.percentile(50));
+        assertEquals(Duration.ofNanos(7), histogram.percentile(99));
+    }
+
+    @Test
+    void givenEmptyHistogram_whenReadingPercentiles_thenZeroIsReported() {
+        LatencyHistogram histogram = new LatencyHistogram();
+
+        assertEquals(Duration.ZERO, histogram.percentile(99));
+        assertThrows(IllegalArgumentException.class, () -> histogram.percentile(101));
+    }
+
+    private static void assertWithin(long expectedNanos, Duration actual) {
+        long nanos = actual.toNanos();
+        assertTrue(nanos >= expectedNanos && nanos <= expectedNanos * 1.07, () -> "expected about " + expectedNanos + " but was " + nanos);
+    }
+}
@@ -0,0 +1,263 @@
+package org.pancakelab.repository;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.pancakelab.domain.order.Order;
+import org.pancakelab.domain.order.OrderStatus;
+import org.pancakelab.domain.pancake.Item;
+import org.pancakelab.domain.pancake.PancakeBuilder;
+import org.pancakelab.domain.shared.Address;
+import org.pancakelab.domain.shared.Ingredient;
+import org.pancakelab.domain.shared.IngredientName;
+import org.pancakelab.service.OrderLog;
+import org.pancakelab.service.PancakeService;
+
+class ColumnarOrderRepositoryTest {
+
+    private ColumnarOrderRepository repository;
+
+    @BeforeEach
+    void setUp() {
+        repository = new ColumnarOrderRepository(4, 0);
+    }
+
+    @Test
+    void givenSavedOrder_whenFound_thenSameViewIsReturnedWhileInUse() {
+        Order order = new Order(new Address(1, 101));
+
+        repository.save(order);
+
+        assertSame(order, repository.findById(order.getId()));
+        assertNull(repository.findById(UUID.randomUUID()));
+        assertEquals(1, repository.size());
+    }
+
+    @Test
+    void givenTakenId_whenSavingIfAbsent_thenStoredOrderIsKept() {
+        Order order = new Order(new Address(1, 101));
+        Order duplicate = new Order(order.getId(), new Address(2, 202));
+
+        assertTrue(repository.saveIfAbsent(order));
+        assertFalse(repository.saveIfAbsent(duplicate));
+
+        assertSame(order, repository.findById(order.getId()));
+        assertEquals(new Address(1, 101), repository
+            .restoredViewOf(order.getId())
+            .getAddress());
+        assertEquals(1, repository.size());
+    }
+
+    @Test
+    void givenChangedOrder_whenViewIsRecreated_thenColumnsHoldEveryChange() {
+        Item dark = pancakeWith(IngredientName.DARK_CHOCOLATE);
+        Item milk = pancakeWith(IngredientName.MILK_CHOCOLATE);
+        Order order = new Order(new Address(3, 303));
+        repository.save(order);
+        order.addItems(dark, 2);
+        order.addItem(milk);
+        order.complete();
+        UUID orderId = order.getId();
+
+        Order view = repository.restoredViewOf(orderId);
+
+        assertNotSame(order, view);
+        assertEquals(new Address(3, 303), view.getAddress());
+        assertEquals(OrderStatus.COMPLETED, view.getStatus());
+        assertEquals(Map.of(dark, 2, milk, 1), view.getItemQuantities());
+        assertEquals(3, view.getItemCount());
+    }
+
+    @Test
+    void givenOrderWithMoreRecipesThanInlineColumns_whenRecipesAreRemoved_thenQuantitiesSurvive() {
+        Order order = new Order(new Address(1, 101));
+        repository.save(order);
+        List<Item> recipes = List.of(pancakeWith(IngredientName.DARK_CHOCOLATE), pancakeWith(IngredientName.MILK_CHOCOLATE),
+            pancakeWith(IngredientName.HAZELNUTS), pancakeWith(IngredientName.WHIPPED_CREAM), pancakeWith(IngredientName.DARK_CHOCOLATE,
+                IngredientName.HAZELNUTS));
+        for (int i = 0; i < recipes.size(); i++) {
+            order.addItems(recipes.get(i), i + 1);
+        }
+        order.removeItem(recipes.get(0), 1);
+        order.removeItem(recipes.get(3), 2);
+
+        Order view = repository.restoredViewOf(order.getId());
+
+        assertEquals(Map.of(recipes.get(1), 2, recipes.get(2), 3, recipes.get(3), 2, recipes.get(4), 5), view.getItemQuantities());
+    }
+
+    @Test
+    void givenOrdersInSeveralStatuses_whenQueried_thenColumnsAnswerEveryQuery() {
+        Order completed = orderWithPancake(new Address(1, 101));
+        Order fresh = new Order(new Address(2, 202));
+        Order deleted = new Order(new Address(3, 303));
+        repository.save(completed);
+        repository.save(fresh);
+        repository.save(deleted);
+
+        completed.complete();
+        repository.delete(deleted.getId());
+
+        assertNull(repository.findById(deleted.getId()));
+        assertEquals(Set.of(completed, fresh), Set.copyOf(repository.findAll()));
+        assertEquals(List.of(completed), repository.findByStatus(OrderStatus.COMPLETED));
+        assertEquals(List.of(fresh), repository.findByStatus(OrderStatus.NEW));
+        assertEquals(2, repository.size());
+    }
+
+    @Test
+    void givenDeletedOrder_whenStaleViewChanges_thenColumnsAreNotTouched() {
+        Order order = orderWithPancake(new Address(1, 101));
+        repository.save(order);
+        repository.delete(order.getId());
+
+        order.complete();
+
+        assertNull(repository.findById(order.getId()));
+        assertTrue(repository
+            .findByStatus(OrderStatus.COMPLETED)
+            .isEmpty());
+    }
+
+    @Test
+    void givenManyOrders_whenSegmentsGrowAndDropTombstones_thenEveryLiveOrderIsFound() {
+        List<UUID> ids = new ArrayList<>();
+        for (int i = 0; i < 10_000; i++) {
+            Order order = new Order(new Address(i + 1, i + 1));
+            repository.save(order);
+            ids.add(order.getId());
+        }
+        for (int i = 0; i < ids.size(); i += 2) {
+            repository.delete(ids.get(i));
+        }
+        // the tombstones count towards the load, so these saves rebuild segments without the deleted orders
+        for (int i = 10_000; i < 20_000; i++) {
+            Order order = new Order(new Address(i + 1, i + 1));
+            repository.save(order);
+            ids.add(order.getId());
+        }
+
+        assertEquals(15_000, repository.size());
+        for (int i = 0; i < ids.size(); i++) {
+            Order view = repository.findById(ids.get(i));
+            if (i < 10_000 && i % 2 == 0) {
+                assertNull(view);
+            } else {
+                assertEquals(new Address(i + 1, i + 1), view.getAddress());
+            }
+        }
+    }
+
+    @Test
+    void givenConcurrentWriters_whenOrdersAreSavedAndChanged_thenNoneIsLost() throws Exception {
+        Item pancake = pancakeWith(IngredientName.DARK_CHOCOLATE);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        List<Future<UUID>> futures = new ArrayList<>();
+        for (int i = 0; i < 2_000; i++) {
+            int building = i + 1;
+            futures.add(executor.submit(() -> {
+                Order order = new Order(new Address(building, 1));
+                repository.save(order);
+                repository
+                    .findById(order.getId())
+                    .addItems(pancake, 2);
+                order.complete();
+                return order.getId();
+            }));
+        }
+        List<UUID> ids = new ArrayList<>();
+        for (Future<UUID> future : futures) {
+            ids.add(future.get());
+        }
+        executor.shutdown();
+
+        assertEquals(2_000, repository.size());
+        assertEquals(2_000, repository
+            .findByStatus(OrderStatus.COMPLETED)
+            .size());
+        for (UUID id : ids) {
+            assertEquals(2, repository
+                .restoredViewOf(id)
+                .getItemCount());
+        }
+    }
+
+    @Test
+    void givenItemsAddedWhileSaving_whenColumnsAreRead_thenNoChangeIsLost() throws Exception {
+        Item pancake = pancakeWith(IngredientName.DARK_CHOCOLATE);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            for (int i = 0; i < 2_000; i++) {
+                Order order = new Order(new Address(i + 1, 1));
+                CountDownLatch started = new CountDownLatch(1);
+                Future<?> adding = executor.submit(() -> {
+                    started.countDown();
+                    for (int j = 0; j < 20; j++) {
+                        order.addItem(pancake);
+                    }
+                });
+                started.await();
+                if (i % 2 == 0) {
+                    repository.save(order);
+                } else {
+                    assertTrue(repository.saveIfAbsent(order));
+                }
+                adding.get();
+
+                assertEquals(Map.of(pancake, 20), repository
+                    .restoredViewOf(order.getId())
+                    .getItemQuantities());
+            }
+        }
+        finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    void givenPancakeService_whenOrderIsDelivered_thenColumnarRepositoryServesTheWholeLifecycle() {
+        PancakeService service = new PancakeService(repository, new OrderLog());
+        UUID orderId = service
+            .createOrder(new Address(1, 101))
+            .getId();
+        service.addCustomPancake(orderId, List.of(new Ingredient(IngredientName.DARK_CHOCOLATE)), 2);
+        service.completeOrder(orderId);
+        service.prepareOrder(orderId);
+
+        assertEquals(List.of(orderId), List.copyOf(service.listPreparedOrders()));
+        service.deliverOrder(orderId);
+
+        assertNull(repository.findById(orderId));
+        assertEquals(0, repository.size());
+    }
+
+    @Test
+    void givenInvalidSegmentCount_whenCreatingRepository_thenThrowsException() {
+        assertThrows(IllegalArgumentException.class, () -> new ColumnarOrderRepository(3, 0));
+        assertThrows(IllegalArgumentException.class, () -> new ColumnarOrderRepository(4, -1));
+    }
+
+    private static Order orderWithPancake(Address address) {
+        Order order = new Order(address);
+        order.addItem(pancakeWith(IngredientName.DARK_CHOCOLATE));
+        return order;
+    }
+
+    private static Item pancakeWith(IngredientName... names) {
+        PancakeBuilder builder = new PancakeBuilder();
+        for (IngredientName name : names) {
+            builder.addIngredient(new Ingredient(name));
+        }
+        return builder.build();
+    }
+}
@@ -2,11 +2,16 @@ package org.pancakelab.repository;
 
 import static org.junit.jupiter.api.Assertions.*;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.pancakelab.domain.order.Order;
+import org.pancakelab.domain.order.OrderStatus;
 import org.pancakelab.domain.pancake.PancakeBuilder;
 import org.pancakelab.domain.shared.Address;
 import org.pancakelab.domain.shared.Ingredient;
@@ -36,6 +41,18 @@ class InMemoryOrderRepositoryTest {
         assertEquals(order, retrievedOrder);
     }
 
+    @Test
+    void givenTakenId_whenSavingIfAbsent_thenStoredOrderIsKept() {
+        Order order = new Order(new Address(1, 101));
+        Order duplicate = new Order(order.getId(), new Address(2, 202));
+
+        assertTrue(repository.saveIfAbsent(order));
+        assertFalse(repository.saveIfAbsent(duplicate));
+
+        assertSame(order, repository.findById(order.getId()));
+        assertEquals(List.of(order), repository.findByStatus(OrderStatus.NEW));
+    }
+
     @Test
     void givenOrderId_whenOrderDoesNotExist_thenReturnNull() {
         Order retrievedOrder = repository.findById(UUID.randomUUID());
@@ -89,4 +106,86 @@ class InMemoryOrderRepositoryTest {
         assertDoesNotThrow(() -> repository.delete(UUID.randomUUID()));
     }
 
-}
\ No newline at end of file
+    @Test
+    void givenOrdersInDifferentStates_whenFindingByStatus_thenOnlyMatchingOrdersAreReturned() {
+        Order newOrder = new Order(new Address(1, 101));
+        Order completedOrder = orderWithPancake(new Address(1, 102));
+        repository.save(newOrder);
+        repository.save(completedOrder);
+
+        completedOrder.complete();
+
+        assertEquals(List.of(newOrder), repository.findByStatus(OrderStatus.NEW));
+        assertEquals(List.of(completedOrder), repository.findByStatus(OrderStatus.COMPLETED));
+        assertTrue(repository.findByStatus(OrderStatus.PREPARED).isEmpty());
+    }
+
+    @Test
+    void givenIndexedOrder_whenStatusChanges_thenOrderMovesBetweenStatusIndexes() {
+        Order order = orderWithPancake(new Address(1, 101));
+        repository.save(order);
+
+        order.complete();
+        order.prepare();
+
+        assertTrue(repository.findByStatus(OrderStatus.COMPLETED).isEmpty());
+        assertEquals(List.of(order), repository.findByStatus(OrderStatus.PREPARED));
+    }
+
+    @Test
+    void givenIndexedOrder_whenDeleted_thenOrderIsRemovedFromStatusIndex() {
+        Order order = orderWithPancake(new Address(1, 101));
+        repository.save(order);
+        order.complete();
+
+        repository.delete(order.getId());
+        order.prepare();
+
+        for (OrderStatus status : OrderStatus.values()) {
+            assertTrue(repository.findByStatus(status).isEmpty());
+        }
+    }
+
+    @Test
+    void givenOrdersDrivenForwardConcurrently_whenFindingByStatus_thenEveryOrderIsListedUnderItsCurrentStatusOnly() throws Exception {
+        List<Order> orders = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            Order order = orderWithPancake(new Address(1, 101));
+            repository.save(order);
+            orders.add(order);
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            futures.add(executor.submit(() -> {
+                for (Order order : orders) {
+                    for (Runnable transition : List.<Runnable>of(order::complete, order::prepare)) {
+                        try {
+                            transition.run();
+                        }
+                        catch (IllegalStateException alreadyDone) {
+                            // another thread got there first
+                        }
+                    }
+                }
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        executor.shutdown();
+
+        assertEquals(orders.size(), repository.findByStatus(OrderStatus.PREPARED).size());
+        assertTrue(repository.findByStatus(OrderStatus.NEW).isEmpty());
+        assertTrue(repository.findByStatus(OrderStatus.COMPLETED).isEmpty());
+    }
+
+    private static Order orderWithPancake(Address address) {
+        Order order = new Order(address);
+        order.addItem(new PancakeBuilder()
+            .addIngredient(new Ingredient(IngredientName.DARK_CHOCOLATE))
+            .build());
+        return order;
+    }
+
+}
@@ -0,0 +1,290 @@
+package org.pancakelab.repository;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.junit.jupiter.api.io.TempDir;
+import org.pancakelab.domain.order.Order;
+import org.pancakelab.domain.order.OrderStatus;
+import org.pancakelab.domain.pancake.Item;
+import org.pancakelab.domain.pancake.PancakeBuilder;
+import org.pancakelab.domain.shared.Address;
+import org.pancakelab.domain.shared.Ingredient;
+import org.pancakelab.domain.shared.IngredientName;
+
+class JournaledOrderRepositoryTest {
+    private static final Item DARK_CHOCOLATE = new PancakeBuilder()
+        .addIngredient(new Ingredient(IngredientName.DARK_CHOCOLATE))
+        .build();
+    private static final Item MILK_CHOCOLATE_HAZELNUTS = new PancakeBuilder()
+        .addIngredient(new Ingredient(IngredientName.MILK_CHOCOLATE))
+        .addIngredient(new Ingredient(IngredientName.HAZELNUTS))
+        .build();
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void givenJournaledMutations_whenRepositoryIsReopened_thenOrdersAreRecovered() throws IOException {
+        Order open = new Order(new Address(1, 101));
+        Order prepared = new Order(new Address(2, 202));
+        try (JournaledOrderRepository repository = new JournaledOrderRepository(directory)) {
+            repository.save(open);
+            repository.save(prepared);
+            open.addItem(DARK_CHOCOLATE);
+            open.addItem(MILK_CHOCOLATE_HAZELNUTS);
+            open.addItem(DARK_CHOCOLATE);
+            open.removeItem(DARK_CHOCOLATE.getDescription(), 1);
+            prepared.addItem(DARK_CHOCOLATE);
+            prepared.complete();
+            prepared.prepare();
+        }
+
+        try (JournaledOrderRepository repository = new JournaledOrderRepository(directory)) {
+            Order recoveredOpen = repository.findById(open.getId());
+            assertEquals(OrderStatus.NEW, recoveredOpen.getStatus());
+            assertEquals(new Address(1, 101), recoveredOpen.getAddress());
+            assertEquals(List.of(DARK_CHOCOLATE.getDescription(), MILK_CHOCOLATE_HAZELNUTS.getDescription()), recoveredOpen.getPancakeDescriptions());
+
+            Order recoveredPrepared = repository.findById(prepared.getId());
+            assertEquals(OrderStatus.PREPARED, recoveredPrepared.getStatus());
+            assertEquals(List.of(recoveredPrepared), repository.findByStatus(OrderStatus.PREPARED));
+        }
+    }
+
+    @Test
+    void givenDeletedOrder_whenRepositoryIsReopened_thenOrderStaysDeleted() throws IOException {
+        Order order = new Order(new Address(1, 101));
+        try (JournaledOrderRepository repository = new JournaledOrderRepository(directory)) {
+            repository.save(order);
+            order.addItem(DARK_CHOCOLATE);
+            order.cancel();
+            repository.delete(order.getId());
+        }
+
+        try (JournaledOrderRepository repository = new JournaledOrderRepository(directory)) {
+            assertNull(repository.findById(order.getId()));
+            assertEquals(List.of(), repository.findAll());
+        }
+    }
+
+    @Test
+    void givenCheckpoint_whenRepositoryIsReopened_thenSnapshotAndLaterJournalAreReplayed() throws IOException {
+        Order order = new Order(new Address(1, 101));
+        try (JournaledOrderRepository repository = new JournaledOrderRepository(directory)) {
+            repository.save(order);
+            order.addItem(DARK_CHOCOLATE);
+            repository.checkpoint();
+            order.addItem(MILK_CHOCOLATE_HAZELNUTS);
+            order.complete();
+        }
+
+        List<String> files = fileNames();
+        assertEquals(2, files.size());
+        assertTrue(files.get(0).endsWith(".wal"));
+        assertTrue(files.get(1).endsWith(".snap"));
+        try (JournaledOrderRepository repository = new JournaledOrderRepository(directory)) {
+            Order recovered = repository.findById(order.getId());
+            assertEquals(OrderStatus.COMPLETED, recovered.getStatus());
+            assertEquals(2, recovered.getItems().size());
+        }
+    }
+
+    @Test
+    void givenSnapshotInterval_whenEnoughRecordsAreJournaled_thenCheckpointRunsInBackground() throws Exception {
+        try (JournaledOrderRepository repository = new JournaledOrderRepository(directory, 10)) {
+            for (int i = 0; i < 20; i++) {
+                repository.save(new Order(new Address(1, 100 + i)));
+            }
+
+            long deadline = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+            while (!hasSnapshot() && System.nanoTime() < deadline) {
+                Thread.sleep(10);
+            }
+            assertTrue(hasSnapshot());
+        }
+
+        try (JournaledOrderRepository repository = new JournaledOrderRepository(directory, 10)) {
+            assertEquals(20, repository.findAll().size());
+        }
+    }
+
+    @Test
+    void givenFailingBackgroundCheckpoint_whenRecordsAreJournaled_thenFailureIsCountedAndJournalKeepsWorking() throws Exception {
+        // the first checkpoint writes its snapshot to snapshot-2.tmp, which cannot replace a non-empty directory
+        Files.createDirectories(directory.resolve("snapshot-2.tmp/blocked"));
+        try (JournaledOrderRepository repository = new JournaledOrderRepository(directory, 10)) {
+            for (int i = 0; i < 10; i++) {
+                repository.save(new Order(new Address(1, 100 + i)));
+            }
+
+            long deadline = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+            while (repository.checkpointFailureCount() == 0 && System.nanoTime() < deadline) {
+                Thread.sleep(10);
+            }
+            assertEquals(1, repository.checkpointFailureCount());
+            assertNotNull(repository.lastCheckpointFailure());
+
+            repository.save(new Order(new Address(1, 200)));
+        }
+
+        try (JournaledOrderRepository repository = new JournaledOrderRepository(directory, 10)) {
+            assertEquals(11, repository.findAll().size());
+        }
+    }
+
+    @Test
+    void givenJournaledItemChange_whenItIsAwaited_thenItemLockIsAlreadyReleased() throws Exception {
+        boolean[] lockedWhileAwaiting = {true};
+        try (JournaledOrderRepository repository = new JournaledOrderRepository(directory) {
+            @Override protected void itemsReleased(Order order) {
+                lockedWhileAwaiting[0] = lockedElsewhere(order);
+                super.itemsReleased(order);
+            }
+        }) {
+            Order order = new Order(new Address(1, 101));
+            repository.save(order);
+
+            order.addItem(DARK_CHOCOLATE);
+
+            assertFalse(lockedWhileAwaiting[0]);
+        }
+
+        try (JournaledOrderRepository repository = new JournaledOrderRepository(directory)) {
+            assertEquals(1, repository.findAll().get(0).getItems().size());
+        }
+    }
+
+    private static boolean lockedElsewhere(Order order) {
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            executor
+                .submit(() -> order.withItemsLocked(() -> {
+                }))
+                .get(5, TimeUnit.SECONDS);
+            return false;
+        }
+        catch (Exception e) {
+            return true;
+        }
+        finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void givenConcurrentWriters_whenRepositoryIsReopened_thenNoMutationIsLost() throws Exception {
+        int threads = 8;
+        int ordersPerThread = 50;
+        List<UUID> ids = new ArrayList<>();
+        try (JournaledOrderRepository repository = new JournaledOrderRepository(directory)) {
+            ExecutorService executor = Executors.newFixedThreadPool(threads);
+            List<Future<List<UUID>>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                futures.add(executor.submit(() -> {
+                    List<UUID> created = new ArrayList<>();
+                    for (int i = 0; i < ordersPerThread; i++) {
+                        Order order = new Order(new Address(1, 101));
+                        repository.save(order);
+                        order.addItem(DARK_CHOCOLATE);
+                        order.complete();
+                        created.add(order.getId());
+                    }
+                    return created;
+                }));
+            }
+            for (Future<List<UUID>> future : futures) {
+                ids.addAll(future.get());
+            }
+            executor.shutdown();
+            // a save, an item and a status record per order; group commit must have shared at least one fsync
+            assertTrue(repository.journalSyncCount() < 3L * threads * ordersPerThread);
+        }
+
+        try (JournaledOrderRepository repository = new JournaledOrderRepository(directory)) {
+            assertEquals(threads * ordersPerThread, repository.findByStatus(OrderStatus.COMPLETED).size());
+            for (UUID id : ids) {
+                assertEquals(1, repository.findById(id).getItems().size());
+            }
+        }
+    }
+
+    /**
+     * Run with {@code -Dpancakelab.recovery.orders=1000000} to measure recovery time for a large store.
+     */
+    @Test
+    @EnabledIfSystemProperty(named = "pancakelab.recovery.orders", matches = "\\d+")
+    void givenLargeStore_whenRepositoryIsReopened_thenRecoveryTimeIsReported() throws Exception {
+        int orders = Integer.getInteger("pancakelab.recovery.orders");
+        int threads = Runtime.getRuntime().availableProcessors();
+        try (JournaledOrderRepository repository = new JournaledOrderRepository(directory)) {
+            ExecutorService executor = Executors.newFixedThreadPool(threads);
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                int share = orders / threads + (t < orders % threads ? 1 : 0);
+                futures.add(executor.submit(() -> {
+                    for (int i = 0; i < share; i++) {
+                        Order order = new Order(new Address(1 + i % 50, 1 + i % 500));
+                        repository.save(order);
+                        order.addItem(DARK_CHOCOLATE);
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+            executor.shutdown();
+        }
+
+        long start = System.nanoTime();
+        try (JournaledOrderRepository repository = new JournaledOrderRepository(directory)) {
+            long elapsed = System.nanoTime() - start;
+            assertEquals(orders, repository.findAll().size());
+            System.out.printf("Recovered %d orders in %d ms%n", orders, Duration.ofNanos(elapsed).toMillis());
+        }
+    }
+
+    @Test
+    void givenFailedJournal_whenAppendingOrAwaiting_thenFailureIsRethrownInsteadOfReportingDurability() throws IOException {
+        WriteAheadLog journal = new WriteAheadLog(directory.resolve("journal-1.wal"));
+        long durable = journal.append(Integer.BYTES, buffer -> buffer.putInt(1));
+        long pending = journal.append(Integer.BYTES, buffer -> buffer.putInt(2));
+        journal.awaitDurable(durable);
+
+        assertThrows(IOException.class, () -> journal.rotate(directory.resolve("missing/journal-2.wal")));
+
+        journal.awaitDurable(pending);
+        assertThrows(UncheckedIOException.class, () -> journal.append(Integer.BYTES, buffer -> buffer.putInt(3)));
+        assertThrows(UncheckedIOException.class, () -> journal.awaitDurable(pending + 1));
+        assertThrows(UncheckedIOException.class, journal::close);
+    }
+
+    private boolean hasSnapshot() throws IOException {
+        return fileNames()
+            .stream()
+            .anyMatch(name -> name.endsWith(".snap"));
+    }
+
+    private List<String> fileNames() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files
+                .map(file -> file.getFileName().toString())
+                .sorted()
+                .toList();
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package org.pancakelab.repository;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.List;
+import java.util.Set;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+import org.pancakelab.domain.order.Order;
+import org.pancakelab.domain.order.OrderStatus;
+import org.pancakelab.domain.pancake.PancakeBuilder;
+import org.pancakelab.domain.shared.Address;
+import org.pancakelab.domain.shared.Ingredient;
+import org.pancakelab.domain.shared.IngredientName;
+
+class ShardedOrderRepositoryTest {
+
+    @ParameterizedTest
+    @EnumSource(ShardedOrderRepository.Partitioning.class)
+    void givenOrdersInManyBuildings_whenQueried_thenEveryQueryFindsThemAcrossShards(ShardedOrderRepository.Partitioning partitioning) {
+        ShardedOrderRepository repository = new ShardedOrderRepository(4, partitioning);
+        Order building1 = orderWithPancake(new Address(1, 101));
+        Order building2 = orderWithPancake(new Address(2, 201));
+        Order building5 = orderWithPancake(new Address(5, 501));
+        repository.save(building1);
+        repository.save(building2);
+        repository.save(building5);
+
+        building2.complete();
+        repository.delete(building5.getId());
+
+        assertSame(building1, repository.findById(building1.getId()));
+        assertNull(repository.findById(building5.getId()));
+        assertEquals(Set.of(building1, building2), Set.copyOf(repository.findAll()));
+        assertEquals(List.of(building2), repository.findByStatus(OrderStatus.COMPLETED));
+        assertEquals(List.of(building1), repository.findByBuilding(1));
+        assertEquals(List.of(building2), repository.findByBuildingAndStatus(2, OrderStatus.COMPLETED));
+        assertTrue(repository.findByBuildingAndStatus(1, OrderStatus.COMPLETED).isEmpty());
+    }
+
+    @Test
+    void givenBuildingPartitioning_whenBuildingIsQueried_thenOnlyItsShardIsRead() {
+        ShardedOrderRepository repository = new ShardedOrderRepository(4, ShardedOrderRepository.Partitioning.BY_BUILDING);
+        repository.save(new Order(new Address(1, 101)));
+        repository.save(new Order(new Address(1, 102)));
+        repository.save(new Order(new Address(2, 201)));
+
+        assertEquals(2, repository.findByBuilding(1).size());
+        assertTrue(repository.findByBuilding(5).isEmpty());
+
+        List<ShardStats> stats = repository.getShardStats();
+        assertEquals(4, stats.size());
+        assertEquals(new ShardStats(1, 2, 2, 2), stats.get(1));
+        assertEquals(new ShardStats(2, 1, 0, 1), stats.get(2));
+        assertEquals(0, stats.get(0).reads());
+    }
+
+    @Test
+    void givenInvalidShardCount_whenCreatingRepository_thenThrowsException() {
+        assertThrows(IllegalArgumentException.class, () -> new ShardedOrderRepository(0, ShardedOrderRepository.Partitioning.BY_ORDER_ID));
+    }
+
+    private static Order orderWithPancake(Address address) {
+        Order order = new Order(address);
+        order.addItem(new PancakeBuilder()
+            .addIngredient(new Ingredient(IngredientName.DARK_CHOCOLATE))
+            .build());
+        return order;
+    }
+}
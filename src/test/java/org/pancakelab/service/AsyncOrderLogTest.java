@@ -0,0 +1,177 @@
+package org.pancakelab.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+import org.pancakelab.domain.log.OrderEvent;
+import org.pancakelab.domain.shared.Address;
+import org.pancakelab.domain.shared.Ingredient;
+import org.pancakelab.domain.shared.IngredientName;
+import org.pancakelab.repository.InMemoryOrderRepository;
+
+class AsyncOrderLogTest {
+
+    @Test
+    void givenLoggedEvents_whenReadingRightAway_thenEventsAreVisibleInLogOrder() {
+        UUID orderId = UUID.randomUUID();
+        OrderEvent first = new OrderEvent(orderId, LocalDateTime.now(), OrderEvent.EventType.ADD_PANCAKE, "First.");
+        OrderEvent second = new OrderEvent(UUID.randomUUID(), LocalDateTime.now(), OrderEvent.EventType.CANCEL_ORDER, "Second.");
+        OrderEvent third = new OrderEvent(orderId, LocalDateTime.now(), OrderEvent.EventType.DELIVER_ORDER, "Third.");
+
+        try (AsyncOrderLog log = new AsyncOrderLog()) {
+            log.log(first);
+            log.log(second);
+            log.log(third);
+
+            assertEquals(List.of(first, third), log.getEventsForOrder(orderId));
+            assertEquals(List.of(second), log.getEventsByType(OrderEvent.EventType.CANCEL_ORDER));
+            assertEquals(List.of(first, second, third), log.getAllEvents());
+        }
+    }
+
+    @ParameterizedTest
+    @EnumSource(AsyncOrderLog.WaitStrategy.class)
+    void givenProducersOutrunningSmallRing_whenBlocking_thenNoEventIsLostAndEachProducerKeepsItsOrder(AsyncOrderLog.WaitStrategy waitStrategy) throws Exception {
+        int producers = 4;
+        int eventsPerProducer = 5_000;
+        try (AsyncOrderLog log = new AsyncOrderLog(RetentionPolicy.UNBOUNDED, 16, waitStrategy, AsyncOrderLog.OverflowPolicy.BLOCK)) {
+            List<UUID> orderIds = produce(log, producers, eventsPerProducer);
+
+            assertEquals(producers * eventsPerProducer, log.getAllEvents().size());
+            for (UUID orderId : orderIds) {
+                List<OrderEvent> events = log.getEventsForOrder(orderId);
+                assertEquals(eventsPerProducer, events.size());
+                for (int i = 0; i < eventsPerProducer; i++) {
+                    assertEquals(String.valueOf(i), events
+                        .get(i)
+                        .details());
+                }
+            }
+            assertEquals(0, log.getDroppedEvents());
+        }
+    }
+
+    @Test
+    void givenProducersOutrunningSmallRing_whenDropping_thenEveryEventIsEitherIndexedOrCounted() throws Exception {
+        int producers = 4;
+        int eventsPerProducer = 5_000;
+        try (AsyncOrderLog log = new AsyncOrderLog(RetentionPolicy.UNBOUNDED, 2, AsyncOrderLog.WaitStrategy.SLEEPING, AsyncOrderLog.OverflowPolicy.DROP)) {
+            produce(log, producers, eventsPerProducer);
+
+            assertEquals(producers * eventsPerProducer, log.getAllEvents().size() + log.getDroppedEvents());
+        }
+    }
+
+    @Test
+    void givenClosedLog_whenLogging_thenThrowsException() {
+        AsyncOrderLog log = new AsyncOrderLog();
+        OrderEvent event = new OrderEvent(UUID.randomUUID(), LocalDateTime.now(), OrderEvent.EventType.ADD_PANCAKE, "Added.");
+        log.log(event);
+
+        log.close();
+
+        assertEquals(List.of(event), log.getAllEvents());
+        Exception exception = assertThrows(IllegalStateException.class, () -> log.log(event));
+        assertEquals("Order log is closed.", exception.getMessage());
+    }
+
+    @Test
+    void givenProducersRacingClose_whenLogClosed_thenEveryAcceptedEventIsIndexed() throws Exception {
+        AsyncOrderLog log = new AsyncOrderLog(RetentionPolicy.UNBOUNDED, 64, AsyncOrderLog.WaitStrategy.YIELDING, AsyncOrderLog.OverflowPolicy.BLOCK);
+        AtomicInteger accepted = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int p = 0; p < 4; p++) {
+            futures.add(executor.submit(() -> {
+                try {
+                    while (true) {
+                        log.log(new OrderEvent(UUID.randomUUID(), LocalDateTime.now(), OrderEvent.EventType.ADD_PANCAKE, "Added."));
+                        accepted.incrementAndGet();
+                    }
+                }
+                catch (IllegalStateException e) {
+                    return;
+                }
+            }));
+        }
+        Thread.sleep(50);
+
+        log.close();
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        executor.shutdown();
+
+        assertEquals(accepted.get(), log.getAllEvents().size());
+    }
+
+    @Test
+    void givenStoppedConsumer_whenRingIsFull_thenBlockingProducerFailsFast() {
+        AsyncOrderLog log = new AsyncOrderLog(RetentionPolicy.UNBOUNDED, 2, AsyncOrderLog.WaitStrategy.SLEEPING, AsyncOrderLog.OverflowPolicy.BLOCK);
+        log.addListener(event -> {
+            throw new AssertionError("Consumer stopped by an error.");
+        });
+
+        IllegalStateException exception = assertTimeoutPreemptively(Duration.ofSeconds(10), () -> assertThrows(IllegalStateException.class, () -> {
+            while (true) {
+                log.log(new OrderEvent(UUID.randomUUID(), LocalDateTime.now(), OrderEvent.EventType.ADD_PANCAKE, "Added."));
+            }
+        }));
+        assertEquals("Order log consumer stopped.", exception.getMessage());
+        log.close();
+    }
+
+    @Test
+    void givenServiceWithAsyncLog_whenOrderIsDelivered_thenEventsAreReadBackInOrder() {
+        try (AsyncOrderLog log = new AsyncOrderLog()) {
+            PancakeService service = new PancakeService(new InMemoryOrderRepository(), log);
+            UUID orderId = service
+                .createOrder(new Address(1, 101))
+                .getId();
+            service.addCustomPancake(orderId, List.of(new Ingredient(IngredientName.DARK_CHOCOLATE)), 2);
+            service.completeOrder(orderId);
+            service.prepareOrder(orderId);
+            service.deliverOrder(orderId);
+
+            assertEquals(List.of(OrderEvent.EventType.ADD_PANCAKE, OrderEvent.EventType.DELIVER_ORDER), log
+                .getEventsForOrder(orderId)
+                .stream()
+                .map(OrderEvent::type)
+                .toList());
+        }
+    }
+
+    /**
+     * Each producer logs its events for its own order, numbered in the order it logged them.
+     */
+    private static List<UUID> produce(OrderLog log, int producers, int eventsPerProducer) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(producers);
+        List<UUID> orderIds = new ArrayList<>();
+        List<Future<?>> futures = new ArrayList<>();
+        for (int p = 0; p < producers; p++) {
+            UUID orderId = UUID.randomUUID();
+            orderIds.add(orderId);
+            futures.add(executor.submit(() -> {
+                for (int i = 0; i < eventsPerProducer; i++) {
+                    log.log(new OrderEvent(orderId, LocalDateTime.now(), OrderEvent.EventType.ADD_PANCAKE, String.valueOf(i)));
+                }
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        executor.shutdown();
+        return orderIds;
+    }
+}
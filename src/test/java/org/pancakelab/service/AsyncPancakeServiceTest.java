@@ -0,0 +1,152 @@
+package org.pancakelab.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+import org.pancakelab.domain.log.OrderEvent;
+import org.pancakelab.domain.order.Order;
+import org.pancakelab.domain.order.OrderStatus;
+import org.pancakelab.domain.shared.Address;
+import org.pancakelab.domain.shared.Ingredient;
+import org.pancakelab.domain.shared.IngredientName;
+import org.pancakelab.repository.InMemoryOrderRepository;
+
+class AsyncPancakeServiceTest {
+    private static final List<Ingredient> DARK_CHOCOLATE = List.of(new Ingredient(IngredientName.DARK_CHOCOLATE));
+
+    private final PancakeService service = new PancakeService(new InMemoryOrderRepository(), new OrderLog());
+
+    @Test
+    void givenOperationsOnOneOrder_whenSubmittedAtOnce_thenTheyRunInSubmissionOrder() {
+        try (AsyncPancakeService async = new AsyncPancakeService(service)) {
+            UUID orderId = async
+                .createOrder(new Address(1, 1))
+                .join()
+                .getId();
+
+            List<CompletableFuture<?>> operations = new ArrayList<>();
+            for (int count = 1; count <= 50; count++) {
+                operations.add(async.addCustomPancake(orderId, DARK_CHOCOLATE, count));
+            }
+            operations.add(async.completeOrder(orderId));
+            operations.add(async.prepareOrder(orderId));
+            CompletableFuture<Object[]> delivery = async.deliverOrder(orderId);
+            CompletableFuture
+                .allOf(operations.toArray(CompletableFuture[]::new))
+                .join();
+
+            Order delivered = (Order) delivery.join()[0];
+            assertEquals(OrderStatus.DELIVERED, delivered.getStatus());
+            assertEquals(50 * 51 / 2, delivered.getItemCount());
+            List<Integer> addedCounts = service
+                .getOrderLog()
+                .getEventsByType(OrderEvent.EventType.ADD_PANCAKE)
+                .stream()
+                .map(OrderEvent::count)
+                .toList();
+            for (int i = 0; i < addedCounts.size(); i++) {
+                assertEquals(i + 1, addedCounts.get(i));
+            }
+        }
+    }
+
+    @Test
+    void givenFailingOperation_whenLaterOperationsFollowOnSameOrder_thenTheyStillRun() {
+        try (AsyncPancakeService async = new AsyncPancakeService(service)) {
+            UUID orderId = service
+                .createOrder(new Address(1, 1))
+                .getId();
+
+            CompletableFuture<Void> emptyCompletion = async.completeOrder(orderId);
+            CompletableFuture<Void> add = async.addCustomPancake(orderId, DARK_CHOCOLATE, 2);
+            CompletableFuture<Void> missing = async.cancelOrder(UUID.randomUUID());
+
+            CompletionException failure = assertThrows(CompletionException.class, emptyCompletion::join);
+            assertInstanceOf(IllegalStateException.class, failure.getCause());
+            add.join();
+            assertEquals(2, async
+                .viewOrder(orderId)
+                .join()
+                .size());
+            assertInstanceOf(OrderNotFoundException.class, assertThrows(CompletionException.class, missing::join).getCause());
+        }
+    }
+
+    @Test
+    void givenBlockedOrder_whenOperatingOnAnotherOrder_thenItIsNotHeldUp() throws InterruptedException {
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        CountDownLatch secondCompleted = new CountDownLatch(1);
+        UUID first = orderWithPancakes();
+        UUID second = orderWithPancakes();
+        service.addOrderListener((order, previous, current) -> {
+            if (order
+                .getId()
+                .equals(first)) {
+                await(secondCompleted);
+            } else {
+                secondCompleted.countDown();
+            }
+        });
+
+        try (AsyncPancakeService async = new AsyncPancakeService(service, executor)) {
+            CompletableFuture<Void> blocked = async.completeOrder(first);
+            CompletableFuture<Void> queuedBehindBlocked = async.prepareOrder(first);
+            async
+                .completeOrder(second)
+                .get(5, TimeUnit.SECONDS);
+
+            blocked.join();
+            queuedBehindBlocked.join();
+            assertEquals(Set.of(first), service.listPreparedOrders());
+        }
+        catch (Exception e) {
+            fail(e);
+        }
+        finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void givenClosedService_whenSubmitting_thenFutureFails() {
+        AsyncPancakeService async = new AsyncPancakeService(service);
+        async.close();
+
+        CompletionException failure = assertThrows(CompletionException.class, () -> async
+            .createOrder(new Address(1, 1))
+            .join());
+        assertInstanceOf(IllegalStateException.class, failure.getCause());
+        assertThrows(CompletionException.class, () -> async
+            .viewOrder(UUID.randomUUID())
+            .join());
+    }
+
+    private UUID orderWithPancakes() {
+        UUID orderId = service
+            .createOrder(new Address(1, 1))
+            .getId();
+        service.addCustomPancake(orderId, DARK_CHOCOLATE, 1);
+        return orderId;
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            assertTrue(latch.await(5, TimeUnit.SECONDS));
+        }
+        catch (InterruptedException e) {
+            Thread
+                .currentThread()
+                .interrupt();
+        }
+    }
+}
@@ -0,0 +1,120 @@
+package org.pancakelab.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import org.junit.jupiter.api.Test;
+import org.pancakelab.domain.order.OrderStatus;
+import org.pancakelab.domain.shared.Address;
+import org.pancakelab.domain.shared.Ingredient;
+import org.pancakelab.domain.shared.IngredientName;
+import org.pancakelab.repository.InMemoryOrderRepository;
+
+class DeliveryDispatcherTest {
+    private final PancakeService              service = new PancakeService(new InMemoryOrderRepository(), new OrderLog());
+    private final BlockingQueue<DeliveryTrip> trips   = new LinkedBlockingQueue<>();
+
+    @Test
+    void givenFullBatch_whenLastOrderIsPrepared_thenBuildingIsDeliveredRoomByRoomInOneTrip() throws InterruptedException {
+        try (DeliveryDispatcher dispatcher = new DeliveryDispatcher(service, 3, Duration.ofMinutes(1), trips::add)) {
+            UUID room30 = prepareOrder(new Address(1, 30));
+            UUID otherBuilding = prepareOrder(new Address(2, 10));
+            UUID room10 = prepareOrder(new Address(1, 10));
+            UUID room20 = prepareOrder(new Address(1, 20));
+
+            DeliveryTrip trip = trips.poll(5, TimeUnit.SECONDS);
+
+            assertNotNull(trip);
+            assertEquals(1, trip.building());
+            assertEquals(List.of(room10, room20, room30), trip
+                .receipts()
+                .stream()
+                .map(DeliveryReceipt::orderId)
+                .toList());
+            assertEquals(List.of("Delicious pancake with dark chocolate!"), trip
+                .receipts()
+                .get(0)
+                .pancakes());
+            assertEquals(List.of(otherBuilding), List.copyOf(service.listPreparedOrders()));
+            assertEquals(3, dispatcher.deliveredOrders());
+        }
+    }
+
+    @Test
+    void givenPartialBatch_whenMaximumWaitElapses_thenBatchIsDeliveredAnyway() throws InterruptedException {
+        try (DeliveryDispatcher dispatcher = new DeliveryDispatcher(service, 10, Duration.ofMillis(20), trips::add)) {
+            UUID orderId = prepareOrder(new Address(3, 101));
+
+            DeliveryTrip trip = trips.poll(5, TimeUnit.SECONDS);
+
+            assertNotNull(trip);
+            assertEquals(List.of(new DeliveryReceipt(orderId, new Address(3, 101), List.of("Delicious pancake with dark chocolate!"))),
+                trip.receipts());
+            assertEquals(1, dispatcher.tripCount());
+            assertEquals(1, dispatcher.deliveredOrders());
+        }
+    }
+
+    @Test
+    void givenOrdersPreparedBeforeStart_whenDispatcherIsClosed_thenTheyAreDelivered() {
+        prepareOrder(new Address(4, 1));
+        prepareOrder(new Address(4, 2));
+
+        DeliveryDispatcher dispatcher = new DeliveryDispatcher(service, 10, Duration.ofMinutes(1), trips::add);
+        dispatcher.close();
+
+        assertEquals(1, trips.size());
+        assertEquals(2, dispatcher.deliveredOrders());
+        assertTrue(service.listPreparedOrders().isEmpty());
+    }
+
+    @Test
+    void givenDispatcherClosedWhileOrderIsBeingPrepared_whenListenerIsNotifiedLate_thenOrderStaysPrepared() {
+        AtomicReference<DeliveryDispatcher> dispatcher = new AtomicReference<>();
+        // registered first, so it closes the dispatcher before the same notification reaches the dispatcher
+        service.addOrderListener((order, previous, current) -> {
+            if (current == OrderStatus.PREPARED) {
+                dispatcher
+                    .get()
+                    .close();
+            }
+        });
+        dispatcher.set(new DeliveryDispatcher(service, 1, Duration.ofMinutes(1), trips::add));
+
+        UUID orderId = prepareOrder(new Address(5, 1));
+
+        assertTrue(trips.isEmpty());
+        assertEquals(List.of(orderId), List.copyOf(service.listPreparedOrders()));
+    }
+
+    @Test
+    void givenUnknownAndUnpreparedOrders_whenDeliveringInBatch_thenOnlyPreparedOrdersGetReceipts() {
+        UUID prepared = prepareOrder(new Address(1, 101));
+        UUID fresh = service
+            .createOrder(new Address(1, 102))
+            .getId();
+
+        List<DeliveryReceipt> receipts = service.deliverOrders(List.of(UUID.randomUUID(), fresh, prepared));
+
+        assertEquals(List.of(prepared), receipts
+            .stream()
+            .map(DeliveryReceipt::orderId)
+            .toList());
+    }
+
+    private UUID prepareOrder(Address address) {
+        UUID orderId = service
+            .createOrder(address)
+            .getId();
+        service.addCustomPancake(orderId, List.of(new Ingredient(IngredientName.DARK_CHOCOLATE)), 1);
+        service.completeOrder(orderId);
+        service.prepareOrder(orderId);
+        return orderId;
+    }
+}
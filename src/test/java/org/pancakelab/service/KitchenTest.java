@@ -0,0 +1,108 @@
+package org.pancakelab.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+import org.pancakelab.concurrent.WorkerThreads;
+import org.pancakelab.domain.order.Order;
+import org.pancakelab.domain.shared.Address;
+import org.pancakelab.domain.shared.Ingredient;
+import org.pancakelab.domain.shared.IngredientName;
+import org.pancakelab.repository.InMemoryOrderRepository;
+
+class KitchenTest {
+    private final PancakeService service = new PancakeService(new InMemoryOrderRepository(), new OrderLog());
+
+    @ParameterizedTest
+    @EnumSource(WorkerThreads.Kind.class)
+    void givenCompletedOrders_whenKitchenIsOpen_thenChefsPrepareThemAll(WorkerThreads.Kind threads) throws InterruptedException {
+        try (Kitchen kitchen = new Kitchen(service, 4, Duration.ofMillis(1), threads)) {
+            Set<UUID> completed = Set.copyOf(completeOrders(50));
+
+            awaitPrepared(kitchen, 50);
+
+            KitchenStats stats = kitchen.getStats();
+            assertEquals(completed, service.listPreparedOrders());
+            assertEquals(0, stats.queueDepth());
+            assertEquals(0, stats.skippedOrders());
+            assertEquals(0, stats.failedOrders());
+            assertTrue(stats.ordersPerSecond() > 0);
+            assertTrue(stats.timeToPrepareMedian().compareTo(Duration.ofMillis(1)) >= 0);
+            assertTrue(stats.timeToPrepareP99().compareTo(stats.timeToPrepareMax()) <= 0);
+        }
+    }
+
+    @Test
+    void givenOrdersCompletedBeforeOpening_whenKitchenOpens_thenBacklogIsPrepared() throws InterruptedException {
+        List<UUID> backlog = completeOrders(5);
+
+        try (Kitchen kitchen = new Kitchen(service, 1, Duration.ZERO)) {
+            awaitPrepared(kitchen, 5);
+
+            assertEquals(Set.copyOf(backlog), service.listPreparedOrders());
+        }
+    }
+
+    @Test
+    void givenRepositoryThatFails_whenChefPreparesOrder_thenFailureIsCountedAndChefKeepsCooking() throws InterruptedException {
+        Set<UUID> failing = ConcurrentHashMap.newKeySet();
+        PancakeService failingService = new PancakeService(new InMemoryOrderRepository() {
+            @Override public Order findById(UUID orderId) {
+                if (failing.contains(orderId)) {
+                    throw new UnsupportedOperationException("Repository failed.");
+                }
+                return super.findById(orderId);
+            }
+        }, new OrderLog());
+        List<UUID> orderIds = completeOrders(failingService, 3);
+        failing.add(orderIds.get(0));
+
+        Kitchen kitchen = new Kitchen(failingService, 1, Duration.ZERO);
+        awaitPrepared(kitchen, 2);
+        kitchen.close();
+
+        assertEquals(1, kitchen
+            .getStats()
+            .failedOrders());
+        assertEquals(Set.copyOf(orderIds.subList(1, 3)), failingService.listPreparedOrders());
+    }
+
+    @Test
+    void givenInvalidConfiguration_whenOpeningKitchen_thenThrowsException() {
+        assertThrows(IllegalArgumentException.class, () -> new Kitchen(service, 0, Duration.ZERO));
+        assertThrows(IllegalArgumentException.class, () -> new Kitchen(service, 1, Duration.ofMillis(-1)));
+    }
+
+    private List<UUID> completeOrders(int count) {
+        return completeOrders(service, count);
+    }
+
+    private static List<UUID> completeOrders(PancakeService service, int count) {
+        List<UUID> orderIds = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            UUID orderId = service
+                .createOrder(new Address(1, 100 + i))
+                .getId();
+            service.addCustomPancake(orderId, List.of(new Ingredient(IngredientName.DARK_CHOCOLATE)), 1);
+            service.completeOrder(orderId);
+            orderIds.add(orderId);
+        }
+        return orderIds;
+    }
+
+    private static void awaitPrepared(Kitchen kitchen, long orders) throws InterruptedException {
+        long deadline = System.nanoTime() + Duration.ofSeconds(10).toNanos();
+        while (kitchen.getStats().preparedOrders() < orders && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+        assertEquals(orders, kitchen.getStats().preparedOrders());
+    }
+}
@@ -0,0 +1,150 @@
+package org.pancakelab.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.pancakelab.domain.log.OrderEvent;
+import org.pancakelab.domain.pancake.Pancake;
+import org.pancakelab.domain.pancake.RecipeRegistry;
+import org.pancakelab.domain.shared.Address;
+import org.pancakelab.domain.shared.Ingredient;
+import org.pancakelab.domain.shared.IngredientName;
+
+class MappedOrderLogTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void givenLoggedEvents_whenLogIsReopened_thenQueriesReturnReplayedEvents() throws IOException {
+        UUID orderId1 = UUID.randomUUID();
+        UUID orderId2 = UUID.randomUUID();
+        OrderEvent added = new OrderEvent(orderId1, LocalDateTime.of(2024, 5, 1, 12, 30, 15, 123456789), OrderEvent.EventType.ADD_PANCAKE, "Added pancake with description Delicious pancake with dark chocolate!");
+        OrderEvent canceled = new OrderEvent(orderId2, LocalDateTime.of(2024, 5, 1, 12, 31), OrderEvent.EventType.CANCEL_ORDER, "Order canceled.");
+        OrderEvent delivered = new OrderEvent(orderId1, LocalDateTime.of(2024, 5, 1, 12, 45), OrderEvent.EventType.DELIVER_ORDER, "Délivré à la chambre 101.");
+
+        try (MappedOrderLog log = new MappedOrderLog(directory)) {
+            log.log(added);
+            log.log(canceled);
+            log.log(delivered);
+        }
+
+        try (MappedOrderLog log = new MappedOrderLog(directory)) {
+            assertEquals(List.of(added, canceled, delivered), log.getAllEvents());
+            assertEquals(List.of(added, delivered), log.getEventsForOrder(orderId1));
+            assertEquals(List.of(canceled), log.getEventsByType(OrderEvent.EventType.CANCEL_ORDER));
+        }
+    }
+
+    @Test
+    void givenTemplatedEvents_whenLogIsReopened_thenTheyAreReplayedWithTheirTypedFields() throws IOException {
+        UUID orderId = UUID.randomUUID();
+        Pancake darkChocolate = RecipeRegistry.recipeOf(List.of(new Ingredient(IngredientName.DARK_CHOCOLATE)));
+        List<OrderEvent> events = List.of(OrderEvent.pancakesAdded(orderId, 1_000L, darkChocolate.getRecipeId(), 3),
+            OrderEvent.pancakesRemoved(orderId, 2_000L, darkChocolate.getDescription(), 1, 2), OrderEvent.orderDelivered(orderId, 3_000L,
+                2, new Address(4, 401)), OrderEvent.orderCancelled(UUID.randomUUID(), 4_000L, 5));
+
+        try (MappedOrderLog log = new MappedOrderLog(directory)) {
+            events.forEach(log::log);
+        }
+
+        try (MappedOrderLog log = new MappedOrderLog(directory)) {
+            List<OrderEvent> replayed = log.getAllEvents();
+            assertEquals(events, replayed);
+            assertEquals(OrderEvent.Template.PANCAKES_REMOVED, replayed
+                .get(1)
+                .template());
+            assertEquals(2, replayed
+                .get(1)
+                .remainingItems());
+            assertEquals(new Address(4, 401), replayed
+                .get(2)
+                .address());
+            assertEquals("Order " + orderId + " with 2 pancake(s) delivered to building 4, room 401.", replayed
+                .get(2)
+                .details());
+        }
+    }
+
+    @Test
+    void givenCorruptEventType_whenLogIsReopened_thenThrowsCorruptionError() throws IOException {
+        try (MappedOrderLog log = new MappedOrderLog(directory)) {
+            log.log(OrderEvent.orderCancelled(UUID.randomUUID(), 1_000L, 1));
+        }
+        Path segment;
+        try (Stream<Path> files = Files.list(directory)) {
+            segment = files
+                .findFirst()
+                .orElseThrow();
+        }
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.WRITE)) {
+            // the type byte follows the length prefix, the order id and the timestamp
+            channel.write(ByteBuffer.wrap(new byte[] { 99 }), Integer.BYTES + 3 * Long.BYTES);
+        }
+
+        IllegalStateException corrupt = assertThrows(IllegalStateException.class, () -> new MappedOrderLog(directory));
+        assertTrue(corrupt
+            .getMessage()
+            .contains("unknown event type 99"));
+    }
+
+    @Test
+    void givenSmallSegments_whenLoggingManyEvents_thenSegmentsRollOverAndReplayInOrder() throws IOException {
+        UUID orderId = UUID.randomUUID();
+        List<OrderEvent> events = Stream
+            .iterate(0, i -> i + 1)
+            .limit(50)
+            .map(i -> new OrderEvent(orderId, LocalDateTime.now(), OrderEvent.EventType.ADD_PANCAKE, "Added pancake " + i))
+            .toList();
+
+        try (MappedOrderLog log = new MappedOrderLog(directory, RetentionPolicy.UNBOUNDED, 256)) {
+            events.forEach(log::log);
+        }
+
+        try (Stream<Path> files = Files.list(directory)) {
+            assertTrue(files.count() > 1);
+        }
+        try (MappedOrderLog log = new MappedOrderLog(directory, RetentionPolicy.UNBOUNDED, 256)) {
+            assertEquals(events, log.getEventsForOrder(orderId));
+        }
+    }
+
+    @Test
+    void givenReopenedLog_whenAppendingMoreEvents_thenOldAndNewEventsAreKept() throws IOException {
+        UUID orderId = UUID.randomUUID();
+        OrderEvent first = new OrderEvent(orderId, LocalDateTime.now(), OrderEvent.EventType.ADD_PANCAKE, "First.");
+        OrderEvent second = new OrderEvent(orderId, LocalDateTime.now(), OrderEvent.EventType.REMOVE_PANCAKE, "Second.");
+
+        try (MappedOrderLog log = new MappedOrderLog(directory)) {
+            log.log(first);
+        }
+        try (MappedOrderLog log = new MappedOrderLog(directory)) {
+            log.log(second);
+        }
+
+        try (MappedOrderLog log = new MappedOrderLog(directory)) {
+            assertEquals(List.of(first, second), log.getAllEvents());
+        }
+    }
+
+    @Test
+    void givenEventLargerThanSegment_whenLogging_thenThrowsException() throws IOException {
+        try (MappedOrderLog log = new MappedOrderLog(directory, RetentionPolicy.UNBOUNDED, 64)) {
+            OrderEvent event = new OrderEvent(UUID.randomUUID(), LocalDateTime.now(), OrderEvent.EventType.ADD_PANCAKE, "x".repeat(100));
+
+            assertThrows(IllegalArgumentException.class, () -> log.log(event));
+            assertEquals(List.of(), log.getAllEvents());
+        }
+    }
+}
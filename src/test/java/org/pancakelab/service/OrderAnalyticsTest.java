@@ -0,0 +1,130 @@
+package org.pancakelab.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+import org.junit.jupiter.api.Test;
+import org.pancakelab.domain.log.ManualEventClock;
+import org.pancakelab.domain.log.OrderEvent;
+import org.pancakelab.domain.shared.Address;
+import org.pancakelab.domain.shared.Ingredient;
+import org.pancakelab.domain.shared.IngredientName;
+import org.pancakelab.repository.InMemoryOrderRepository;
+
+class OrderAnalyticsTest {
+    private static final Instant START = Instant.parse("2024-05-01T12:00:00Z");
+
+    @Test
+    void givenOrdersThroughTheService_whenAnalyticsAreQueried_thenAggregatesMatchTheLog() {
+        OrderLog orderLog = new OrderLog(RetentionPolicy.UNBOUNDED, new ManualEventClock(START));
+        OrderAnalytics analytics = OrderAnalytics.attachTo(orderLog);
+        PancakeService service = new PancakeService(new InMemoryOrderRepository(), orderLog);
+        List<Ingredient> darkWithHazelnuts = List.of(new Ingredient(IngredientName.DARK_CHOCOLATE), new Ingredient(IngredientName.HAZELNUTS));
+
+        UUID delivered = service
+            .createOrder(new Address(7, 701))
+            .getId();
+        service.addCustomPancake(delivered, darkWithHazelnuts, 3);
+        service.addCustomPancake(delivered, List.of(new Ingredient(IngredientName.MILK_CHOCOLATE)), 1);
+        service.removePancakes("Delicious pancake with dark chocolate, hazelnuts!", delivered, 1);
+        service.completeOrder(delivered);
+        service.prepareOrder(delivered);
+        service.deliverOrder(delivered);
+        UUID cancelled = service
+            .createOrder(new Address(8, 801))
+            .getId();
+        service.addCustomPancake(cancelled, darkWithHazelnuts, 1);
+        service.cancelOrder(cancelled);
+
+        assertEquals(4, analytics.pancakesAdded(IngredientName.DARK_CHOCOLATE));
+        assertEquals(1, analytics.pancakesRemoved(IngredientName.HAZELNUTS));
+        assertEquals(3, analytics.pancakesOrdered(IngredientName.HAZELNUTS));
+        assertEquals(1, analytics.pancakesOrdered(IngredientName.MILK_CHOCOLATE));
+        assertEquals(0, analytics.pancakesOrdered(IngredientName.WHIPPED_CREAM));
+        assertEquals(1, analytics.deliveredOrders(7));
+        assertEquals(0, analytics.deliveredOrders(8));
+        assertEquals(3, analytics.events(OrderEvent.EventType.ADD_PANCAKE));
+        assertEquals(0.5, analytics.cancelRate());
+        for (OrderEvent.EventType type : OrderEvent.EventType.values()) {
+            assertEquals(orderLog
+                .getEventsByType(type)
+                .size(), analytics.events(type));
+        }
+    }
+
+    @Test
+    void givenEventsOverTime_whenWindowSlides_thenOnlyEventsInsideTheWindowCount() {
+        ManualEventClock clock = new ManualEventClock(START);
+        OrderLog orderLog = new OrderLog(RetentionPolicy.UNBOUNDED, clock);
+        OrderAnalytics analytics = new OrderAnalytics(clock, Duration.ofSeconds(1), 60);
+        orderLog.addListener(analytics);
+
+        orderLog.log(OrderEvent.orderCancelled(UUID.randomUUID(), clock.epochNanos(), 1));
+        clock.advance(Duration.ofSeconds(30));
+        orderLog.log(OrderEvent.orderDelivered(UUID.randomUUID(), clock.epochNanos(), 1, new Address(1, 101)));
+        orderLog.log(OrderEvent.orderDelivered(UUID.randomUUID(), clock.epochNanos(), 1, new Address(1, 101)));
+
+        assertEquals(1, analytics.events(OrderEvent.EventType.CANCEL_ORDER, Duration.ofMinutes(1)));
+        assertEquals(0, analytics.events(OrderEvent.EventType.CANCEL_ORDER, Duration.ofSeconds(10)));
+        assertEquals(2, analytics.events(OrderEvent.EventType.DELIVER_ORDER, Duration.ofSeconds(10)));
+        assertEquals(1.0 / 3, analytics.cancelRate(Duration.ofMinutes(1)));
+
+        clock.advance(Duration.ofSeconds(45));
+        orderLog.log(OrderEvent.orderCancelled(UUID.randomUUID(), clock.epochNanos(), 1));
+
+        assertEquals(1, analytics.events(OrderEvent.EventType.CANCEL_ORDER, Duration.ofMinutes(1)));
+        assertEquals(2, analytics.events(OrderEvent.EventType.DELIVER_ORDER, Duration.ofMinutes(1)));
+        assertEquals(2, analytics.events(OrderEvent.EventType.CANCEL_ORDER));
+        assertEquals(0.5, analytics.cancelRate());
+    }
+
+    @Test
+    void givenWindowLongerThanTheBuckets_whenQueried_thenThrowsException() {
+        OrderAnalytics analytics = new OrderAnalytics(new ManualEventClock(START), Duration.ofSeconds(1), 60);
+
+        assertEquals(Duration.ofMinutes(1), analytics.windowSpan());
+        assertThrows(IllegalArgumentException.class, () -> analytics.events(OrderEvent.EventType.ADD_PANCAKE, Duration.ofMinutes(2)));
+        assertThrows(IllegalArgumentException.class, () -> new OrderAnalytics(new ManualEventClock(START), Duration.ZERO, 60));
+    }
+
+    @Test
+    void givenFailingListener_whenEventIsLogged_thenFailureIsCountedAndOtherListenersStillRun() {
+        OrderLog orderLog = new OrderLog();
+        orderLog.addListener(event -> {
+            throw new IllegalStateException("Listener failed.");
+        });
+        OrderAnalytics analytics = OrderAnalytics.attachTo(orderLog);
+
+        orderLog.log(OrderEvent.orderCancelled(UUID.randomUUID(), orderLog
+            .clock()
+            .epochNanos(), 1));
+
+        assertEquals(1, orderLog.getListenerFailures());
+        assertEquals(1, analytics.events(OrderEvent.EventType.CANCEL_ORDER));
+        assertEquals(1, orderLog
+            .getAllEvents()
+            .size());
+    }
+
+    @Test
+    void givenRemovedListener_whenEventsAreLogged_thenAnalyticsStopCounting() {
+        OrderLog orderLog = new OrderLog();
+        OrderAnalytics analytics = OrderAnalytics.attachTo(orderLog);
+        orderLog.log(OrderEvent.orderCancelled(UUID.randomUUID(), orderLog
+            .clock()
+            .epochNanos(), 1));
+
+        orderLog.removeListener(analytics);
+        orderLog.log(OrderEvent.orderCancelled(UUID.randomUUID(), orderLog
+            .clock()
+            .epochNanos(), 1));
+
+        assertEquals(1, analytics.events(OrderEvent.EventType.CANCEL_ORDER));
+        assertEquals(2, orderLog
+            .getEventsByType(OrderEvent.EventType.CANCEL_ORDER)
+            .size());
+    }
+}
@@ -2,10 +2,14 @@ package org.pancakelab.service;
 
 import static org.junit.jupiter.api.Assertions.*;
 
+import java.time.Duration;
+import java.time.Instant;
 import java.time.LocalDateTime;
+import java.time.ZoneId;
 import java.util.List;
 import java.util.UUID;
 import org.junit.jupiter.api.Test;
+import org.pancakelab.domain.log.ManualEventClock;
 import org.pancakelab.domain.log.OrderEvent;
 
 /**
@@ -57,7 +61,143 @@ class OrderLogTest {
         assertEquals(event1, eventsForOrder1.get(0));
     }
 
+    @Test
+    void givenInterleavedEvents_whenQueryingByOrderIdAndType_thenInsertionOrderIsKept() {
+        OrderLog log = new OrderLog();
+        UUID orderId1 = UUID.randomUUID();
+        UUID orderId2 = UUID.randomUUID();
+        OrderEvent first = new OrderEvent(orderId1, LocalDateTime.now(), OrderEvent.EventType.ADD_PANCAKE, "First.");
+        OrderEvent other = new OrderEvent(orderId2, LocalDateTime.now(), OrderEvent.EventType.ADD_PANCAKE, "Other.");
+        OrderEvent second = new OrderEvent(orderId1, LocalDateTime.now(), OrderEvent.EventType.REMOVE_PANCAKE, "Second.");
+        OrderEvent third = new OrderEvent(orderId1, LocalDateTime.now(), OrderEvent.EventType.ADD_PANCAKE, "Third.");
+
+        log.log(first);
+        log.log(other);
+        log.log(second);
+        log.log(third);
+
+        assertEquals(List.of(first, second, third), log.getEventsForOrder(orderId1));
+        assertEquals(List.of(first, other, third), log.getEventsByType(OrderEvent.EventType.ADD_PANCAKE));
+        assertEquals(List.of(first, other, second, third), log.getAllEvents());
+        assertEquals(List.of(), log.getEventsForOrder(UUID.randomUUID()));
+    }
+
+    @Test
+    void givenMaxEventsPolicy_whenLogExceedsLimit_thenOldestEventsAreEvicted() {
+        try (OrderLog log = new OrderLog(manualEviction().withMaxEvents(2))) {
+            UUID orderId = UUID.randomUUID();
+            OrderEvent first = new OrderEvent(orderId, LocalDateTime.now(), OrderEvent.EventType.ADD_PANCAKE, "First.");
+            OrderEvent second = new OrderEvent(orderId, LocalDateTime.now(), OrderEvent.EventType.ADD_PANCAKE, "Second.");
+            OrderEvent third = new OrderEvent(orderId, LocalDateTime.now(), OrderEvent.EventType.REMOVE_PANCAKE, "Third.");
+            log.log(first);
+            log.log(second);
+            log.log(third);
+
+            log.evict();
+
+            assertEquals(List.of(second, third), log.getAllEvents());
+            assertEquals(List.of(second, third), log.getEventsForOrder(orderId));
+            assertEquals(List.of(second), log.getEventsByType(OrderEvent.EventType.ADD_PANCAKE));
+            assertEquals(new RetentionStats(2, 1, 0, 0), log.getRetentionStats());
+        }
+    }
+
+    @Test
+    void givenMaxAgePolicy_whenEventsAreOlder_thenTheyAreEvicted() {
+        try (OrderLog log = new OrderLog(manualEviction().withMaxAge(Duration.ofMinutes(5)))) {
+            UUID staleOrderId = UUID.randomUUID();
+            OrderEvent fresh = new OrderEvent(UUID.randomUUID(), LocalDateTime.now(), OrderEvent.EventType.ADD_PANCAKE, "Fresh.");
+            log.log(new OrderEvent(staleOrderId, LocalDateTime.now().minusHours(1), OrderEvent.EventType.ADD_PANCAKE, "Stale."));
+            log.log(fresh);
+
+            log.evict();
+
+            assertEquals(List.of(fresh), log.getAllEvents());
+            assertEquals(List.of(), log.getEventsForOrder(staleOrderId));
+            assertEquals(1, log.getRetentionStats().evictedByAge());
+        }
+    }
 
+    @Test
+    void givenManualClock_whenItAdvancesPastMaxAge_thenEventsStampedEarlierAreEvicted() {
+        ManualEventClock clock = new ManualEventClock(Instant.parse("2024-05-01T12:00:00Z"));
+        try (OrderLog log = new OrderLog(manualEviction().withMaxAge(Duration.ofMinutes(5)), clock)) {
+            OrderEvent early = OrderEvent.orderCancelled(UUID.randomUUID(), clock.epochNanos(), 1);
+            log.log(early);
+            clock.advance(Duration.ofMinutes(4));
+            OrderEvent later = OrderEvent.orderCancelled(UUID.randomUUID(), clock.epochNanos(), 1);
+            log.log(later);
+
+            clock.advance(Duration.ofMinutes(2));
+            log.evict();
+
+            assertEquals(List.of(later), log.getAllEvents());
+            assertEquals(1, early.sequence());
+            assertEquals(2, later.sequence());
+            assertEquals(LocalDateTime.ofInstant(Instant.parse("2024-05-01T12:04:00Z"), ZoneId.systemDefault()), later.timestamp());
+        }
+    }
 
+    @Test
+    void givenTerminalGracePolicy_whenOrderIsDelivered_thenAllItsEventsAreEvicted() {
+        try (OrderLog log = new OrderLog(manualEviction().withTerminalGracePeriod(Duration.ZERO))) {
+            UUID deliveredOrderId = UUID.randomUUID();
+            UUID openOrderId = UUID.randomUUID();
+            OrderEvent openOrderEvent = new OrderEvent(openOrderId, LocalDateTime.now(), OrderEvent.EventType.ADD_PANCAKE, "Added.");
+            log.log(new OrderEvent(deliveredOrderId, LocalDateTime.now(), OrderEvent.EventType.ADD_PANCAKE, "Added."));
+            log.log(openOrderEvent);
+            log.log(new OrderEvent(deliveredOrderId, LocalDateTime.now(), OrderEvent.EventType.DELIVER_ORDER, "Delivered."));
+
+            log.evict();
+
+            assertEquals(List.of(openOrderEvent), log.getAllEvents());
+            assertEquals(List.of(), log.getEventsForOrder(deliveredOrderId));
+            assertEquals(List.of(), log.getEventsByType(OrderEvent.EventType.DELIVER_ORDER));
+            assertEquals(new RetentionStats(1, 0, 0, 2), log.getRetentionStats());
+        }
+    }
 
-}
\ No newline at end of file
+    @Test
+    void givenManualClock_whenItAdvancesPastTerminalGracePeriod_thenOrderEventsAreEvicted() {
+        ManualEventClock clock = new ManualEventClock(Instant.parse("2024-05-01T12:00:00Z"));
+        try (OrderLog log = new OrderLog(manualEviction().withTerminalGracePeriod(Duration.ofMinutes(10)), clock)) {
+            UUID orderId = UUID.randomUUID();
+            log.log(OrderEvent.orderCancelled(orderId, clock.epochNanos(), 1));
+
+            clock.advance(Duration.ofMinutes(9));
+            log.evict();
+            assertEquals(1, log
+                .getEventsForOrder(orderId)
+                .size());
+
+            clock.advance(Duration.ofMinutes(1));
+            log.evict();
+            assertEquals(List.of(), log.getAllEvents());
+            assertEquals(new RetentionStats(0, 0, 0, 1), log.getRetentionStats());
+        }
+    }
+
+    @Test
+    void givenBoundedPolicy_whenEvictorRunsInBackground_thenLogIsTrimmed() throws InterruptedException {
+        RetentionPolicy policy = RetentionPolicy.UNBOUNDED
+            .withMaxEvents(10)
+            .withEvictionInterval(Duration.ofMillis(10));
+        try (OrderLog log = new OrderLog(policy)) {
+            for (int i = 0; i < 100; i++) {
+                log.log(new OrderEvent(UUID.randomUUID(), LocalDateTime.now(), OrderEvent.EventType.ADD_PANCAKE, "Added."));
+            }
+
+            long deadline = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+            while (log.getRetentionStats().retainedEvents() > 10 && System.nanoTime() < deadline) {
+                Thread.sleep(10);
+            }
+
+            assertEquals(10, log.getAllEvents().size());
+            assertEquals(90, log.getRetentionStats().evictedByCount());
+        }
+    }
+
+    private static RetentionPolicy manualEviction() {
+        return RetentionPolicy.UNBOUNDED.withEvictionInterval(Duration.ofHours(1));
+    }
+}
@@ -0,0 +1,105 @@
+package org.pancakelab.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.management.openmbean.TabularData;
+import org.junit.jupiter.api.Test;
+import org.pancakelab.domain.order.OrderStatus;
+import org.pancakelab.domain.shared.Address;
+import org.pancakelab.domain.shared.Ingredient;
+import org.pancakelab.domain.shared.IngredientName;
+import org.pancakelab.repository.InMemoryOrderRepository;
+import org.pancakelab.service.PancakeServiceMetrics.Operation;
+import org.pancakelab.service.PancakeServiceMetrics.Outcome;
+
+class PancakeServiceMetricsTest {
+    private final PancakeService        service = new PancakeService(new InMemoryOrderRepository(), new OrderLog());
+    private final PancakeServiceMetrics metrics = service.getMetrics();
+
+    @Test
+    void givenServiceCalls_whenTheySucceedOrFail_thenEachOutcomeIsCounted() {
+        UUID orderId = service
+            .createOrder(new Address(1, 1))
+            .getId();
+        assertThrows(IllegalStateException.class, () -> service.completeOrder(orderId));
+        service.addCustomPancake(orderId, List.of(new Ingredient(IngredientName.DARK_CHOCOLATE)), 2);
+        service.completeOrder(orderId);
+        assertThrows(IllegalArgumentException.class, () -> service.prepareOrder(UUID.randomUUID()));
+
+        assertEquals(1, metrics.count(Operation.CREATE_ORDER, Outcome.SUCCESS));
+        assertEquals(1, metrics.count(Operation.ADD_PANCAKES, Outcome.SUCCESS));
+        assertEquals(1, metrics.count(Operation.COMPLETE_ORDER, Outcome.SUCCESS));
+        assertEquals(1, metrics.count(Operation.COMPLETE_ORDER, Outcome.ILLEGAL_STATE));
+        assertEquals(1, metrics.count(Operation.PREPARE_ORDER, Outcome.NOT_FOUND));
+        assertEquals(2, metrics
+            .latency(Operation.COMPLETE_ORDER)
+            .count());
+        assertEquals(0, metrics
+            .latency(Operation.DELIVER_ORDER)
+            .count());
+    }
+
+    @Test
+    void givenFailingOrderListener_whenOrderChangesStatus_thenCallSucceedsAndFailureIsCounted() {
+        List<OrderStatus> notified = new ArrayList<>();
+        service.addOrderListener((order, previous, current) -> {
+            throw new UnsupportedOperationException("Listener failed.");
+        });
+        service.addOrderListener((order, previous, current) -> notified.add(current));
+        UUID orderId = service
+            .createOrder(new Address(1, 1))
+            .getId();
+        service.addCustomPancake(orderId, List.of(new Ingredient(IngredientName.DARK_CHOCOLATE)), 1);
+
+        service.completeOrder(orderId);
+
+        assertEquals(List.of(OrderStatus.COMPLETED), notified);
+        assertEquals(1, metrics.getListenerFailures());
+        assertEquals(1, metrics.count(Operation.COMPLETE_ORDER, Outcome.SUCCESS));
+        assertEquals(List.of(orderId), List.copyOf(service.listCompletedOrders()));
+    }
+
+    @Test
+    void givenRecordedCalls_whenTakingSnapshot_thenOnlyCalledOperationsAreListed() {
+        service.createOrder(new Address(1, 1));
+        service.viewOrder(UUID.randomUUID());
+
+        String snapshot = metrics.snapshot();
+
+        assertTrue(snapshot.startsWith("operation"));
+        assertTrue(snapshot.contains("CREATE_ORDER"));
+        assertTrue(snapshot.contains("VIEW_ORDER"));
+        assertFalse(snapshot.contains("DELIVER_ORDER"));
+        assertEquals(3, snapshot
+            .lines()
+            .count());
+    }
+
+    @Test
+    void givenRegisteredMetrics_whenReadThroughPlatformMBeanServer_thenCountersAreVisible() throws Exception {
+        service.createOrder(new Address(1, 1));
+        ObjectName name = metrics.register("metrics-test");
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            TabularData calls = (TabularData) server.getAttribute(name, "Calls");
+
+            assertEquals(1L, calls
+                .get(new Object[] { "CREATE_ORDER.SUCCESS" })
+                .get("value"));
+            assertTrue(((String) server.getAttribute(name, "Snapshot")).contains("CREATE_ORDER"));
+            assertThrows(IllegalStateException.class, () -> metrics.register("metrics-test"));
+        }
+        finally {
+            metrics.unregister("metrics-test");
+        }
+        assertFalse(ManagementFactory
+            .getPlatformMBeanServer()
+            .isRegistered(name));
+    }
+}
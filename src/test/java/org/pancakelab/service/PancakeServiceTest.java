@@ -2,7 +2,9 @@ package org.pancakelab.service;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
@@ -14,8 +16,11 @@ import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.pancakelab.domain.inventory.Inventory;
+import org.pancakelab.domain.inventory.OutOfStockException;
 import org.pancakelab.domain.log.OrderEvent;
 import org.pancakelab.domain.order.Order;
+import org.pancakelab.domain.order.OrderIdGenerator;
 import org.pancakelab.domain.order.OrderStatus;
 import org.pancakelab.domain.shared.Address;
 import org.pancakelab.domain.shared.Ingredient;
@@ -74,6 +79,13 @@ public class PancakeServiceTest {
             MILK_CHOCOLATE_HAZELNUTS_PANCAKE_DESCRIPTION), ordersPancakes);
     }
 
+    @Test
+    void givenZeroCount_whenAddPancakeWithoutIngredients_thenNothingHappens() {
+        pancakeService.addCustomPancake(order.getId(), List.of(), 0);
+
+        assertEquals(List.of(), pancakeService.viewOrder(order.getId()));
+    }
+
     @Test
     void givenCanceledOrder_whenAddPancake_thenThrowsException() {
         pancakeService.cancelOrder(order.getId());
@@ -388,6 +400,26 @@ public class PancakeServiceTest {
             .details());
     }
 
+    @Test
+    public void givenOrder_whenAddingManyCustomPancakes_thenOneAggregatedEventIsLogged() {
+        PancakeService service = new PancakeService(new InMemoryOrderRepository(), new OrderLog());
+        UUID orderId = service
+            .createOrder(new Address(1, 101))
+            .getId();
+        service.addCustomPancake(orderId, List.of(new Ingredient(IngredientName.DARK_CHOCOLATE)), 500);
+
+        List<OrderEvent> events = service
+            .getOrderLog()
+            .getEventsForOrder(orderId);
+        assertEquals(1, events.size());
+        assertEquals("Added 500 pancakes with description Delicious pancake with dark chocolate!", events
+            .get(0)
+            .details());
+        assertEquals(500, service
+            .viewOrder(orderId)
+            .size());
+    }
+
     @Test
     public void givenOrder_whenCancelingOrder_thenEventIsLogged() {
         PancakeService service = new PancakeService(new InMemoryOrderRepository(), new OrderLog());
@@ -423,7 +455,7 @@ public class PancakeServiceTest {
         List<OrderEvent> events = service
             .getOrderLog()
             .getEventsForOrder(orderId);
-        assertEquals(4, events.size());
+        assertEquals(2, events.size());
         OrderEvent lastEvent = events.get(events.size() - 1);
         assertEquals(OrderEvent.EventType.REMOVE_PANCAKE, lastEvent.type());
         assertEquals(
@@ -448,7 +480,7 @@ public class PancakeServiceTest {
         List<OrderEvent> events = service
             .getOrderLog()
             .getEventsForOrder(orderId);
-        assertEquals(4, events.size());
+        assertEquals(2, events.size());
         OrderEvent lastEvent = events.get(events.size() - 1);
         assertEquals(OrderEvent.EventType.DELIVER_ORDER, lastEvent.type());
         assertEquals(
@@ -504,4 +536,158 @@ public class PancakeServiceTest {
             .size());
     }
 
+    @Test
+    public void givenCommandsForTwoOrders_whenExecute_thenEachOrderIsUpdatedAndResultsFollowCommandSequence() {
+        OrderCommand.Create create = pancakeService.newOrderCommand(new Address(2, 202));
+        UUID newOrderId = create.orderId();
+        List<Ingredient> darkChocolate = List.of(new Ingredient(IngredientName.DARK_CHOCOLATE));
+
+        List<CommandResult> results = pancakeService.execute(List.of(
+            create,
+            new OrderCommand.AddPancakes(order.getId(), darkChocolate, 2),
+            new OrderCommand.AddPancakes(newOrderId, darkChocolate, 3),
+            new OrderCommand.RemovePancakes(newOrderId, DARK_CHOCOLATE_PANCAKE_DESCRIPTION, 1),
+            new OrderCommand.Complete(newOrderId),
+            new OrderCommand.Prepare(newOrderId),
+            new OrderCommand.Deliver(newOrderId)));
+
+        assertEquals(7, results.size());
+        assertTrue(results
+            .stream()
+            .allMatch(CommandResult::succeeded));
+        assertEquals(newOrderId, ((Order) results
+            .get(0)
+            .value()).getId());
+        assertEquals(2, results
+            .get(1)
+            .value());
+        assertEquals(1, results
+            .get(3)
+            .value());
+        DeliveryReceipt receipt = (DeliveryReceipt) results
+            .get(6)
+            .value();
+        assertEquals(List.of(DARK_CHOCOLATE_PANCAKE_DESCRIPTION, DARK_CHOCOLATE_PANCAKE_DESCRIPTION), receipt.pancakes());
+        assertEquals(2, pancakeService
+            .viewOrder(order.getId())
+            .size());
+        assertTrue(pancakeService
+            .viewOrder(newOrderId)
+            .isEmpty());
+        assertEquals(3, pancakeService
+            .getOrderLog()
+            .getEventsForOrder(newOrderId)
+            .size());
+    }
+
+    @Test
+    public void givenServiceIdGenerator_whenBatchCreatesOrder_thenIdComesFromTheGenerator() {
+        UUID fixedId = UUID.randomUUID();
+        PancakeService service = new PancakeService(new InMemoryOrderRepository(), new OrderLog(), new PancakeServiceMetrics(),
+            () -> fixedId, Inventory.unlimited());
+
+        OrderCommand.Create create = service.newOrderCommand(new Address(1, 101));
+        List<CommandResult> results = service.execute(List.of(create));
+
+        assertEquals(fixedId, create.orderId());
+        assertTrue(results
+            .get(0)
+            .succeeded());
+    }
+
+    @Test
+    public void givenFailingCommand_whenExecute_thenFailureIsReportedAndLaterCommandsStillRun() {
+        UUID unknownOrderId = UUID.randomUUID();
+        List<Ingredient> milkChocolate = List.of(new Ingredient(IngredientName.MILK_CHOCOLATE));
+
+        List<CommandResult> results = pancakeService.execute(List.of(
+            new OrderCommand.Complete(order.getId()),
+            new OrderCommand.AddPancakes(order.getId(), milkChocolate, 1),
+            new OrderCommand.Complete(order.getId()),
+            new OrderCommand.Create(order.getId(), new Address(3, 303)),
+            new OrderCommand.Cancel(unknownOrderId)));
+
+        assertInstanceOf(IllegalStateException.class, results
+            .get(0)
+            .failure());
+        assertTrue(results
+            .get(1)
+            .succeeded());
+        assertTrue(results
+            .get(2)
+            .succeeded());
+        assertInstanceOf(IllegalStateException.class, results
+            .get(3)
+            .failure());
+        OrderNotFoundException notFound = assertInstanceOf(OrderNotFoundException.class, results
+            .get(4)
+            .failure());
+        assertEquals(unknownOrderId, notFound.getOrderId());
+        assertEquals(Set.of(order.getId()), pancakeService.listCompletedOrders());
+    }
+
+    @Test
+    public void givenCreateRacingAnotherBatch_whenIdWasTakenAfterLookup_thenCreateFailsAndWinnerIsKept() {
+        Order winner = new Order(new Address(4, 404));
+        OrderRepository racingRepository = new InMemoryOrderRepository() {
+            private boolean raced;
+
+            @Override public Order findById(UUID orderId) {
+                if (!raced) {
+                    // the other batch saves its order right after this one looked the id up
+                    raced = true;
+                    save(winner);
+                    return null;
+                }
+                return super.findById(orderId);
+            }
+        };
+        PancakeService service = new PancakeService(racingRepository, new OrderLog());
+
+        List<CommandResult> results = service.execute(List.of(
+            new OrderCommand.Create(winner.getId(), new Address(5, 505)),
+            new OrderCommand.AddPancakes(winner.getId(), List.of(new Ingredient(IngredientName.DARK_CHOCOLATE)), 1)));
+
+        IllegalStateException exception = assertInstanceOf(IllegalStateException.class, results
+            .get(0)
+            .failure());
+        assertEquals("Order already exists: " + winner.getId(), exception.getMessage());
+        assertTrue(results
+            .get(1)
+            .succeeded());
+        assertSame(winner, racingRepository.findById(winner.getId()));
+        assertEquals(1, winner.getItemCount());
+    }
+
+    @Test
+    public void givenLimitedInventory_whenOrdersAddCancelAndPrepare_thenStockIsReservedReleasedAndConsumed() {
+        Inventory inventory = new Inventory(2);
+        inventory.restock(IngredientName.HAZELNUTS, 5);
+        inventory.restock(IngredientName.MILK_CHOCOLATE, 100);
+        PancakeService service = new PancakeService(new InMemoryOrderRepository(), new OrderLog(), new PancakeServiceMetrics(),
+            OrderIdGenerator.timeOrdered(), inventory);
+        List<Ingredient> hazelnutPancake = List.of(new Ingredient(IngredientName.MILK_CHOCOLATE), new Ingredient(IngredientName.HAZELNUTS));
+        UUID cancelled = service
+            .createOrder(new Address(1, 1))
+            .getId();
+        UUID prepared = service
+            .createOrder(new Address(1, 2))
+            .getId();
+
+        service.addCustomPancake(cancelled, hazelnutPancake, 3);
+        assertThrows(OutOfStockException.class, () -> service.addCustomPancake(prepared, hazelnutPancake, 3));
+        assertTrue(service
+            .viewOrder(prepared)
+            .isEmpty());
+        service.removePancakes(MILK_CHOCOLATE_HAZELNUTS_PANCAKE_DESCRIPTION, cancelled, 1);
+        service.cancelOrder(cancelled);
+        service.addCustomPancake(prepared, hazelnutPancake, 5);
+        service.completeOrder(prepared);
+        service.prepareOrder(prepared);
+
+        assertEquals(0, inventory.available(IngredientName.HAZELNUTS));
+        assertEquals(0, inventory.reserved(IngredientName.HAZELNUTS));
+        assertEquals(5, inventory.consumed(IngredientName.HAZELNUTS));
+        assertEquals(95, inventory.available(IngredientName.MILK_CHOCOLATE));
+    }
 }